@@ -0,0 +1,185 @@
+package br.com.orlandoburli.livraria.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+
+import br.com.orlandoburli.livraria.converters.emprestimo.EmprestimoEntityToDtoConvert;
+import br.com.orlandoburli.livraria.converters.instuicaoensino.InstituicaoEnsinoEntityToDtoConverter;
+import br.com.orlandoburli.livraria.converters.livro.LivroEntityToDtoConverter;
+import br.com.orlandoburli.livraria.converters.usuario.UsuarioEntityToDtoConverter;
+import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
+import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
+import br.com.orlandoburli.livraria.model.Emprestimo;
+import br.com.orlandoburli.livraria.model.InstituicaoEnsino;
+import br.com.orlandoburli.livraria.model.Livro;
+import br.com.orlandoburli.livraria.model.Usuario;
+import br.com.orlandoburli.livraria.utils.ReflectionUtils;
+
+/**
+ * Custo da conversão de entidades para DTOs.
+ *
+ * Os métodos <i>viaConversionService</i> reproduzem a conversão anterior, em
+ * que cada conversor chamava o {@link ConversionService} para as entidades
+ * relacionadas e os documentos eram limpos por expressão regular. Os métodos
+ * <i>direto</i> usam os conversores atuais, ligados entre si.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversaoBenchmark {
+
+	private Emprestimo emprestimo;
+
+	private GenericConversionService conversionService;
+
+	private EmprestimoEntityToDtoConvert emprestimoConverter;
+
+	private UsuarioEntityToDtoConverter usuarioConverter;
+
+	@Setup
+	public void prepare() {
+		// @formatter:off
+		final InstituicaoEnsino instituicao = InstituicaoEnsino
+				.builder()
+					.id(1L)
+					.nome("Universidade Federal")
+					.telefone("6533334444")
+					.cnpj("11222333000181")
+					.endereco("Av. Fernando Corrêa da Costa, 2367")
+					.status(Status.ATIVO)
+				.build();
+
+		final Usuario usuario = Usuario
+				.builder()
+					.id(2L)
+					.nome("Maria da Silva")
+					.endereco("Rua das Flores, 100")
+					.cpf("52998224725")
+					.telefone("65999998888")
+					.email("maria@email.com")
+					.instituicao(instituicao)
+					.status(Status.ATIVO)
+				.build();
+
+		final Livro livro = Livro
+				.builder()
+					.id(3L)
+					.titulo("Dom Casmurro")
+					.genero("Romance")
+					.autor("Machado de Assis")
+					.sinopse("Bentinho e Capitu")
+					.status(Status.ATIVO)
+				.build();
+
+		emprestimo = Emprestimo
+				.builder()
+					.id(4L)
+					.usuario(usuario)
+					.livro(livro)
+					.dataEmprestimo(LocalDate.now())
+					.status(StatusEmprestimo.ABERTO)
+				.build();
+		// @formatter:on
+
+		conversionService = conversaoAnterior();
+
+		final LivroEntityToDtoConverter livroConverter = new LivroEntityToDtoConverter();
+
+		usuarioConverter = new UsuarioEntityToDtoConverter();
+		ReflectionUtils.setValue("instituicaoConverter", usuarioConverter, new InstituicaoEnsinoEntityToDtoConverter());
+
+		emprestimoConverter = new EmprestimoEntityToDtoConvert();
+		ReflectionUtils.setValue("livroConverter", emprestimoConverter, livroConverter);
+		ReflectionUtils.setValue("usuarioConverter", emprestimoConverter, usuarioConverter);
+	}
+
+	@Benchmark
+	public EmprestimoDto emprestimoViaConversionService() {
+		return conversionService.convert(emprestimo, EmprestimoDto.class);
+	}
+
+	@Benchmark
+	public EmprestimoDto emprestimoDireto() {
+		return emprestimoConverter.convert(emprestimo);
+	}
+
+	@Benchmark
+	public UsuarioDto usuarioViaConversionService() {
+		return conversionService.convert(emprestimo.getUsuario(), UsuarioDto.class);
+	}
+
+	@Benchmark
+	public UsuarioDto usuarioDireto() {
+		return usuarioConverter.convert(emprestimo.getUsuario());
+	}
+
+	private static GenericConversionService conversaoAnterior() {
+		final GenericConversionService service = new GenericConversionService();
+
+		// @formatter:off
+		service.addConverter(InstituicaoEnsino.class, InstituicaoEnsinoDto.class, source -> InstituicaoEnsinoDto
+				.builder()
+					.id(source.getId())
+					.nome(source.getNome())
+					.telefone(source.getTelefone())
+					.cnpj(source.getCnpj())
+					.endereco(source.getEndereco())
+					.status(source.getStatus())
+				.build());
+
+		service.addConverter(Livro.class, LivroDto.class, source -> LivroDto
+				.builder()
+					.id(source.getId())
+					.titulo(source.getTitulo())
+					.genero(source.getGenero())
+					.autor(source.getAutor())
+					.sinopse(source.getSinopse())
+					.status(source.getStatus())
+				.build());
+
+		service.addConverter(Usuario.class, UsuarioDto.class, source -> UsuarioDto
+				.builder()
+					.id(source.getId())
+					.nome(source.getNome())
+					.endereco(source.getEndereco())
+					.cpf(source.getCpf().replaceAll("\\D+", ""))
+					.telefone(source.getTelefone().replaceAll("\\D+", ""))
+					.email(source.getEmail())
+					.instituicao(service.convert(source.getInstituicao(), InstituicaoEnsinoDto.class))
+					.status(source.getStatus())
+				.build());
+
+		service.addConverter(Emprestimo.class, EmprestimoDto.class, source -> EmprestimoDto
+				.builder()
+					.id(source.getId())
+					.dataEmprestimo(source.getDataEmprestimo())
+					.dataDevolucao(source.getDataDevolucao())
+					.status(source.getStatus())
+					.livro(service.convert(source.getLivro(), LivroDto.class))
+					.usuario(service.convert(source.getUsuario(), UsuarioDto.class))
+				.build());
+		// @formatter:on
+
+		return service;
+	}
+}
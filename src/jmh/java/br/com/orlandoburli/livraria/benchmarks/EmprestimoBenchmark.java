@@ -0,0 +1,200 @@
+package br.com.orlandoburli.livraria.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import br.com.orlandoburli.livraria.LivrariaApplication;
+import br.com.orlandoburli.livraria.cache.DisponibilidadeLivroCache;
+import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.ReservaDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
+import br.com.orlandoburli.livraria.repository.ReservaRepository;
+import br.com.orlandoburli.livraria.service.EmprestimoService;
+import br.com.orlandoburli.livraria.service.InstituicaoEnsinoService;
+import br.com.orlandoburli.livraria.service.LivroService;
+import br.com.orlandoburli.livraria.service.UsuarioService;
+import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
+import br.com.orlandoburli.livraria.utils.GeraCpfCnpj;
+
+/**
+ * Empréstimo, devolução e reserva de livros, pelos serviços, sobre o H2 em
+ * memória da configuração de testes.
+ *
+ * Cada empréstimo medido é devolvido fora da medição, e cada devolução medida
+ * usa um empréstimo aberto fora da medição, de forma que o banco se mantém do
+ * mesmo tamanho durante toda a execução. As reservas são apagadas ao final de
+ * cada iteração.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmprestimoBenchmark {
+
+	private static final int TOTAL_LIVROS = 128;
+
+	@State(Scope.Benchmark)
+	public static class Livraria {
+
+		private ConfigurableApplicationContext context;
+
+		private EmprestimoService service;
+
+		private ReservaRepository reservaRepository;
+
+		private DisponibilidadeLivroCache disponibilidade;
+
+		private Long usuarioEmprestimos;
+
+		private Long usuarioReservas;
+
+		private final Long[] livros = new Long[TOTAL_LIVROS];
+
+		private int proximo;
+
+		@Setup(Level.Trial)
+		public void inicia() throws LivrariaException {
+			// @formatter:off
+			context = new SpringApplicationBuilder(LivrariaApplication.class)
+					.web(WebApplicationType.NONE)
+					.properties(
+						"spring.main.banner-mode=off",
+						"spring.jpa.show-sql=false",
+						"spring.jpa.properties.hibernate.generate_statistics=false",
+						"logging.level.root=OFF")
+					.run();
+			// @formatter:on
+
+			context.getBean(DbPrepareUtils.class).clean();
+
+			service = context.getBean(EmprestimoService.class);
+			reservaRepository = context.getBean(ReservaRepository.class);
+			disponibilidade = context.getBean(DisponibilidadeLivroCache.class);
+
+			final GeraCpfCnpj gerador = new GeraCpfCnpj();
+
+			// @formatter:off
+			final InstituicaoEnsinoDto instituicao = context.getBean(InstituicaoEnsinoService.class).create(InstituicaoEnsinoDto
+					.builder()
+						.nome("Universidade Federal")
+						.cnpj(gerador.cnpj())
+						.telefone("6533334444")
+						.endereco("Av. Fernando Corrêa da Costa, 2367")
+					.build());
+			// @formatter:on
+
+			usuarioEmprestimos = usuario(gerador, instituicao).getId();
+			usuarioReservas = usuario(gerador, instituicao).getId();
+
+			final LivroService livroService = context.getBean(LivroService.class);
+
+			for (int i = 0; i < TOTAL_LIVROS; i++) {
+				// @formatter:off
+				livros[i] = livroService.create(LivroDto
+						.builder()
+							.titulo("Livro " + i)
+							.genero("Romance")
+							.autor("Autor " + i % 10)
+							.sinopse("Sinopse do livro " + i)
+						.build()).getId();
+				// @formatter:on
+			}
+		}
+
+		@TearDown(Level.Iteration)
+		public void limpaReservas() {
+			reservaRepository.deleteAllInBatch();
+			disponibilidade.reconstruir();
+		}
+
+		@TearDown(Level.Trial)
+		public void encerra() {
+			context.close();
+		}
+
+		private Long proximoLivro() {
+			proximo = (proximo + 1) % TOTAL_LIVROS;
+			return livros[proximo];
+		}
+
+		private UsuarioDto usuario(final GeraCpfCnpj gerador, final InstituicaoEnsinoDto instituicao)
+				throws LivrariaException {
+			// @formatter:off
+			return context.getBean(UsuarioService.class).create(UsuarioDto
+					.builder()
+						.nome("Usuário")
+						.endereco("Rua das Flores, 100")
+						.cpf(gerador.cpf())
+						.email("usuario@email.com")
+						.telefone("65999998888")
+						.instituicao(instituicao)
+					.build());
+			// @formatter:on
+		}
+	}
+
+	/**
+	 * Empréstimo feito pela medição, devolvido depois dela.
+	 */
+	@State(Scope.Thread)
+	public static class EmprestimoMedido {
+
+		private EmprestimoDto emprestimo;
+
+		@TearDown(Level.Invocation)
+		public void devolve(final Livraria livraria) throws LivrariaException {
+			livraria.service.devolver(emprestimo.getId());
+		}
+	}
+
+	/**
+	 * Empréstimo aberto antes da medição, para ser devolvido por ela.
+	 */
+	@State(Scope.Thread)
+	public static class EmprestimoAberto {
+
+		private EmprestimoDto emprestimo;
+
+		@Setup(Level.Invocation)
+		public void empresta(final Livraria livraria) throws LivrariaException {
+			emprestimo = livraria.service.emprestar(livraria.usuarioEmprestimos, livraria.proximoLivro());
+		}
+	}
+
+	@Benchmark
+	public EmprestimoDto emprestar(final Livraria livraria, final EmprestimoMedido medido) throws LivrariaException {
+		medido.emprestimo = livraria.service.emprestar(livraria.usuarioEmprestimos, livraria.proximoLivro());
+		return medido.emprestimo;
+	}
+
+	@Benchmark
+	public void devolver(final Livraria livraria, final EmprestimoAberto aberto) throws LivrariaException {
+		livraria.service.devolver(aberto.emprestimo.getId());
+	}
+
+	@Benchmark
+	public ReservaDto reservar(final Livraria livraria) throws LivrariaException {
+		return livraria.service.reservar(livraria.usuarioReservas, livraria.proximoLivro(),
+				LocalDate.now().plusDays(1));
+	}
+}
@@ -0,0 +1,74 @@
+package br.com.orlandoburli.livraria.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.MessageSourceAccessor;
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+
+import br.com.orlandoburli.livraria.utils.CatalogoMensagens;
+
+/**
+ * Custo de resolver as mensagens das exceções, como em uma sequência de
+ * empréstimos recusados.
+ *
+ * Os métodos <i>reloadable</i> usam o {@link ReloadableResourceBundleMessageSource}
+ * configurado anteriormente, e os métodos <i>catalogo</i> o
+ * {@link CatalogoMensagens} atual, ambos pelo {@link MessageSourceAccessor}, como
+ * no MessagesService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MensagensBenchmark {
+
+	private static final String LIVRO_JA_EMPRESTADO = "exceptions.LivroJaEmprestadoException";
+
+	private static final String LIVRO_NAO_INFORMADO = "exceptions.LivroNaoInformadoException";
+
+	private MessageSourceAccessor reloadable;
+
+	private MessageSourceAccessor catalogo;
+
+	@Setup
+	public void prepare() {
+		final ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
+		messageSource.setBasename("classpath:messages");
+		messageSource.setDefaultEncoding("UTF-8");
+
+		reloadable = new MessageSourceAccessor(messageSource);
+		catalogo = new MessageSourceAccessor(new CatalogoMensagens("messages"));
+	}
+
+	@Benchmark
+	public String reloadableComArgumentos() {
+		return reloadable.getMessage(LIVRO_JA_EMPRESTADO, new Object[] { 42L });
+	}
+
+	@Benchmark
+	public String catalogoComArgumentos() {
+		return catalogo.getMessage(LIVRO_JA_EMPRESTADO, new Object[] { 42L });
+	}
+
+	@Benchmark
+	public String reloadableSemArgumentos() {
+		return reloadable.getMessage(LIVRO_NAO_INFORMADO);
+	}
+
+	@Benchmark
+	public String catalogoSemArgumentos() {
+		return catalogo.getMessage(LIVRO_NAO_INFORMADO);
+	}
+}
@@ -0,0 +1,137 @@
+package br.com.orlandoburli.livraria.benchmarks;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import br.com.orlandoburli.livraria.config.MessagesConfig;
+import br.com.orlandoburli.livraria.constraints.groups.Devolucao;
+import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
+import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
+import br.com.orlandoburli.livraria.model.Emprestimo;
+import br.com.orlandoburli.livraria.model.InstituicaoEnsino;
+import br.com.orlandoburli.livraria.model.Livro;
+import br.com.orlandoburli.livraria.model.Usuario;
+import br.com.orlandoburli.livraria.utils.ValidatorUtils;
+
+/**
+ * Custo de {@link ValidatorUtils#validate(Object, Class...)} para as
+ * entidades salvas nos fluxos de cadastro e empréstimo, com a mesma fábrica de
+ * validadores da aplicação. O empréstimo é validado também somente pelo grupo
+ * {@link Devolucao}, como na devolução.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacaoBenchmark {
+
+	private ValidatorUtils validator;
+
+	private Livro livro;
+
+	private Livro livroInvalido;
+
+	private Usuario usuario;
+
+	private Emprestimo emprestimo;
+
+	@Setup
+	public void prepare() {
+		final LocalValidatorFactoryBean factory = new MessagesConfig().getValidator();
+		factory.afterPropertiesSet();
+
+		validator = new ValidatorUtils(factory);
+
+		// @formatter:off
+		livro = Livro
+				.builder()
+					.id(3L)
+					.titulo("Dom Casmurro")
+					.genero("Romance")
+					.autor("Machado de Assis")
+					.sinopse("Bentinho e Capitu")
+					.status(Status.ATIVO)
+				.build();
+
+		livroInvalido = Livro
+				.builder()
+					.status(Status.ATIVO)
+				.build();
+
+		usuario = Usuario
+				.builder()
+					.id(2L)
+					.nome("Maria da Silva")
+					.endereco("Rua das Flores, 100")
+					.cpf("52998224725")
+					.telefone("65999998888")
+					.email("maria@email.com")
+					.instituicao(InstituicaoEnsino
+						.builder()
+							.id(1L)
+							.nome("Universidade Federal")
+							.telefone("6533334444")
+							.cnpj("11222333000181")
+							.endereco("Av. Fernando Corrêa da Costa, 2367")
+							.status(Status.ATIVO)
+						.build())
+					.status(Status.ATIVO)
+				.build();
+
+		emprestimo = Emprestimo
+				.builder()
+					.id(4L)
+					.usuario(usuario)
+					.livro(livro)
+					.dataEmprestimo(LocalDate.now().minusDays(10))
+					.dataDevolucao(LocalDate.now())
+					.status(StatusEmprestimo.DEVOLVIDO)
+				.build();
+		// @formatter:on
+	}
+
+	@Benchmark
+	public void livro() throws ValidationLivrariaException {
+		validator.validate(livro);
+	}
+
+	@Benchmark
+	public ValidationLivrariaException livroInvalido() {
+		try {
+			validator.validate(livroInvalido);
+			return null;
+		} catch (final ValidationLivrariaException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public void usuario() throws ValidationLivrariaException {
+		validator.validate(usuario);
+	}
+
+	@Benchmark
+	public void emprestimo() throws ValidationLivrariaException {
+		validator.validate(emprestimo);
+	}
+
+	@Benchmark
+	public void emprestimoDevolucao() throws ValidationLivrariaException {
+		validator.validate(emprestimo, Devolucao.class);
+	}
+}
@@ -0,0 +1,205 @@
+package br.com.orlandoburli.livraria.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.UnaryOperator;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache de leitura (<i>read-through</i>) de registros por id, limitado em
+ * quantidade de entradas e em tempo de vida.
+ *
+ * Quando a quantidade máxima é atingida, a entrada menos recentemente usada é
+ * descartada. Registros não encontrados também são guardados, como entradas
+ * negativas com tempo de vida próprio, normalmente menor, para que ids
+ * inexistentes não voltem ao banco a cada consulta.
+ *
+ * O carregamento é feito fora do lock. Uma invalidação ocorrida durante um
+ * carregamento descarta o valor carregado, de forma que uma leitura lenta não
+ * grava no cache um valor anterior à alteração. Invalidações feitas dentro de
+ * uma transação são repetidas ao final dela, descartando valores lidos da
+ * transação antes do commit ou do rollback.
+ *
+ * Cada leitura recebe uma cópia do valor guardado, feita pela função de cópia
+ * informada, para que alterações feitas por quem leu não cheguem ao cache.
+ *
+ * @param <V> Tipo dos valores armazenados
+ */
+public class CacheLeitura<V> {
+
+	private final String nome;
+
+	private final int tamanhoMaximo;
+
+	private final long tempoVida;
+
+	private final long tempoVidaNegativo;
+
+	private final UnaryOperator<V> copia;
+
+	private final LinkedHashMap<Long, Entrada<V>> entradas;
+
+	private long geracao;
+
+	private final LongAdder acertos = new LongAdder();
+
+	private final LongAdder falhas = new LongAdder();
+
+	private final LongAdder descartes = new LongAdder();
+
+	public CacheLeitura(final String nome, final int tamanhoMaximo, final Duration tempoVida,
+			final Duration tempoVidaNegativo, final UnaryOperator<V> copia) {
+		this.nome = nome;
+		this.tamanhoMaximo = tamanhoMaximo;
+		this.tempoVida = tempoVida.toNanos();
+		this.tempoVidaNegativo = tempoVidaNegativo.toNanos();
+		this.copia = copia;
+		this.entradas = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	public String getNome() {
+		return nome;
+	}
+
+	/**
+	 * Retorna o valor do id, carregando e guardando no cache caso não esteja
+	 * presente ou esteja vencido.
+	 *
+	 * @param id         Id do registro
+	 * @param carregador Função que carrega o registro do banco de dados
+	 * @return Registro encontrado, ou vazio caso não exista
+	 */
+	public Optional<V> get(final long id, final LongFunction<Optional<V>> carregador) {
+		final long agora = System.nanoTime();
+		final long geracaoLeitura;
+
+		synchronized (this) {
+			final Entrada<V> entrada = entradas.get(id);
+
+			if (entrada != null) {
+				if (agora - entrada.vencimento < 0) {
+					acertos.increment();
+					return entrada.valor.map(copia);
+				}
+
+				entradas.remove(id);
+				descartes.increment();
+			}
+
+			geracaoLeitura = geracao;
+		}
+
+		falhas.increment();
+
+		final Optional<V> valor = carregador.apply(id);
+
+		synchronized (this) {
+			if (geracaoLeitura == geracao) {
+				final long vida = valor.isPresent() ? tempoVida : tempoVidaNegativo;
+
+				entradas.put(id, new Entrada<>(valor, System.nanoTime() + vida));
+
+				descartaExcedentes();
+			}
+		}
+
+		return valor.map(copia);
+	}
+
+	/**
+	 * Remove um registro do cache, agora e, caso exista transação, novamente ao
+	 * final dela.
+	 *
+	 * @param id Id do registro
+	 */
+	public void invalida(final long id) {
+		aoFinalDaTransacao(() -> remove(id));
+	}
+
+	/**
+	 * Remove todos os registros do cache, agora e, caso exista transação,
+	 * novamente ao final dela.
+	 */
+	public void invalidaTodos() {
+		aoFinalDaTransacao(this::limpa);
+	}
+
+	/**
+	 * Remove todos os registros do cache imediatamente.
+	 */
+	public synchronized void limpa() {
+		entradas.clear();
+		geracao++;
+	}
+
+	public synchronized int getTamanho() {
+		return entradas.size();
+	}
+
+	/**
+	 * @return Total de leituras atendidas pelo cache
+	 */
+	public long getAcertos() {
+		return acertos.sum();
+	}
+
+	/**
+	 * @return Total de leituras que precisaram carregar o registro
+	 */
+	public long getFalhas() {
+		return falhas.sum();
+	}
+
+	/**
+	 * @return Total de entradas descartadas por tamanho ou vencimento
+	 */
+	public long getDescartes() {
+		return descartes.sum();
+	}
+
+	private synchronized void remove(final long id) {
+		entradas.remove(id);
+		geracao++;
+	}
+
+	private void descartaExcedentes() {
+		final Iterator<Entrada<V>> iterator = entradas.values().iterator();
+
+		while (entradas.size() > tamanhoMaximo && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			descartes.increment();
+		}
+	}
+
+	private static void aoFinalDaTransacao(final Runnable acao) {
+		acao.run();
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(final int status) {
+					acao.run();
+				}
+			});
+		}
+	}
+
+	private static final class Entrada<V> {
+
+		private final Optional<V> valor;
+
+		private final long vencimento;
+
+		private Entrada(final Optional<V> valor, final long vencimento) {
+			this.valor = valor;
+			this.vencimento = vencimento;
+		}
+	}
+}
@@ -0,0 +1,410 @@
+package br.com.orlandoburli.livraria.cache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
+import br.com.orlandoburli.livraria.repository.EmprestimoRepository;
+import br.com.orlandoburli.livraria.repository.ReservaRepository;
+import br.com.orlandoburli.livraria.repository.projections.ReservaVigenteProjection;
+import br.com.orlandoburli.livraria.utils.ClockUtils;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice em memória da disponibilidade dos livros (emprestado / reservado),
+ * usado para responder às validações de empréstimo e reserva sem consultar o
+ * banco de dados.
+ *
+ * O índice é carregado na subida da aplicação e atualizado somente após o
+ * commit das transações que emprestam, devolvem ou reservam livros. Dentro da
+ * própria transação, as alterações ainda não confirmadas ficam visíveis apenas
+ * para ela. Caso seja detectada alguma divergência com o banco, o índice é
+ * marcado como dessincronizado e as consultas voltam a ser feitas no banco até
+ * a próxima reconstrução.
+ */
+@Component
+@Slf4j
+public class DisponibilidadeLivroCache {
+
+	@Autowired
+	private EmprestimoRepository emprestimoRepository;
+
+	@Autowired
+	private ReservaRepository reservaRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ClockUtils clock;
+
+	private TransactionTemplate transactionTemplate;
+
+	private volatile LongObjectIndex<EstadoLivro> indice = new LongObjectIndex<>();
+
+	private volatile boolean sincronizado;
+
+	private boolean reconstruindo;
+
+	private List<Operacao> operacoesDuranteReconstrucao;
+
+	/**
+	 * Quantidade de reconciliações seguidas em que os totais divergiram.
+	 */
+	private int divergenciasSeguidas;
+
+	@PostConstruct
+	private void init() {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void aquecer() {
+		reconstruir();
+	}
+
+	/**
+	 * Indica se o índice está consistente com o banco de dados e pode ser usado
+	 * nas validações.
+	 *
+	 * @return <b>true</b> caso o índice possa ser consultado
+	 */
+	public boolean isSincronizado() {
+		return sincronizado;
+	}
+
+	/**
+	 * Verifica se o livro está emprestado.
+	 *
+	 * @param livroId Id do livro
+	 * @return <b>true</b> caso o livro esteja emprestado
+	 */
+	public boolean isEmprestado(final long livroId) {
+		return estado(livroId).isEmprestado();
+	}
+
+	/**
+	 * Verifica se o livro está reservado para outro usuário.
+	 *
+	 * @param livroId   Id do livro
+	 * @param usuarioId Id do usuário a ser desconsiderado. Informar 0 (zero) para
+	 *                  considerar todos os usuários.
+	 * @param hoje      Data de referência das reservas
+	 * @return <b>true</b> caso exista reserva vigente de outro usuário
+	 */
+	public boolean isReservado(final long livroId, final long usuarioId, final LocalDate hoje) {
+		return estado(livroId).isReservadoParaOutro(usuarioId, hoje);
+	}
+
+	/**
+	 * Registra o empréstimo de um livro.
+	 *
+	 * @param livroId Id do livro
+	 */
+	public void registraEmprestimo(final long livroId) {
+		registra(new Operacao(TipoOperacao.EMPRESTIMO, livroId, 0L, null, null));
+	}
+
+	/**
+	 * Registra a devolução de um livro.
+	 *
+	 * @param livroId Id do livro
+	 */
+	public void registraDevolucao(final long livroId) {
+		registra(new Operacao(TipoOperacao.DEVOLUCAO, livroId, 0L, null, null));
+	}
+
+	/**
+	 * Registra a reserva de um livro.
+	 *
+	 * @param livroId     Id do livro
+	 * @param usuarioId   Id do usuário que reservou
+	 * @param dataReserva Data da reserva
+	 * @param hoje        Data de referência para descarte das reservas vencidas
+	 */
+	public void registraReserva(final long livroId, final long usuarioId, final LocalDate dataReserva,
+			final LocalDate hoje) {
+		registra(new Operacao(TipoOperacao.RESERVA, livroId, usuarioId, dataReserva, hoje));
+	}
+
+	/**
+	 * Marca o índice como dessincronizado, fazendo com que as consultas voltem ao
+	 * banco de dados até a próxima reconstrução.
+	 */
+	public void invalida() {
+		this.sincronizado = false;
+	}
+
+	/**
+	 * Reconstrói o índice a partir das tabelas de empréstimo e reserva. As
+	 * operações confirmadas durante a reconstrução são reaplicadas ao final.
+	 */
+	public void reconstruir() {
+		synchronized (this) {
+			reconstruindo = true;
+			operacoesDuranteReconstrucao = new ArrayList<>();
+		}
+
+		try {
+			final LocalDate hoje = clock.hoje();
+
+			final Carga carga = transactionTemplate.execute(status -> new Carga(
+					emprestimoRepository.findLivroIdByStatus(StatusEmprestimo.ABERTO),
+					reservaRepository.findVigentes(hoje)));
+
+			final LongObjectIndex<EstadoLivro> novo = new LongObjectIndex<>(
+					carga.emprestados.size() + carga.reservas.size());
+
+			carga.emprestados.forEach(id -> novo.compute(id, e -> estadoOuLivre(e).comEmprestimo()));
+
+			carga.reservas.forEach(r -> novo.compute(r.getLivroId(),
+					e -> estadoOuLivre(e).comReserva(r.getUsuarioId(), r.getDataReserva(), hoje)));
+
+			synchronized (this) {
+				operacoesDuranteReconstrucao.forEach(o -> novo.compute(o.livroId, e -> o.aplica(estadoOuLivre(e))));
+
+				this.indice = novo;
+				this.sincronizado = true;
+			}
+
+			log.info("Índice de disponibilidade reconstruído: {} livros emprestados, {} reservas vigentes",
+					carga.emprestados.size(), carga.reservas.size());
+
+		} catch (final RuntimeException e) {
+			log.warn("Não foi possível reconstruir o índice de disponibilidade, consultas irão ao banco", e);
+			this.sincronizado = false;
+		} finally {
+			synchronized (this) {
+				reconstruindo = false;
+				operacoesDuranteReconstrucao = null;
+			}
+		}
+	}
+
+	/**
+	 * Compara periodicamente os totais do índice com os do banco de dados. Caso o
+	 * índice esteja dessincronizado, ou os totais divirjam em duas reconciliações
+	 * seguidas, ele é reconstruído.
+	 *
+	 * Os totais do banco e do índice não são lidos no mesmo instante: um
+	 * empréstimo confirmado entre as duas leituras aparece em apenas um deles.
+	 * Essa divergência passageira some na reconciliação seguinte, e não justifica
+	 * uma reconstrução.
+	 */
+	@Scheduled(initialDelayString = "${livraria.disponibilidade.reconciliacao-ms:60000}", fixedDelayString = "${livraria.disponibilidade.reconciliacao-ms:60000}")
+	public void reconcilia() {
+		if (!sincronizado) {
+			divergenciasSeguidas = 0;
+			reconstruir();
+			return;
+		}
+
+		try {
+			final LocalDate hoje = clock.hoje();
+
+			final long[] totaisBanco = transactionTemplate.execute(status -> new long[] {
+					emprestimoRepository.countByStatus(StatusEmprestimo.ABERTO),
+					reservaRepository.countVigentes(hoje) });
+
+			final AtomicLong emprestados = new AtomicLong();
+			final AtomicInteger reservas = new AtomicInteger();
+
+			indice.forEach((livroId, estado) -> {
+				if (estado.isEmprestado()) {
+					emprestados.incrementAndGet();
+				}
+				reservas.addAndGet(estado.contaReservasVigentes(hoje));
+			});
+
+			if (totaisBanco[0] == emprestados.get() && totaisBanco[1] == reservas.get()) {
+				divergenciasSeguidas = 0;
+				return;
+			}
+
+			if (++divergenciasSeguidas < 2) {
+				log.debug("Índice de disponibilidade divergente do banco, será verificado novamente");
+				return;
+			}
+
+			log.warn("Índice de disponibilidade divergente do banco ({} / {} empréstimos, {} / {} reservas)",
+					emprestados.get(), totaisBanco[0], reservas.get(), totaisBanco[1]);
+			divergenciasSeguidas = 0;
+			invalida();
+			reconstruir();
+		} catch (final RuntimeException e) {
+			log.warn("Não foi possível reconciliar o índice de disponibilidade", e);
+			invalida();
+		}
+	}
+
+	private void registra(final Operacao operacao) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			aplica(operacao);
+			return;
+		}
+
+		pendenciasTransacao().adiciona(operacao, estado(operacao.livroId));
+	}
+
+	private synchronized void aplica(final Operacao operacao) {
+		if (reconstruindo) {
+			operacoesDuranteReconstrucao.add(operacao);
+		}
+
+		indice.compute(operacao.livroId, e -> {
+			final EstadoLivro atual = estadoOuLivre(e);
+
+			if (!operacao.isConsistente(atual)) {
+				log.warn("Índice de disponibilidade divergente para o livro {} na operação {}", operacao.livroId,
+						operacao.tipo);
+				invalida();
+			}
+
+			return operacao.aplica(atual);
+		});
+	}
+
+	private EstadoLivro estado(final long livroId) {
+		final PendenciasTransacao pendencias = (PendenciasTransacao) TransactionSynchronizationManager
+				.getResource(this);
+
+		if (pendencias != null) {
+			final EstadoLivro pendente = pendencias.visao.get(livroId);
+			if (pendente != null) {
+				return pendente;
+			}
+		}
+
+		return estadoOuLivre(indice.get(livroId));
+	}
+
+	private PendenciasTransacao pendenciasTransacao() {
+		PendenciasTransacao pendencias = (PendenciasTransacao) TransactionSynchronizationManager.getResource(this);
+
+		if (pendencias == null) {
+			final PendenciasTransacao novas = new PendenciasTransacao();
+
+			TransactionSynchronizationManager.bindResource(this, novas);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+				@Override
+				public void afterCommit() {
+					novas.operacoes.forEach(DisponibilidadeLivroCache.this::aplica);
+				}
+
+				@Override
+				public void afterCompletion(final int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(DisponibilidadeLivroCache.this);
+				}
+			});
+
+			pendencias = novas;
+		}
+
+		return pendencias;
+	}
+
+	private static EstadoLivro estadoOuLivre(final EstadoLivro estado) {
+		return estado == null ? EstadoLivro.LIVRE : estado;
+	}
+
+	/**
+	 * Operações pendentes de uma transação, e a visão do estado dos livros
+	 * alterados por ela.
+	 */
+	private static final class PendenciasTransacao {
+
+		private final List<Operacao> operacoes = new ArrayList<>();
+
+		private final Map<Long, EstadoLivro> visao = new HashMap<>();
+
+		private void adiciona(final Operacao operacao, final EstadoLivro atual) {
+			operacoes.add(operacao);
+			visao.put(operacao.livroId, operacao.aplica(atual));
+		}
+	}
+
+	private enum TipoOperacao {
+		EMPRESTIMO, DEVOLUCAO, RESERVA
+	}
+
+	private static final class Operacao {
+
+		private final TipoOperacao tipo;
+
+		private final long livroId;
+
+		private final long usuarioId;
+
+		private final LocalDate dataReserva;
+
+		private final LocalDate hoje;
+
+		private Operacao(final TipoOperacao tipo, final long livroId, final long usuarioId,
+				final LocalDate dataReserva, final LocalDate hoje) {
+			this.tipo = tipo;
+			this.livroId = livroId;
+			this.usuarioId = usuarioId;
+			this.dataReserva = dataReserva;
+			this.hoje = hoje;
+		}
+
+		private EstadoLivro aplica(final EstadoLivro estado) {
+			switch (tipo) {
+			case EMPRESTIMO:
+				return estado.comEmprestimo();
+			case DEVOLUCAO:
+				return estado.semEmprestimo();
+			default:
+				return estado.comReserva(usuarioId, dataReserva, hoje);
+			}
+		}
+
+		/**
+		 * Um empréstimo só é consistente se o livro estava livre, e uma devolução
+		 * só é consistente se o livro estava emprestado.
+		 */
+		private boolean isConsistente(final EstadoLivro estado) {
+			switch (tipo) {
+			case EMPRESTIMO:
+				return !estado.isEmprestado();
+			case DEVOLUCAO:
+				return estado.isEmprestado();
+			default:
+				return true;
+			}
+		}
+	}
+
+	private static final class Carga {
+
+		private final List<Long> emprestados;
+
+		private final List<ReservaVigenteProjection> reservas;
+
+		private Carga(final List<Long> emprestados, final List<ReservaVigenteProjection> reservas) {
+			this.emprestados = emprestados;
+			this.reservas = reservas;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package br.com.orlandoburli.livraria.cache;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Estado imutável de disponibilidade de um livro: se está emprestado e quais
+ * reservas futuras existem para ele.
+ *
+ * As reservas são guardadas em dois arrays paralelos (id do usuário e data da
+ * reserva em <i>epoch day</i>), evitando objetos por reserva.
+ */
+public final class EstadoLivro {
+
+	public static final EstadoLivro LIVRE = new EstadoLivro(false, new long[0], new long[0]);
+
+	private final boolean emprestado;
+
+	private final long[] reservaUsuarios;
+
+	private final long[] reservaDatas;
+
+	private EstadoLivro(final boolean emprestado, final long[] reservaUsuarios, final long[] reservaDatas) {
+		this.emprestado = emprestado;
+		this.reservaUsuarios = reservaUsuarios;
+		this.reservaDatas = reservaDatas;
+	}
+
+	public boolean isEmprestado() {
+		return emprestado;
+	}
+
+	public int getTotalReservas() {
+		return reservaUsuarios.length;
+	}
+
+	/**
+	 * Verifica se existe reserva de outro usuário a partir da data informada.
+	 *
+	 * @param usuarioId Id do usuário a ser desconsiderado. Informar 0 (zero) para
+	 *                  considerar todos os usuários.
+	 * @param hoje      Data de referência
+	 * @return <b>true</b> caso exista reserva de outro usuário
+	 */
+	public boolean isReservadoParaOutro(final long usuarioId, final LocalDate hoje) {
+		final long dia = hoje.toEpochDay();
+
+		for (int i = 0; i < reservaUsuarios.length; i++) {
+			if (reservaDatas[i] >= dia && reservaUsuarios[i] != usuarioId) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Conta as reservas vigentes a partir da data informada.
+	 *
+	 * @param hoje Data de referência
+	 * @return Total de reservas vigentes
+	 */
+	public int contaReservasVigentes(final LocalDate hoje) {
+		final long dia = hoje.toEpochDay();
+
+		int total = 0;
+		for (final long data : reservaDatas) {
+			if (data >= dia) {
+				total++;
+			}
+		}
+		return total;
+	}
+
+	public EstadoLivro comEmprestimo() {
+		return emprestado ? this : new EstadoLivro(true, reservaUsuarios, reservaDatas);
+	}
+
+	public EstadoLivro semEmprestimo() {
+		return emprestado ? new EstadoLivro(false, reservaUsuarios, reservaDatas) : this;
+	}
+
+	/**
+	 * Retorna um novo estado com a reserva adicionada, descartando as reservas já
+	 * vencidas. Adicionar uma reserva já existente não altera o estado.
+	 *
+	 * @param usuarioId   Id do usuário da reserva
+	 * @param dataReserva Data da reserva
+	 * @param hoje        Data de referência para descarte das reservas vencidas
+	 * @return Novo estado
+	 */
+	public EstadoLivro comReserva(final long usuarioId, final LocalDate dataReserva, final LocalDate hoje) {
+		final long dia = hoje.toEpochDay();
+		final long data = dataReserva.toEpochDay();
+
+		final long[] usuarios = new long[reservaUsuarios.length + 1];
+		final long[] datas = new long[reservaDatas.length + 1];
+
+		int total = 0;
+		for (int i = 0; i < reservaUsuarios.length; i++) {
+			if (reservaUsuarios[i] == usuarioId && reservaDatas[i] == data) {
+				return this;
+			}
+			if (reservaDatas[i] >= dia) {
+				usuarios[total] = reservaUsuarios[i];
+				datas[total] = reservaDatas[i];
+				total++;
+			}
+		}
+
+		usuarios[total] = usuarioId;
+		datas[total] = data;
+		total++;
+
+		return new EstadoLivro(emprestado, Arrays.copyOf(usuarios, total), Arrays.copyOf(datas, total));
+	}
+}
@@ -0,0 +1,286 @@
+package br.com.orlandoburli.livraria.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice invertido em memória para busca textual por prefixo, com leituras sem
+ * lock e escritas serializadas.
+ *
+ * Cada termo aponta para uma {@link ListaPostagens} imutável, que é trocada
+ * inteira a cada alteração. Os termos ficam ordenados, de forma que a busca
+ * por prefixo é uma leitura de intervalo do mapa. A relevância de um documento
+ * é a soma, para cada termo buscado, dos pesos dos campos em que ele aparece:
+ * {@link #CAMPO_PRINCIPAL} (4), {@link #CAMPO_SECUNDARIO} (2) e
+ * {@link #CAMPO_DESCRICAO} (1). Como os pesos são os bits da máscara de
+ * campos, o peso de uma postagem é a própria máscara.
+ *
+ * A busca trabalha somente com arrays de primitivos, sem <i>boxing</i> e sem
+ * objetos por postagem.
+ */
+public class IndiceInvertido {
+
+	public static final int CAMPO_PRINCIPAL = 4;
+
+	public static final int CAMPO_SECUNDARIO = 2;
+
+	public static final int CAMPO_DESCRICAO = 1;
+
+	private static final int[] VAZIO = new int[0];
+
+	private final ConcurrentSkipListMap<String, ListaPostagens> termos = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Termos de cada documento, para remoção.
+	 */
+	private final LongObjectIndex<String[]> documentos = new LongObjectIndex<>();
+
+	private int totalDocumentos;
+
+	public int getTotalDocumentos() {
+		return totalDocumentos;
+	}
+
+	public int getTotalTermos() {
+		return termos.size();
+	}
+
+	/**
+	 * Indexa um documento, substituindo a indexação anterior, caso exista. Cada
+	 * chamada recodifica as listas dos termos do documento; para montar o índice
+	 * inteiro use {@link Carga}.
+	 *
+	 * @param documento  Id do documento
+	 * @param principal  Texto do campo principal
+	 * @param secundario Texto do campo secundário
+	 * @param descricao  Texto do campo de descrição
+	 */
+	public synchronized void indexa(final int documento, final String principal, final String secundario,
+			final String descricao) {
+		remove(documento);
+
+		final Map<String, Integer> campos = new HashMap<>();
+
+		adiciona(campos, Tokenizador.termos(principal), CAMPO_PRINCIPAL);
+		adiciona(campos, Tokenizador.termos(secundario), CAMPO_SECUNDARIO);
+		adiciona(campos, Tokenizador.termos(descricao), CAMPO_DESCRICAO);
+
+		campos.forEach((termo, mascara) -> termos.put(termo,
+				termos.getOrDefault(termo, ListaPostagens.VAZIA).com(documento, mascara)));
+
+		documentos.put(documento, campos.keySet().toArray(new String[0]));
+		totalDocumentos++;
+	}
+
+	/**
+	 * Remove um documento do índice, caso exista.
+	 *
+	 * @param documento Id do documento
+	 */
+	public synchronized void remove(final int documento) {
+		final String[] anteriores = documentos.get(documento);
+
+		if (anteriores == null) {
+			return;
+		}
+
+		for (final String termo : anteriores) {
+			final ListaPostagens lista = termos.get(termo);
+
+			if (lista != null) {
+				final ListaPostagens nova = lista.sem(documento);
+
+				if (nova.isVazia()) {
+					termos.remove(termo);
+				} else {
+					termos.put(termo, nova);
+				}
+			}
+		}
+
+		documentos.put(documento, null);
+		totalDocumentos--;
+	}
+
+	/**
+	 * Busca os documentos que contêm todos os termos, cada um como prefixo de
+	 * alguma palavra, do mais para o menos relevante. Empates são ordenados pelo
+	 * id do documento.
+	 *
+	 * @param consulta Termos da consulta
+	 * @param inicio   Quantidade de documentos a serem pulados
+	 * @param limite   Quantidade máxima de documentos retornados
+	 * @return Ids dos documentos encontrados
+	 */
+	public int[] busca(final Collection<String> consulta, final int inicio, final int limite) {
+		int[] documentosEncontrados = null;
+		int[] relevancias = null;
+
+		for (final String termo : consulta) {
+			final long[] postagens = postagensPorPrefixo(Tokenizador.normaliza(termo));
+
+			if (postagens.length == 0) {
+				return VAZIO;
+			}
+
+			if (documentosEncontrados == null) {
+				documentosEncontrados = new int[postagens.length];
+				relevancias = new int[postagens.length];
+
+				for (int i = 0; i < postagens.length; i++) {
+					documentosEncontrados[i] = (int) (postagens[i] >>> 8);
+					relevancias[i] = (int) (postagens[i] & 0xFF);
+				}
+				continue;
+			}
+
+			// Interseção de duas listas ordenadas, somando as relevâncias
+			int n = 0;
+			int i = 0;
+			int j = 0;
+
+			while (i < documentosEncontrados.length && j < postagens.length) {
+				final int documento = (int) (postagens[j] >>> 8);
+
+				if (documentosEncontrados[i] < documento) {
+					i++;
+				} else if (documentosEncontrados[i] > documento) {
+					j++;
+				} else {
+					documentosEncontrados[n] = documento;
+					relevancias[n] = relevancias[i] + (int) (postagens[j] & 0xFF);
+					n++;
+					i++;
+					j++;
+				}
+			}
+
+			if (n == 0) {
+				return VAZIO;
+			}
+
+			documentosEncontrados = Arrays.copyOf(documentosEncontrados, n);
+			relevancias = Arrays.copyOf(relevancias, n);
+		}
+
+		if (documentosEncontrados == null || inicio >= documentosEncontrados.length) {
+			return VAZIO;
+		}
+
+		// Maior relevância primeiro, e menor id nos empates
+		final long[] ordem = new long[documentosEncontrados.length];
+
+		for (int i = 0; i < ordem.length; i++) {
+			ordem[i] = ((long) (Integer.MAX_VALUE - relevancias[i]) << 32) | documentosEncontrados[i];
+		}
+
+		Arrays.sort(ordem);
+
+		final int fim = (int) Math.min((long) inicio + limite, ordem.length);
+
+		final int[] resultado = new int[fim - inicio];
+
+		for (int i = inicio; i < fim; i++) {
+			resultado[i - inicio] = (int) ordem[i];
+		}
+
+		return resultado;
+	}
+
+	/**
+	 * Junta as postagens de todos os termos que começam com o prefixo, em ordem
+	 * de documento, unindo as máscaras de campos de um mesmo documento.
+	 */
+	private long[] postagensPorPrefixo(final String prefixo) {
+		// As listas são imutáveis, a cópia das referências garante uma leitura
+		// consistente mesmo com escritas concorrentes
+		final ListaPostagens[] listas = termos.subMap(prefixo, prefixo + Character.MAX_VALUE).values()
+				.toArray(new ListaPostagens[0]);
+
+		int total = 0;
+		for (final ListaPostagens lista : listas) {
+			total += lista.getTotal();
+		}
+
+		final long[] postagens = new long[total];
+
+		int p = 0;
+		for (final ListaPostagens lista : listas) {
+			p = lista.decodifica(postagens, p);
+		}
+
+		if (listas.length == 1) {
+			return postagens;
+		}
+
+		Arrays.sort(postagens);
+
+		int n = 0;
+		for (int i = 0; i < postagens.length; i++) {
+			if (n > 0 && (postagens[n - 1] >>> 8) == (postagens[i] >>> 8)) {
+				postagens[n - 1] |= postagens[i] & 0xFF;
+			} else {
+				postagens[n++] = postagens[i];
+			}
+		}
+
+		return n == postagens.length ? postagens : Arrays.copyOf(postagens, n);
+	}
+
+	private static void adiciona(final Map<String, Integer> campos, final Set<String> termos, final int campo) {
+		termos.forEach(t -> campos.merge(t, campo, (a, b) -> a | b));
+	}
+
+	/**
+	 * Montagem de um índice novo a partir de documentos em ordem crescente de id.
+	 * As postagens de cada termo são acumuladas em um
+	 * {@link ListaPostagens.Construtor} e codificadas uma única vez em
+	 * {@link #constroi()}, em vez de recodificar a lista a cada documento.
+	 */
+	public static final class Carga {
+
+		private final Map<String, ListaPostagens.Construtor> construtores = new HashMap<>();
+
+		private final IndiceInvertido indice = new IndiceInvertido();
+
+		/**
+		 * Adiciona um documento à carga.
+		 *
+		 * @param documento  Id do documento, maior que o último adicionado
+		 * @param principal  Texto do campo principal
+		 * @param secundario Texto do campo secundário
+		 * @param descricao  Texto do campo de descrição
+		 */
+		public void adiciona(final int documento, final String principal, final String secundario,
+				final String descricao) {
+			final Map<String, Integer> campos = new HashMap<>();
+
+			IndiceInvertido.adiciona(campos, Tokenizador.termos(principal), CAMPO_PRINCIPAL);
+			IndiceInvertido.adiciona(campos, Tokenizador.termos(secundario), CAMPO_SECUNDARIO);
+			IndiceInvertido.adiciona(campos, Tokenizador.termos(descricao), CAMPO_DESCRICAO);
+
+			campos.forEach((termo, mascara) -> construtores
+					.computeIfAbsent(termo, t -> new ListaPostagens.Construtor()).adiciona(documento, mascara));
+
+			indice.documentos.put(documento, campos.keySet().toArray(new String[0]));
+			indice.totalDocumentos++;
+		}
+
+		/**
+		 * Codifica as listas acumuladas e retorna o índice montado. A carga não deve
+		 * ser usada depois disso.
+		 *
+		 * @return Índice com todos os documentos adicionados
+		 */
+		public IndiceInvertido constroi() {
+			construtores.forEach((termo, construtor) -> indice.termos.put(termo, construtor.constroi()));
+			construtores.clear();
+
+			return indice;
+		}
+	}
+}
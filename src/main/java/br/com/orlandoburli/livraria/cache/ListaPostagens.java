@@ -0,0 +1,191 @@
+package br.com.orlandoburli.livraria.cache;
+
+import java.util.Arrays;
+
+/**
+ * Lista imutável de postagens de um termo do índice invertido: os documentos
+ * em que o termo aparece, em ordem crescente, e os campos de cada ocorrência.
+ *
+ * Os ids são gravados como diferença para o anterior em <i>varint</i> (7 bits
+ * por byte), seguidos de um byte com a máscara de campos. Em listas densas cada
+ * postagem ocupa 2 bytes, em vez dos 12 de um par de ints, e nenhum objeto é
+ * criado por postagem.
+ */
+public final class ListaPostagens {
+
+	public static final ListaPostagens VAZIA = new ListaPostagens(new byte[0], 0);
+
+	private final byte[] dados;
+
+	private final int total;
+
+	private ListaPostagens(final byte[] dados, final int total) {
+		this.dados = dados;
+		this.total = total;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public boolean isVazia() {
+		return total == 0;
+	}
+
+	/**
+	 * Decodifica as postagens, acrescentando cada uma ao array informado como
+	 * <i>(documento &lt;&lt; 8) | campos</i>.
+	 *
+	 * @param destino Array de destino, com espaço para {@link #getTotal()}
+	 *                postagens a partir da posição informada
+	 * @param posicao Posição inicial no destino
+	 * @return Posição seguinte à última postagem gravada
+	 */
+	public int decodifica(final long[] destino, final int posicao) {
+		int p = posicao;
+		int i = 0;
+		int documento = 0;
+
+		while (i < dados.length) {
+			int delta = 0;
+			int deslocamento = 0;
+			byte b;
+
+			do {
+				b = dados[i++];
+				delta |= (b & 0x7F) << deslocamento;
+				deslocamento += 7;
+			} while (b < 0);
+
+			documento += delta;
+
+			destino[p++] = ((long) documento << 8) | (dados[i++] & 0xFF);
+		}
+
+		return p;
+	}
+
+	/**
+	 * Retorna uma nova lista com o documento incluído, ou com seus campos
+	 * substituídos caso já exista. Decodifica e codifica a lista inteira, deve
+	 * ser usado somente em alterações pontuais; para cargas use
+	 * {@link Construtor}.
+	 *
+	 * @param documento Id do documento
+	 * @param campos    Máscara dos campos em que o termo aparece
+	 * @return Nova lista
+	 */
+	public ListaPostagens com(final int documento, final int campos) {
+		final long[] postagens = new long[total + 1];
+
+		final int n = decodifica(postagens, 0);
+
+		final long nova = ((long) documento << 8) | (campos & 0xFF);
+
+		int i = 0;
+		while (i < n && (postagens[i] >>> 8) < documento) {
+			i++;
+		}
+
+		if (i < n && (postagens[i] >>> 8) == documento) {
+			postagens[i] = nova;
+			return codifica(postagens, n);
+		}
+
+		System.arraycopy(postagens, i, postagens, i + 1, n - i);
+		postagens[i] = nova;
+
+		return codifica(postagens, n + 1);
+	}
+
+	/**
+	 * Retorna uma nova lista sem o documento.
+	 *
+	 * @param documento Id do documento
+	 * @return Nova lista, ou a própria lista caso o documento não esteja nela
+	 */
+	public ListaPostagens sem(final int documento) {
+		final long[] postagens = new long[total];
+
+		final int n = decodifica(postagens, 0);
+
+		int j = 0;
+		for (int i = 0; i < n; i++) {
+			if ((postagens[i] >>> 8) != documento) {
+				postagens[j++] = postagens[i];
+			}
+		}
+
+		return j == n ? this : codifica(postagens, j);
+	}
+
+	/**
+	 * Codifica postagens em ordem crescente de documento.
+	 *
+	 * @param postagens Postagens no formato <i>(documento &lt;&lt; 8) | campos</i>
+	 * @param total     Quantidade de postagens a serem codificadas
+	 * @return Lista codificada
+	 */
+	static ListaPostagens codifica(final long[] postagens, final int total) {
+		if (total == 0) {
+			return VAZIA;
+		}
+
+		// Pior caso: 5 bytes de varint e 1 de campos por postagem
+		final byte[] buffer = new byte[total * 6];
+
+		int p = 0;
+		int anterior = 0;
+
+		for (int i = 0; i < total; i++) {
+			final int documento = (int) (postagens[i] >>> 8);
+
+			int delta = documento - anterior;
+			anterior = documento;
+
+			while ((delta & ~0x7F) != 0) {
+				buffer[p++] = (byte) ((delta & 0x7F) | 0x80);
+				delta >>>= 7;
+			}
+			buffer[p++] = (byte) delta;
+
+			buffer[p++] = (byte) postagens[i];
+		}
+
+		return new ListaPostagens(Arrays.copyOf(buffer, p), total);
+	}
+
+	/**
+	 * Acumula postagens em um array de primitivos que cresce sob demanda, e
+	 * codifica a lista uma única vez ao final. Os documentos devem ser
+	 * adicionados em ordem crescente.
+	 */
+	public static final class Construtor {
+
+		private long[] postagens = new long[4];
+
+		private int total;
+
+		/**
+		 * Adiciona uma postagem ao final da lista.
+		 *
+		 * @param documento Id do documento, maior que o último adicionado
+		 * @param campos    Máscara dos campos em que o termo aparece
+		 */
+		public void adiciona(final int documento, final int campos) {
+			if (total > 0 && (postagens[total - 1] >>> 8) >= documento) {
+				throw new IllegalArgumentException("Documentos devem ser adicionados em ordem crescente");
+			}
+
+			if (total == postagens.length) {
+				postagens = Arrays.copyOf(postagens, total * 2);
+			}
+
+			postagens[total++] = ((long) documento << 8) | (campos & 0xFF);
+		}
+
+		public ListaPostagens constroi() {
+			return codifica(postagens, total);
+		}
+	}
+}
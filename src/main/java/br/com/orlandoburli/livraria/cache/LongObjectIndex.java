@@ -0,0 +1,196 @@
+package br.com.orlandoburli.livraria.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+/**
+ * Índice em memória com chaves primitivas <i>long</i>, com leituras sem lock e
+ * escritas serializadas.
+ *
+ * Usa endereçamento aberto com sondagem linear. As leituras apenas percorrem a
+ * tabela publicada, sem bloqueio e sem <i>boxing</i> da chave. As escritas são
+ * sincronizadas; o valor é publicado antes da chave, de forma que um leitor
+ * que enxerga a chave sempre enxerga o valor. Chaves nunca são removidas, para
+ * remover um valor basta gravar <b>null</b>.
+ *
+ * @param <V> Tipo dos valores armazenados
+ */
+public class LongObjectIndex<V> {
+
+	private static final int CAPACIDADE_INICIAL = 1024;
+
+	private volatile Tabela<V> tabela;
+
+	private volatile V valorChaveZero;
+
+	public LongObjectIndex() {
+		this(CAPACIDADE_INICIAL);
+	}
+
+	public LongObjectIndex(final int capacidadeEsperada) {
+		this.tabela = new Tabela<>(capacidadePara(capacidadeEsperada));
+	}
+
+	/**
+	 * Retorna o valor associado à chave, sem bloqueio.
+	 *
+	 * @param chave Chave a ser buscada
+	 * @return Valor associado, ou <b>null</b> caso não exista
+	 */
+	public V get(final long chave) {
+		if (chave == 0L) {
+			return valorChaveZero;
+		}
+
+		final Tabela<V> t = this.tabela;
+
+		int i = indice(chave, t.mascara);
+
+		while (true) {
+			final long k = t.chaves.get(i);
+
+			if (k == chave) {
+				return t.valores.get(i);
+			}
+			if (k == 0L) {
+				return null;
+			}
+			i = (i + 1) & t.mascara;
+		}
+	}
+
+	/**
+	 * Associa um valor à chave.
+	 *
+	 * @param chave Chave
+	 * @param valor Valor a ser associado. <b>null</b> remove o valor.
+	 */
+	public synchronized void put(final long chave, final V valor) {
+		if (chave == 0L) {
+			valorChaveZero = valor;
+			return;
+		}
+
+		Tabela<V> t = this.tabela;
+
+		if ((t.ocupados + 1) * 2 > t.chaves.length()) {
+			t = redimensiona(t);
+		}
+
+		int i = indice(chave, t.mascara);
+
+		while (true) {
+			final long k = t.chaves.get(i);
+
+			if (k == chave) {
+				t.valores.set(i, valor);
+				return;
+			}
+			if (k == 0L) {
+				t.valores.set(i, valor);
+				t.chaves.set(i, chave);
+				t.ocupados++;
+				return;
+			}
+			i = (i + 1) & t.mascara;
+		}
+	}
+
+	/**
+	 * Recalcula atomicamente o valor de uma chave, em relação às outras escritas.
+	 *
+	 * @param chave  Chave
+	 * @param funcao Função que recebe o valor atual (ou <b>null</b>) e retorna o
+	 *               novo valor
+	 * @return Novo valor associado à chave
+	 */
+	public synchronized V compute(final long chave, final UnaryOperator<V> funcao) {
+		final V novo = funcao.apply(get(chave));
+		put(chave, novo);
+		return novo;
+	}
+
+	/**
+	 * Percorre todas as entradas com valor não nulo.
+	 *
+	 * @param consumer Consumidor das entradas
+	 */
+	public void forEach(final LongObjectConsumer<V> consumer) {
+		final V zero = valorChaveZero;
+		if (zero != null) {
+			consumer.accept(0L, zero);
+		}
+
+		final Tabela<V> t = this.tabela;
+
+		for (int i = 0; i < t.chaves.length(); i++) {
+			final long k = t.chaves.get(i);
+			if (k != 0L) {
+				final V valor = t.valores.get(i);
+				if (valor != null) {
+					consumer.accept(k, valor);
+				}
+			}
+		}
+	}
+
+	private Tabela<V> redimensiona(final Tabela<V> atual) {
+		final Tabela<V> nova = new Tabela<>(atual.chaves.length() * 2);
+
+		for (int i = 0; i < atual.chaves.length(); i++) {
+			final long k = atual.chaves.get(i);
+			final V valor = atual.valores.get(i);
+
+			if (k != 0L && valor != null) {
+				int j = indice(k, nova.mascara);
+				while (nova.chaves.get(j) != 0L) {
+					j = (j + 1) & nova.mascara;
+				}
+				nova.valores.set(j, valor);
+				nova.chaves.set(j, k);
+				nova.ocupados++;
+			}
+		}
+
+		this.tabela = nova;
+
+		return nova;
+	}
+
+	private static int indice(final long chave, final int mascara) {
+		final long h = chave * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mascara;
+	}
+
+	private static int capacidadePara(final int esperado) {
+		int capacidade = 16;
+		while (capacidade < esperado * 2) {
+			capacidade <<= 1;
+		}
+		return capacidade;
+	}
+
+	private static final class Tabela<V> {
+
+		private final AtomicLongArray chaves;
+
+		private final AtomicReferenceArray<V> valores;
+
+		private final int mascara;
+
+		private int ocupados;
+
+		private Tabela(final int capacidade) {
+			this.chaves = new AtomicLongArray(capacidade);
+			this.valores = new AtomicReferenceArray<>(capacidade);
+			this.mascara = capacidade - 1;
+		}
+	}
+
+	@FunctionalInterface
+	public interface LongObjectConsumer<V> {
+
+		void accept(long chave, V valor);
+	}
+}
@@ -0,0 +1,55 @@
+package br.com.orlandoburli.livraria.cache;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Quebra textos em termos para o índice invertido: minúsculas, sem acentos e
+ * somente letras e números, de forma que "Coração" e "coracao" resultem no
+ * mesmo termo.
+ */
+public final class Tokenizador {
+
+	private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+
+	private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private Tokenizador() {
+	}
+
+	/**
+	 * Normaliza um termo: minúsculas e sem acentos.
+	 *
+	 * @param termo Termo a ser normalizado
+	 * @return Termo normalizado
+	 */
+	public static String normaliza(final String termo) {
+		return ACENTOS.matcher(Normalizer.normalize(termo, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Quebra um texto em termos normalizados, sem repetições.
+	 *
+	 * @param texto Texto a ser quebrado. Pode ser nulo.
+	 * @return Termos do texto, na ordem em que aparecem
+	 */
+	public static Set<String> termos(final String texto) {
+		final Set<String> termos = new LinkedHashSet<>();
+
+		if (texto == null) {
+			return termos;
+		}
+
+		for (final String termo : SEPARADORES.split(normaliza(texto))) {
+			if (!termo.isEmpty()) {
+				termos.add(termo);
+			}
+		}
+
+		return termos;
+	}
+}
@@ -0,0 +1,51 @@
+package br.com.orlandoburli.livraria.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import br.com.orlandoburli.livraria.cache.CacheLeitura;
+import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
+
+/**
+ * Caches das consultas por id dos cadastros, que mudam pouco e são lidos a
+ * cada empréstimo e reserva.
+ */
+@Configuration
+public class CacheConfig {
+
+	@Value("${livraria.cache.entidades.tamanho-maximo:10000}")
+	private int tamanhoMaximo;
+
+	@Value("${livraria.cache.entidades.tempo-vida:10m}")
+	private Duration tempoVida;
+
+	@Value("${livraria.cache.entidades.tempo-vida-negativo:30s}")
+	private Duration tempoVidaNegativo;
+
+	@Bean
+	public CacheLeitura<LivroDto> livroCache() {
+		return new CacheLeitura<>("livro", tamanhoMaximo, tempoVida, tempoVidaNegativo, l -> l.toBuilder().build());
+	}
+
+	@Bean
+	public CacheLeitura<UsuarioDto> usuarioCache() {
+		return new CacheLeitura<>("usuario", tamanhoMaximo, tempoVida, tempoVidaNegativo, CacheConfig::copia);
+	}
+
+	@Bean
+	public CacheLeitura<InstituicaoEnsinoDto> instituicaoEnsinoCache() {
+		return new CacheLeitura<>("instituicao-ensino", tamanhoMaximo, tempoVida, tempoVidaNegativo,
+				i -> i.toBuilder().build());
+	}
+
+	private static UsuarioDto copia(final UsuarioDto usuario) {
+		final InstituicaoEnsinoDto instituicao = usuario.getInstituicao();
+
+		return usuario.toBuilder().instituicao(instituicao == null ? null : instituicao.toBuilder().build()).build();
+	}
+}
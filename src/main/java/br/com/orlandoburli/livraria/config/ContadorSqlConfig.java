@@ -0,0 +1,34 @@
+package br.com.orlandoburli.livraria.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import br.com.orlandoburli.livraria.metricas.ContadorSql;
+import br.com.orlandoburli.livraria.metricas.ContadorSqlFilter;
+
+/**
+ * Contagem de comandos SQL por requisição, para os testes e para homologação.
+ * Habilitada por <i>livraria.sql.contador.habilitado</i>.
+ */
+@Configuration
+@ConditionalOnProperty(name = "livraria.sql.contador.habilitado", havingValue = "true")
+public class ContadorSqlConfig {
+
+	@Bean
+	public ContadorSql contadorSql() {
+		return new ContadorSql();
+	}
+
+	@Bean
+	public ContadorSqlFilter contadorSqlFilter() {
+		return new ContadorSqlFilter(contadorSql());
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer contadorSqlHibernate() {
+		return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, contadorSql());
+	}
+}
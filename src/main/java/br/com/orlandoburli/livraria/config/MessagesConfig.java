@@ -1,20 +1,17 @@
 package br.com.orlandoburli.livraria.config;
 
-import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.support.ReloadableResourceBundleMessageSource;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
+import br.com.orlandoburli.livraria.utils.CatalogoMensagens;
+
 @Configuration
 public class MessagesConfig {
 
 	@Bean
-	public MessageSource messageSource() {
-		ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
-		messageSource.setBasename("classpath:messages");
-		messageSource.setDefaultEncoding("UTF-8");
-		return messageSource;
+	public CatalogoMensagens messageSource() {
+		return new CatalogoMensagens("messages");
 	}
 
 	@Bean
@@ -23,4 +20,4 @@ public class MessagesConfig {
 		bean.setValidationMessageSource(messageSource());
 		return bean;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package br.com.orlandoburli.livraria.config;
+
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import br.com.orlandoburli.livraria.service.MailSenderService;
+
+/**
+ * Consumo das notificações em lotes, para que os emails sejam enviados juntos,
+ * e fila das notificações que não puderam ser entregues.
+ */
+@Configuration
+public class NotificacoesConfig {
+
+	public static final String CONTAINER_FACTORY = "notificacoesContainerFactory";
+
+	@Value("${livraria.email.lote:50}")
+	private int tamanhoLote;
+
+	@Bean
+	public Queue filaNaoEntregues() {
+		return new Queue(MailSenderService.FILA_NAO_ENTREGUES);
+	}
+
+	/**
+	 * Container com as configurações <i>spring.rabbitmq.listener.simple</i>, que
+	 * entrega ao listener até <i>livraria.email.lote</i> mensagens de uma vez. O
+	 * prefetch é o dobro do lote, para que o próximo lote já esteja no cliente
+	 * enquanto o anterior é enviado. Sem RabbitMQ configurado, como nos testes, o
+	 * container não é criado.
+	 */
+	@Bean(CONTAINER_FACTORY)
+	public SimpleRabbitListenerContainerFactory notificacoesContainerFactory(
+			final ObjectProvider<SimpleRabbitListenerContainerFactoryConfigurer> configurer,
+			final ObjectProvider<ConnectionFactory> connectionFactory) {
+		final SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+
+		configurer.ifAvailable(c -> c.configure(factory, connectionFactory.getObject()));
+
+		factory.setBatchListener(true);
+		factory.setConsumerBatchEnabled(true);
+		factory.setBatchSize(tamanhoLote);
+		factory.setPrefetchCount(tamanhoLote * 2);
+
+		return factory;
+	}
+}
@@ -0,0 +1,10 @@
+package br.com.orlandoburli.livraria.constraints.groups;
+
+/**
+ * Grupo de validação da devolução de um empréstimo. Contém somente as
+ * restrições dos campos alterados na devolução, já que os demais vieram do
+ * banco de dados e já foram validados no empréstimo.
+ */
+public interface Devolucao {
+
+}
@@ -1,20 +1,22 @@
 package br.com.orlandoburli.livraria.converters.emprestimo;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
 
+import br.com.orlandoburli.livraria.converters.livro.LivroEntityToDtoConverter;
+import br.com.orlandoburli.livraria.converters.usuario.UsuarioEntityToDtoConverter;
 import br.com.orlandoburli.livraria.dto.EmprestimoDto;
-import br.com.orlandoburli.livraria.dto.LivroDto;
-import br.com.orlandoburli.livraria.dto.UsuarioDto;
 import br.com.orlandoburli.livraria.model.Emprestimo;
 
 @Component
 public class EmprestimoEntityToDtoConvert implements Converter<Emprestimo, EmprestimoDto> {
 
 	@Autowired
-	private ConversionService conversionService;
+	private LivroEntityToDtoConverter livroConverter;
+
+	@Autowired
+	private UsuarioEntityToDtoConverter usuarioConverter;
 
 	@Override
 	public EmprestimoDto convert(final Emprestimo source) {
@@ -24,8 +26,8 @@ public class EmprestimoEntityToDtoConvert implements Converter<Emprestimo, Empre
 					.dataEmprestimo(source.getDataEmprestimo())
 					.dataDevolucao(source.getDataDevolucao())
 					.status(source.getStatus())
-					.livro(conversionService.convert(source.getLivro(), LivroDto.class))
-					.usuario(conversionService.convert(source.getUsuario(), UsuarioDto.class))
+					.livro(livroConverter.convert(source.getLivro()))
+					.usuario(usuarioConverter.convert(source.getUsuario()))
 				.build();
 	}
 
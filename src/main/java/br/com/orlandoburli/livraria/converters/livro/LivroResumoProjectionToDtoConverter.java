@@ -0,0 +1,24 @@
+package br.com.orlandoburli.livraria.converters.livro;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.repository.projections.LivroResumoProjection;
+
+@Component
+public class LivroResumoProjectionToDtoConverter implements Converter<LivroResumoProjection, LivroDto>{
+
+	@Override
+	public LivroDto convert(LivroResumoProjection source) {
+		return LivroDto
+				.builder()
+					.id(source.getId())
+					.titulo(source.getTitulo())
+					.genero(source.getGenero())
+					.autor(source.getAutor())
+					.sinopse(source.getSinopse())
+					.status(source.getStatus())
+				.build();
+	}
+}
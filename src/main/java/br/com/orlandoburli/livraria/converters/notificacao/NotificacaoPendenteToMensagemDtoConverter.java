@@ -0,0 +1,23 @@
+package br.com.orlandoburli.livraria.converters.notificacao;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import br.com.orlandoburli.livraria.dto.MensagemDto;
+import br.com.orlandoburli.livraria.model.NotificacaoPendente;
+
+@Component
+public class NotificacaoPendenteToMensagemDtoConverter implements Converter<NotificacaoPendente, MensagemDto> {
+
+	@Override
+	public MensagemDto convert(final NotificacaoPendente source) {
+		// @formatter:off
+		return MensagemDto
+				.builder()
+					.titulo(source.getTitulo())
+					.mensagem(source.getMensagem())
+					.destinatario(source.getDestinatario())
+				.build();
+		// @formatter:on
+	}
+}
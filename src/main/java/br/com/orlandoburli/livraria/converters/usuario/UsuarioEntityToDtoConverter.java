@@ -1,12 +1,10 @@
 package br.com.orlandoburli.livraria.converters.usuario;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Component;
 
-import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.converters.instuicaoensino.InstituicaoEnsinoEntityToDtoConverter;
 import br.com.orlandoburli.livraria.dto.UsuarioDto;
 import br.com.orlandoburli.livraria.model.Usuario;
 import br.com.orlandoburli.livraria.utils.Utils;
@@ -15,10 +13,8 @@ import br.com.orlandoburli.livraria.utils.Utils;
 public class UsuarioEntityToDtoConverter implements Converter<Usuario, UsuarioDto>{
 
 	@Autowired
-	@Lazy
-	private ConversionService conversionService;
-	
-	
+	private InstituicaoEnsinoEntityToDtoConverter instituicaoConverter;
+
 	@Override
 	public UsuarioDto convert(Usuario source) {
 		return UsuarioDto
@@ -29,8 +25,7 @@ public class UsuarioEntityToDtoConverter implements Converter<Usuario, UsuarioDt
 					.cpf(Utils.numbersOnly(source.getCpf()))
 					.telefone(Utils.numbersOnly(source.getTelefone()))
 					.email(source.getEmail())
-					.instituicao(this.conversionService
-							.convert(source.getInstituicao(), InstituicaoEnsinoDto.class))
+					.instituicao(instituicaoConverter.convert(source.getInstituicao()))
 					.status(source.getStatus())
 				.build();
 	}
@@ -0,0 +1,38 @@
+package br.com.orlandoburli.livraria.dto;
+
+import java.time.Instant;
+
+import br.com.orlandoburli.livraria.enums.TamanhoCapa;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Metadados da capa de um livro, suficientes para responder requisições
+ * condicionais sem abrir a imagem.
+ */
+@Getter
+@Setter
+@Builder
+public class CapaDto {
+
+	private Long livro;
+
+	private String hash;
+
+	private String tipo;
+
+	private Instant dataAtualizacao;
+
+	/**
+	 * Versão da capa a que os metadados se referem.
+	 */
+	private TamanhoCapa tamanho;
+
+	/**
+	 * Indica que foi solicitada uma versão reduzida ainda não gerada, e os
+	 * metadados são da original.
+	 */
+	private boolean provisoria;
+}
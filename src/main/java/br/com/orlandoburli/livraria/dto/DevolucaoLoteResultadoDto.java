@@ -0,0 +1,31 @@
+package br.com.orlandoburli.livraria.dto;
+
+import java.time.LocalDate;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@ApiModel(value = "Resultado de devolução em lote", description = "Resultado de cada item de uma devolução realizada em lote")
+public class DevolucaoLoteResultadoDto {
+
+	@ApiModelProperty(notes = "Id do empréstimo", position = 1)
+	private Long emprestimo;
+
+	@ApiModelProperty(notes = "Indica se o livro foi devolvido", position = 2)
+	private boolean sucesso;
+
+	@ApiModelProperty(notes = "Data até a qual o usuário ficou restrito, caso a devolução tenha sido feita com atraso", position = 3)
+	private LocalDate restritoAte;
+
+	@ApiModelProperty(notes = "Exceção que impediu a devolução, ex: EmprestimoJaDevolvidoException", position = 4)
+	private String motivo;
+
+	@ApiModelProperty(notes = "Mensagem de erro, caso a devolução não tenha sido realizada", position = 5)
+	private String mensagem;
+}
@@ -0,0 +1,20 @@
+package br.com.orlandoburli.livraria.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@ApiModel(value = "Item de empréstimo em lote", description = "Livro e usuário de um empréstimo realizado em lote")
+public class EmprestimoLoteItemDto {
+
+	@ApiModelProperty(notes = "Id do livro", position = 1)
+	private Long livro;
+
+	@ApiModelProperty(notes = "Id do usuário", position = 2)
+	private Long usuario;
+}
@@ -0,0 +1,32 @@
+package br.com.orlandoburli.livraria.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@ApiModel(value = "Resultado de empréstimo em lote", description = "Resultado de cada item de um empréstimo realizado em lote")
+public class EmprestimoLoteResultadoDto {
+
+	@ApiModelProperty(notes = "Id do livro", position = 1)
+	private Long livro;
+
+	@ApiModelProperty(notes = "Id do usuário", position = 2)
+	private Long usuario;
+
+	@ApiModelProperty(notes = "Indica se o empréstimo foi realizado", position = 3)
+	private boolean sucesso;
+
+	@ApiModelProperty(notes = "Id do empréstimo realizado", position = 4)
+	private Long emprestimo;
+
+	@ApiModelProperty(notes = "Exceção que impediu o empréstimo, ex: LivroJaEmprestadoException", position = 5)
+	private String motivo;
+
+	@ApiModelProperty(notes = "Mensagem de erro, caso o empréstimo não tenha sido realizado", position = 6)
+	private String mensagem;
+}
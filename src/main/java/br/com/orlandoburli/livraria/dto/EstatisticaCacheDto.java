@@ -0,0 +1,35 @@
+package br.com.orlandoburli.livraria.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@ApiModel(value = "Estatística de Cache", description = "Contadores de uso de uma região de cache")
+public class EstatisticaCacheDto {
+
+	@ApiModelProperty(notes = "Nome da região", position = 1)
+	private String regiao;
+
+	@ApiModelProperty(notes = "Tipo do cache: segundo-nivel, do Hibernate, ou leitura, dos serviços", position = 2)
+	private String tipo;
+
+	@ApiModelProperty(notes = "Leituras atendidas pelo cache", position = 3)
+	private long acertos;
+
+	@ApiModelProperty(notes = "Leituras que precisaram ir ao banco de dados", position = 4)
+	private long falhas;
+
+	@ApiModelProperty(notes = "Entradas gravadas no cache. Somente para o cache de segundo nível", position = 5)
+	private Long gravacoes;
+
+	@ApiModelProperty(notes = "Entradas descartadas por tamanho ou vencimento. Somente para o cache de leitura", position = 6)
+	private Long descartes;
+
+	@ApiModelProperty(notes = "Entradas em memória, quando informado pelo provedor do cache", position = 7)
+	private Long tamanho;
+}
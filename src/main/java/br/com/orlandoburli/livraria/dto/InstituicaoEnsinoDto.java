@@ -13,7 +13,7 @@ import lombok.Setter;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @ApiModel(value = "Instituição de Ensino", description = "Instituições de Ensino cujos usuários podem emprestar livros")
 public class InstituicaoEnsinoDto implements Serializable {
 
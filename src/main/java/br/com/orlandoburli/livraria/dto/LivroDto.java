@@ -11,7 +11,7 @@ import lombok.Setter;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @ApiModel(value = "Livro", description = "Livros para serem emprestados")
 public class LivroDto {
 
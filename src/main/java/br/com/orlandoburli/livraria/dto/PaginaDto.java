@@ -0,0 +1,22 @@
+package br.com.orlandoburli.livraria.dto;
+
+import java.util.List;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@ApiModel(value = "Página", description = "Página de uma listagem paginada por cursor")
+public class PaginaDto<T> {
+
+	@ApiModelProperty(notes = "Itens da página", position = 1)
+	private List<T> itens;
+
+	@ApiModelProperty(notes = "Cursor da próxima página, a ser informado no parâmetro cursor. Nulo caso esta seja a última página", position = 2)
+	private String proximaPagina;
+}
@@ -11,7 +11,7 @@ import lombok.Setter;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @ApiModel(value = "Usuário", description = "Usuários que podem emprestar livros")
 public class UsuarioDto {
 
@@ -0,0 +1,47 @@
+package br.com.orlandoburli.livraria.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Versões da capa de um livro servidas pela API. As versões reduzidas são
+ * geradas a partir da original, limitadas à largura informada.
+ */
+public enum TamanhoCapa {
+
+	THUMB("thumb", 120), MEDIUM("medium", 480), ORIGINAL("original", 0);
+
+	private final String valor;
+	private final int largura;
+
+	TamanhoCapa(final String valor, final int largura) {
+		this.valor = valor;
+		this.largura = largura;
+	}
+
+	@JsonValue
+	public String getValor() {
+		return valor;
+	}
+
+	/**
+	 * @return Largura máxima da versão, em pixels. 0 (zero) para a original.
+	 */
+	public int getLargura() {
+		return largura;
+	}
+
+	public boolean isOriginal() {
+		return largura == 0;
+	}
+
+	@JsonCreator
+	public static TamanhoCapa from(final String requisicao) {
+		for (final TamanhoCapa t : TamanhoCapa.values()) {
+			if (t.getValor().equalsIgnoreCase(requisicao)) {
+				return t;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,14 @@
+package br.com.orlandoburli.livraria.exceptions.livro;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class CapaMuitoGrandeException extends LivroException{
+
+	private static final long serialVersionUID = 1L;
+
+	public CapaMuitoGrandeException(String message) {
+		super(message);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package br.com.orlandoburli.livraria.exceptions.livro;
+
+public class TamanhoCapaInvalidoException extends LivroException {
+
+	private static final long serialVersionUID = 1L;
+
+	public TamanhoCapaInvalidoException(String message) {
+		super(message);
+	}
+}
\ No newline at end of file
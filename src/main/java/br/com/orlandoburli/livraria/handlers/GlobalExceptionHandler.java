@@ -1,22 +1,50 @@
 package br.com.orlandoburli.livraria.handlers;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import br.com.orlandoburli.livraria.exceptions.LivrariaException;
+import br.com.orlandoburli.livraria.exceptions.livro.CapaMuitoGrandeException;
+import br.com.orlandoburli.livraria.metricas.MetricasExcecoes;
+import br.com.orlandoburli.livraria.utils.MessagesService;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+	@Autowired
+	private MessagesService messages;
+
+	@Autowired
+	private MetricasExcecoes metricas;
+
+	@Value("${livraria.capas.tamanho-maximo:10MB}")
+	private DataSize tamanhoMaximoCapa;
+
 	@ExceptionHandler(LivrariaException.class)
 	public final ResponseEntity<Object> handleException(final LivrariaException ex, final WebRequest request) {
+		metricas.registra(ex);
 
 		final ResponseStatus responseStatus = ex.getClass().getAnnotation(ResponseStatus.class);
 
 		return new ResponseEntity<>(ex, responseStatus == null ? HttpStatus.BAD_REQUEST : responseStatus.value());
 	}
-}
\ No newline at end of file
+
+	/**
+	 * O limite de upload do container é o mesmo das capas, a resposta é a mesma
+	 * de quando o limite é detectado na gravação da capa.
+	 */
+	@ExceptionHandler(MaxUploadSizeExceededException.class)
+	public final ResponseEntity<Object> handleUploadException(final MaxUploadSizeExceededException ex,
+			final WebRequest request) {
+		return handleException(new CapaMuitoGrandeException(
+				messages.get("exceptions.CapaMuitoGrandeException", tamanhoMaximoCapa.toBytes())), request);
+	}
+}
@@ -0,0 +1,102 @@
+package br.com.orlandoburli.livraria.metricas;
+
+import static net.logstash.logback.argument.StructuredArguments.keyValue;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Registra os comandos SQL mais lentos que <i>livraria.sql.lento.limite-ms</i>,
+ * executados por qualquer acesso ao DataSource (Hibernate, JDBC e Flyway).
+ *
+ * Todos os comandos lentos são contados em <i>livraria.sql.lento</i>, e uma
+ * amostra deles, na fração <i>livraria.sql.lento.amostragem</i>, é logada com a
+ * duração e o SQL. Os valores dos parâmetros não são logados, somente a
+ * quantidade, e os literais de texto do SQL são trocados por <i>'?'</i>, para
+ * que dados dos usuários não cheguem aos logs.
+ */
+@Slf4j
+@Component
+public class ConsultasLentas implements BeanPostProcessor, QueryExecutionListener {
+
+	public static final String CONTADOR = "livraria.sql.lento";
+
+	private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+	@Value("${livraria.sql.lento.limite-ms:200}")
+	private long limiteMs;
+
+	@Value("${livraria.sql.lento.amostragem:1.0}")
+	private double amostragem;
+
+	@Autowired
+	private ObjectProvider<MeterRegistry> registry;
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+		if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+			return ProxyDataSourceBuilder.create((DataSource) bean).name(beanName).listener(this).build();
+		}
+
+		return bean;
+	}
+
+	@Override
+	public void beforeQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+		// Somente o tempo, medido pelo proxy, interessa
+	}
+
+	@Override
+	public void afterQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+		final long duracao = execInfo.getElapsedTime();
+
+		if (duracao < limiteMs) {
+			return;
+		}
+
+		registry.getObject().counter(CONTADOR).increment();
+
+		if (amostragem < 1 && ThreadLocalRandom.current().nextDouble() >= amostragem) {
+			return;
+		}
+
+		for (final QueryInfo query : queryInfoList) {
+			// @formatter:off
+			log.warn("Comando SQL lento: {} ms",
+					duracao,
+					keyValue("duracaoMs", duracao),
+					keyValue("sql", redige(query.getQuery())),
+					keyValue("parametros", query.getParametersList().isEmpty() ? 0 : query.getParametersList().get(0).size()),
+					keyValue("lote", execInfo.getBatchSize()),
+					keyValue("sucesso", execInfo.isSuccess()));
+			// @formatter:on
+		}
+	}
+
+	/**
+	 * Troca os literais de texto do SQL por <i>'?'</i>.
+	 *
+	 * @param sql SQL a ser redigido
+	 * @return SQL sem os literais de texto
+	 */
+	static String redige(final String sql) {
+		return LITERAL.matcher(sql).replaceAll("'?'");
+	}
+}
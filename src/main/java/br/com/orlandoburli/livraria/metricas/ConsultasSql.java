@@ -0,0 +1,82 @@
+package br.com.orlandoburli.livraria.metricas;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Comandos SQL executados por uma thread durante uma contagem, como uma
+ * requisição HTTP, na ordem da primeira execução de cada um.
+ *
+ * Selects idênticos executados mais de uma vez na mesma contagem são apontados
+ * como possíveis N+1, em geral uma associação carregada item a item. As
+ * chamadas às sequences não entram nessa conta, já que cada uma reserva um
+ * bloco de ids e se repete com a quantidade de inserções.
+ */
+public class ConsultasSql {
+
+	private final Map<String, Integer> comandos = new LinkedHashMap<>();
+
+	private int total;
+
+	private int chamadasSequence;
+
+	void registra(final String sql) {
+		total++;
+		comandos.merge(sql, 1, Integer::sum);
+
+		if (isChamadaSequence(sql)) {
+			chamadasSequence++;
+		}
+	}
+
+	/**
+	 * @return Quantidade de comandos executados, incluindo as repetições
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return Quantidade de chamadas às sequences, incluídas no total
+	 */
+	public int getChamadasSequence() {
+		return chamadasSequence;
+	}
+
+	/**
+	 * @return Quantidade de execuções de cada comando
+	 */
+	public Map<String, Integer> getComandos() {
+		return Collections.unmodifiableMap(comandos);
+	}
+
+	/**
+	 * @return Selects executados mais de uma vez, com a quantidade de execuções
+	 */
+	public Map<String, Integer> getSelectsRepetidos() {
+		final Map<String, Integer> repetidos = new LinkedHashMap<>();
+
+		comandos.forEach((sql, execucoes) -> {
+			if (execucoes > 1 && sql.regionMatches(true, 0, "select", 0, 6) && !isChamadaSequence(sql)) {
+				repetidos.put(sql, execucoes);
+			}
+		});
+
+		return repetidos;
+	}
+
+	private static boolean isChamadaSequence(final String sql) {
+		return sql.regionMatches(true, 0, "select nextval", 0, 14);
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder descricao = new StringBuilder().append(total).append(" comandos SQL");
+
+		comandos.forEach((sql, execucoes) -> descricao.append(System.lineSeparator()).append(execucoes).append("x ")
+				.append(sql));
+
+		return descricao.toString();
+	}
+}
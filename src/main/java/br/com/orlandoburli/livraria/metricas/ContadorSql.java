@@ -0,0 +1,58 @@
+package br.com.orlandoburli.livraria.metricas;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate na thread atual, entre
+ * {@link #inicia()} e {@link #encerra()}. Fora de uma contagem os comandos não
+ * são registrados.
+ *
+ * Comandos executados por outras threads, como as das tarefas assíncronas, não
+ * entram na contagem de quem as disparou.
+ */
+public class ContadorSql implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final ThreadLocal<ConsultasSql> CONSULTAS = new ThreadLocal<>();
+
+	@Override
+	public String inspect(final String sql) {
+		final ConsultasSql consultas = CONSULTAS.get();
+
+		if (consultas != null) {
+			consultas.registra(sql);
+		}
+
+		return sql;
+	}
+
+	/**
+	 * Inicia uma contagem na thread atual, descartando uma contagem anterior não
+	 * encerrada.
+	 */
+	public void inicia() {
+		CONSULTAS.set(new ConsultasSql());
+	}
+
+	/**
+	 * Encerra a contagem da thread atual.
+	 *
+	 * @return Comandos executados desde o início da contagem, ou null caso não
+	 *         haja contagem iniciada
+	 */
+	public ConsultasSql encerra() {
+		final ConsultasSql consultas = CONSULTAS.get();
+		CONSULTAS.remove();
+
+		return consultas;
+	}
+
+	/**
+	 * @return Comandos executados até agora na contagem da thread atual, ou null
+	 *         caso não haja contagem iniciada
+	 */
+	public ConsultasSql atual() {
+		return CONSULTAS.get();
+	}
+}
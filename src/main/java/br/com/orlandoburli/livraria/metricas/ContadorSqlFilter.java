@@ -0,0 +1,108 @@
+package br.com.orlandoburli.livraria.metricas;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conta os comandos SQL de cada requisição HTTP. A quantidade de comandos e de
+ * selects repetidos vai nos cabeçalhos {@value #CABECALHO_COMANDOS} e
+ * {@value #CABECALHO_SELECTS_REPETIDOS} da resposta, e em uma linha de log por
+ * requisição. Selects repetidos, possíveis N+1, são logados como aviso, com os
+ * comandos.
+ *
+ * Os cabeçalhos são escritos antes do corpo da resposta, com os comandos
+ * executados até ali. Como as transações dos resources terminam antes da
+ * escrita do corpo, são os mesmos da linha de log.
+ */
+@Slf4j
+public class ContadorSqlFilter extends OncePerRequestFilter {
+
+	public static final String CABECALHO_COMANDOS = "X-Sql-Comandos";
+
+	public static final String CABECALHO_SELECTS_REPETIDOS = "X-Sql-Selects-Repetidos";
+
+	private final ContadorSql contador;
+
+	public ContadorSqlFilter(final ContadorSql contador) {
+		this.contador = contador;
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+
+		contador.inicia();
+
+		final RespostaComContagem resposta = new RespostaComContagem(response);
+
+		try {
+			filterChain.doFilter(request, resposta);
+		} finally {
+			final ConsultasSql consultas = contador.encerra();
+
+			if (!response.isCommitted()) {
+				resposta.escreveCabecalhos(consultas);
+			}
+
+			registraLog(request, consultas);
+		}
+	}
+
+	private void registraLog(final HttpServletRequest request, final ConsultasSql consultas) {
+		final int repetidos = consultas.getSelectsRepetidos().size();
+
+		if (repetidos > 0) {
+			log.warn("{} {} - {} selects repetidos, possível N+1: {}", request.getMethod(), request.getRequestURI(),
+					repetidos, consultas);
+		} else {
+			log.info("{} {} - {} comandos SQL", request.getMethod(), request.getRequestURI(), consultas.getTotal());
+		}
+	}
+
+	/**
+	 * Escreve os cabeçalhos da contagem na primeira vez em que o corpo da
+	 * resposta é obtido.
+	 */
+	private final class RespostaComContagem extends HttpServletResponseWrapper {
+
+		private boolean cabecalhosEscritos;
+
+		private RespostaComContagem(final HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			escreveCabecalhos(contador.atual());
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			escreveCabecalhos(contador.atual());
+			return super.getWriter();
+		}
+
+		private void escreveCabecalhos(final ConsultasSql consultas) {
+			if (cabecalhosEscritos || consultas == null) {
+				return;
+			}
+
+			cabecalhosEscritos = true;
+
+			setHeader(CABECALHO_COMANDOS, String.valueOf(consultas.getTotal()));
+			setHeader(CABECALHO_SELECTS_REPETIDOS, String.valueOf(consultas.getSelectsRepetidos().size()));
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package br.com.orlandoburli.livraria.metricas;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Conta as exceções de negócio que chegam ao cliente, tanto as respondidas
+ * pela API quanto as que recusam itens de um lote, no contador
+ * <i>livraria.excecoes</i>, com a classe da exceção na tag <i>tipo</i>.
+ */
+@Component
+public class MetricasExcecoes {
+
+	public static final String CONTADOR = "livraria.excecoes";
+
+	@Autowired
+	private MeterRegistry registry;
+
+	public void registra(final LivrariaException e) {
+		registry.counter(CONTADOR, "tipo", e.getClass().getSimpleName()).increment();
+	}
+}
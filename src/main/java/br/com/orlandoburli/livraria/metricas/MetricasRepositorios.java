@@ -0,0 +1,94 @@
+package br.com.orlandoburli.livraria.metricas;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Mede o tempo e a quantidade de chamadas de cada método dos repositórios do
+ * Spring Data, no timer <i>livraria.repositorio</i>, com as tags
+ * <i>repositorio</i>, <i>metodo</i> e <i>excecao</i>.
+ *
+ * A medição é adicionada como o primeiro interceptor do proxy do repositório,
+ * de forma que inclui a transação e a tradução de exceções do próprio
+ * repositório.
+ */
+@Component
+public class MetricasRepositorios implements BeanPostProcessor {
+
+	public static final String TIMER = "livraria.repositorio";
+
+	private static final String SEM_EXCECAO = "none";
+
+	@Autowired
+	private ObjectProvider<MeterRegistry> registry;
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+		if (bean instanceof Repository && bean instanceof Advised) {
+			for (final Class<?> interfaceProxy : AopProxyUtils.proxiedUserInterfaces(bean)) {
+				if (Repository.class.isAssignableFrom(interfaceProxy)) {
+					((Advised) bean).addAdvice(0, new TempoRepositorio(interfaceProxy.getSimpleName()));
+					break;
+				}
+			}
+		}
+
+		return bean;
+	}
+
+	private final class TempoRepositorio implements MethodInterceptor {
+
+		private final String repositorio;
+
+		private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+		private TempoRepositorio(final String repositorio) {
+			this.repositorio = repositorio;
+		}
+
+		@Override
+		public Object invoke(final MethodInvocation invocation) throws Throwable {
+			final long inicio = System.nanoTime();
+
+			try {
+				final Object retorno = invocation.proceed();
+
+				timers.computeIfAbsent(invocation.getMethod(), m -> timer(m, SEM_EXCECAO))
+						.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+				return retorno;
+			} catch (final Throwable e) {
+				timer(invocation.getMethod(), e.getClass().getSimpleName()).record(System.nanoTime() - inicio,
+						TimeUnit.NANOSECONDS);
+				throw e;
+			}
+		}
+
+		private Timer timer(final Method metodo, final String excecao) {
+			// @formatter:off
+			return Timer
+					.builder(TIMER)
+						.description("Chamadas aos métodos dos repositórios")
+						.tag("repositorio", repositorio)
+						.tag("metodo", metodo.getName())
+						.tag("excecao", excecao)
+					.register(registry.getObject());
+			// @formatter:on
+		}
+	}
+}
@@ -1,12 +1,13 @@
 package br.com.orlandoburli.livraria.model;
 
 import java.io.Serializable;
+import java.time.Instant;
 
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
-import javax.persistence.Lob;
 import javax.persistence.Table;
 
+import br.com.orlandoburli.livraria.storage.CapaStorage;
 import br.com.orlandoburli.livraria.utils.Constants;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -28,6 +29,15 @@ public class Capa implements Serializable {
 	@EmbeddedId
 	private CapaId id;
 
-	@Lob
-	private byte[] imagem;
+	/**
+	 * SHA-1 da imagem, que é guardada no {@link CapaStorage}.
+	 */
+	private String hash;
+
+	/**
+	 * Content-Type da imagem, identificado no upload.
+	 */
+	private String tipo;
+
+	private Instant dataAtualizacao;
 }
\ No newline at end of file
@@ -4,16 +4,24 @@ import java.io.Serializable;
 import java.time.LocalDate;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
+import javax.validation.groups.Default;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import br.com.orlandoburli.livraria.constraints.annotations.DataDevolucaoEmprestimo;
+import br.com.orlandoburli.livraria.constraints.groups.Devolucao;
 import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
+import br.com.orlandoburli.livraria.model.generators.SequenciaEmBlocosGenerator;
 import br.com.orlandoburli.livraria.utils.Constants;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -28,7 +36,7 @@ import lombok.Setter;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@DataDevolucaoEmprestimo
+@DataDevolucaoEmprestimo(groups = { Default.class, Devolucao.class })
 public class Emprestimo implements Serializable {
 
 	private static final long serialVersionUID = 1L;
@@ -37,15 +45,22 @@ public class Emprestimo implements Serializable {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE_NAME)
-	@SequenceGenerator(sequenceName = SEQUENCE_NAME, name = SEQUENCE_NAME, schema = Constants.SCHEMA, initialValue = 1, allocationSize = 1)
+	@GenericGenerator(name = SEQUENCE_NAME, strategy = SequenciaEmBlocosGenerator.NOME, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = SEQUENCE_NAME),
+			@Parameter(name = PersistentIdentifierGenerator.SCHEMA, value = Constants.SCHEMA) })
 	private Long id;
 
+	/**
+	 * Carregados somente sob demanda. Consultas que convertem o empréstimo
+	 * completo usam os métodos <i>findCompleto</i> do repositório, que trazem
+	 * livro, usuário e instituição no mesmo select.
+	 */
 	@NotNull(message = "{javax.validation.emprestimo.usuario.notNull}")
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Usuario usuario;
 
 	@NotNull(message = "{javax.validation.emprestimo.livro.notNull}")
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Livro livro;
 
 	@NotNull(message = "{javax.validation.emprestimo.dataEmprestimo.notNull}")
@@ -53,6 +68,6 @@ public class Emprestimo implements Serializable {
 
 	private LocalDate dataDevolucao;
 
-	@NotNull(message = "{javax.validation.emprestimo.status.notNull}")
+	@NotNull(message = "{javax.validation.emprestimo.status.notNull}", groups = { Default.class, Devolucao.class })
 	private StatusEmprestimo status;
 }
\ No newline at end of file
@@ -2,16 +2,24 @@ package br.com.orlandoburli.livraria.model;
 
 import java.io.Serializable;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.model.generators.SequenciaEmBlocosGenerator;
 import br.com.orlandoburli.livraria.utils.Constants;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,6 +29,8 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "livro", schema = Constants.SCHEMA)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "livro")
 @Getter
 @Setter
 @Builder
@@ -34,7 +44,9 @@ public class Livro implements Serializable {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE_NAME)
-	@SequenceGenerator(sequenceName = SEQUENCE_NAME, name = SEQUENCE_NAME, schema = Constants.SCHEMA, initialValue = 1, allocationSize = 1)
+	@GenericGenerator(name = SEQUENCE_NAME, strategy = SequenciaEmBlocosGenerator.NOME, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = SEQUENCE_NAME),
+			@Parameter(name = PersistentIdentifierGenerator.SCHEMA, value = Constants.SCHEMA) })
 	private Long id;
 
 	@NotBlank(message = "{javax.validations.livro.titulo.notBlank}")
@@ -0,0 +1,61 @@
+package br.com.orlandoburli.livraria.model;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import br.com.orlandoburli.livraria.model.generators.SequenciaEmBlocosGenerator;
+import br.com.orlandoburli.livraria.utils.Constants;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Notificação gravada na mesma transação que a originou (outbox), ainda não
+ * publicada na fila. É apagada depois que o RabbitMQ confirma a publicação.
+ */
+@Entity
+@Table(name = "notificacao_pendente", schema = Constants.SCHEMA)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificacaoPendente implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String SEQUENCE_NAME = "seq_notificacao_pendente";
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE_NAME)
+	@GenericGenerator(name = SEQUENCE_NAME, strategy = SequenciaEmBlocosGenerator.NOME, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = SEQUENCE_NAME),
+			@Parameter(name = PersistentIdentifierGenerator.SCHEMA, value = Constants.SCHEMA) })
+	private Long id;
+
+	@Column(nullable = false)
+	private String titulo;
+
+	@Column(nullable = false)
+	private String mensagem;
+
+	@Column(nullable = false)
+	private String destinatario;
+
+	@Column(name = "criada_em", nullable = false)
+	private Instant criadaEm;
+}
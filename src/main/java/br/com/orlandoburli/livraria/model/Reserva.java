@@ -4,14 +4,20 @@ import java.io.Serializable;
 import java.time.LocalDate;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import br.com.orlandoburli.livraria.model.generators.SequenciaEmBlocosGenerator;
 import br.com.orlandoburli.livraria.utils.Constants;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -34,15 +40,17 @@ public class Reserva implements Serializable {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCE_NAME)
-	@SequenceGenerator(sequenceName = SEQUENCE_NAME, name = SEQUENCE_NAME, schema = Constants.SCHEMA, initialValue = 1, allocationSize = 1)
+	@GenericGenerator(name = SEQUENCE_NAME, strategy = SequenciaEmBlocosGenerator.NOME, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = SEQUENCE_NAME),
+			@Parameter(name = PersistentIdentifierGenerator.SCHEMA, value = Constants.SCHEMA) })
 	private Long id;
 
 	@NotNull(message = "{javax.validation.reserva.usuario.notNull}")
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Usuario usuario;
 
 	@NotNull(message = "{javax.validation.reserva.livro.notNull}")
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	private Livro livro;
 
 	@NotNull(message = "{javax.validation.reserva.dataReserva.notNull}")
@@ -0,0 +1,45 @@
+package br.com.orlandoburli.livraria.model.generators;
+
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Gerador de ids por sequence que reserva blocos de ids em memória, com o
+ * otimizador <i>pooled-lo</i>: cada <i>nextval</i> entrega o primeiro id de um
+ * bloco, e os demais ids do bloco são usados sem ida ao banco.
+ *
+ * O tamanho do bloco é lido da propriedade {@value #TAMANHO_BLOCO}
+ * (<i>spring.jpa.properties.livraria.ids.tamanho-bloco</i>) e deve ser igual ao
+ * <i>INCREMENT BY</i> das sequences no banco, o que é conferido na subida pelo
+ * {@link br.com.orlandoburli.livraria.repository.VerificadorSequencias}. Com
+ * tamanho 1 o gerador volta a chamar a sequence a cada inserção.
+ */
+public class SequenciaEmBlocosGenerator extends SequenceStyleGenerator {
+
+	public static final String NOME = "br.com.orlandoburli.livraria.model.generators.SequenciaEmBlocosGenerator";
+
+	public static final String TAMANHO_BLOCO = "livraria.ids.tamanho-bloco";
+
+	public static final int TAMANHO_BLOCO_PADRAO = 50;
+
+	@Override
+	public void configure(final Type type, final Properties params, final ServiceRegistry serviceRegistry)
+			throws MappingException {
+
+		final int tamanhoBloco = ConfigurationHelper.getInt(TAMANHO_BLOCO,
+				serviceRegistry.getService(ConfigurationService.class).getSettings(), TAMANHO_BLOCO_PADRAO);
+
+		params.setProperty(INCREMENT_PARAM, String.valueOf(tamanhoBloco));
+		params.setProperty(OPT_PARAM, tamanhoBloco > 1 ? StandardOptimizerDescriptor.POOLED_LO.getExternalName()
+				: StandardOptimizerDescriptor.NONE.getExternalName());
+
+		super.configure(type, params, serviceRegistry);
+	}
+}
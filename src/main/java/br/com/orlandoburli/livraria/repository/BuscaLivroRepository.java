@@ -0,0 +1,51 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.util.List;
+
+import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.model.Livro;
+
+/**
+ * Busca textual de livros por palavras do título, autor e sinopse.
+ *
+ * Cada termo casa com o início de uma palavra (busca por prefixo), e todos os
+ * termos devem ser encontrados. O resultado é ordenado por relevância: termos
+ * no título pesam mais que no autor, que pesam mais que na sinopse.
+ *
+ * A implementação é escolhida pela propriedade
+ * <i>livraria.busca.implementacao</i>: <b>postgres</b> (padrão), com índice de
+ * texto completo, <b>like</b>, portável para outros bancos, ou <b>indice</b>,
+ * com índice invertido em memória.
+ */
+public interface BuscaLivroRepository {
+
+	/**
+	 * Busca livros pelos termos informados.
+	 *
+	 * @param termos Termos a serem buscados, em minúsculas e somente com letras e
+	 *               números
+	 * @param status Status dos livros
+	 * @param inicio Quantidade de livros a serem pulados
+	 * @param limite Quantidade máxima de livros retornados
+	 * @return Livros encontrados, do mais para o menos relevante
+	 */
+	List<Livro> buscar(List<String> termos, Status status, int inicio, int limite);
+
+	/**
+	 * Atualiza a busca com os dados de um livro criado ou alterado. Deve ser
+	 * chamado após o commit. Implementações que consultam diretamente o banco não
+	 * precisam fazer nada.
+	 *
+	 * @param livro Livro criado ou alterado
+	 */
+	default void indexar(final Livro livro) {
+	}
+
+	/**
+	 * Remove um livro inativado da busca. Deve ser chamado após o commit.
+	 *
+	 * @param id Id do livro
+	 */
+	default void remover(final Long id) {
+	}
+}
@@ -1,12 +1,27 @@
 package br.com.orlandoburli.livraria.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import br.com.orlandoburli.livraria.enums.Status;
 import br.com.orlandoburli.livraria.model.Capa;
 import br.com.orlandoburli.livraria.model.CapaId;
+import br.com.orlandoburli.livraria.repository.projections.CapaResumoProjection;
 
 @Repository
-public interface CapaRepository extends JpaRepository<Capa, CapaId>{
+public interface CapaRepository extends JpaRepository<Capa, CapaId> {
+
+	long countByHash(String hash);
+
+	@Query("select distinct c.hash from Capa c where c.hash in :hashes")
+	List<String> findHashesEmUso(@Param("hashes") Collection<String> hashes);
 
+	@Query("select c.hash as hash, c.tipo as tipo, c.dataAtualizacao as dataAtualizacao from Capa c where c.id.livro.id = :livroId and c.id.livro.status = :status")
+	Optional<CapaResumoProjection> findResumo(@Param("livroId") Long livroId, @Param("status") Status status);
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import br.com.orlandoburli.livraria.model.Emprestimo;
+
+/**
+ * Operações de empréstimo feitas com comandos SQL próprios: a inserção
+ * condicional e as operações em lote, feitas com JDBC batch em vez de um
+ * comando por empréstimo.
+ */
+public interface EmprestimoLoteRepository {
+
+	/**
+	 * Insere um empréstimo em aberto somente se todas as regras de empréstimo
+	 * forem atendidas, em um único comando. A unicidade do empréstimo em aberto
+	 * por livro é garantida pelo índice <i>uk_emprestimo_livro_aberto</i>, e o
+	 * máximo por usuário pelo lock da linha do usuário, mantido até o fim da
+	 * transação.
+	 *
+	 * @param usuarioId        Id do usuário
+	 * @param livroId          Id do livro
+	 * @param hoje             Data do empréstimo
+	 * @param limiteAtraso     Data a partir da qual empréstimos abertos estão em
+	 *                         atraso
+	 * @param maximoPorUsuario Máximo de empréstimos em aberto por usuário
+	 * @return 1 caso o empréstimo tenha sido inserido, 0 caso algum impedimento
+	 *         tenha sido encontrado
+	 */
+	int emprestarSeDisponivel(Long usuarioId, Long livroId, LocalDate hoje, LocalDate limiteAtraso,
+			int maximoPorUsuario);
+
+	/**
+	 * Insere os empréstimos em um único batch JDBC, usando a mesma inserção
+	 * condicional de {@link EmprestimoRepository#EMPRESTAR_SE_DISPONIVEL}, após
+	 * bloquear todos os usuários do lote em um único comando.
+	 *
+	 * @param emprestimos      Empréstimos a serem inseridos. Somente os ids do
+	 *                         livro e do usuário e a data do empréstimo são usados.
+	 * @param limiteAtraso     Data a partir da qual empréstimos abertos estão em
+	 *                         atraso
+	 * @param maximoPorUsuario Máximo de empréstimos em aberto por usuário
+	 * @return Total de linhas inseridas por empréstimo, na mesma ordem. Os
+	 *         empréstimos recusados pela inserção condicional ou pelo índice
+	 *         único de empréstimos em aberto têm 0 linhas
+	 */
+	int[] emprestarEmLote(List<Emprestimo> emprestimos, LocalDate limiteAtraso, int maximoPorUsuario);
+
+	/**
+	 * Devolve os empréstimos em um único batch JDBC. Somente empréstimos ainda em
+	 * aberto são alterados. Os empréstimos devolvidos são desanexados do contexto
+	 * de persistência e atualizados em memória com o status e a data de
+	 * devolução.
+	 *
+	 * @param emprestimos   Empréstimos a serem devolvidos
+	 * @param dataDevolucao Data da devolução
+	 * @return Total de linhas alteradas por empréstimo, na mesma ordem
+	 */
+	int[] devolverEmLote(List<Emprestimo> emprestimos, LocalDate dataDevolucao);
+}
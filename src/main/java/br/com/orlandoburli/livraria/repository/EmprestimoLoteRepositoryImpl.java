@@ -0,0 +1,170 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
+import br.com.orlandoburli.livraria.model.Emprestimo;
+import br.com.orlandoburli.livraria.utils.Constants;
+
+public class EmprestimoLoteRepositoryImpl implements EmprestimoLoteRepository {
+
+	// @formatter:off
+	private static final String DEVOLVER = "UPDATE " + Constants.SCHEMA + ".emprestimo SET status = 'D', data_devolucao = :dataDevolucao "
+			+ "WHERE id = :id AND status = 'A'";
+	// @formatter:on
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private GeradorIds geradorIds;
+
+	/**
+	 * Sem a indicação da entidade alterada, o Hibernate descartaria todo o cache
+	 * de segundo nível a cada empréstimo. As alterações pendentes são gravadas
+	 * antes, já que o comando consulta usuários, livros e reservas.
+	 */
+	@Override
+	@Transactional
+	public int emprestarSeDisponivel(final Long usuarioId, final Long livroId, final LocalDate hoje,
+			final LocalDate limiteAtraso, final int maximoPorUsuario) {
+
+		entityManager.flush();
+
+		entityManager.createNativeQuery(EmprestimoRepository.BLOQUEAR_USUARIOS)
+				.setParameter("usuarioIds", List.of(usuarioId))
+				.getResultList();
+
+		// @formatter:off
+		return entityManager.createNativeQuery(EmprestimoRepository.EMPRESTAR_SE_DISPONIVEL)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedEntityClass(Emprestimo.class)
+				.setParameter("id", geradorIds.proximo(Emprestimo.class))
+				.setParameter("usuarioId", usuarioId)
+				.setParameter("livroId", livroId)
+				.setParameter("hoje", hoje)
+				.setParameter("limiteAtraso", limiteAtraso)
+				.setParameter("maximoPorUsuario", maximoPorUsuario)
+				.executeUpdate();
+		// @formatter:on
+	}
+
+	/**
+	 * O batch roda em um savepoint. Caso um livro do lote seja emprestado por
+	 * outra transação depois da validação, o índice único rejeita a inserção e
+	 * interromperia o lote inteiro; nesse caso o lote volta ao savepoint e os
+	 * empréstimos são inseridos um a um, cada um em seu savepoint, e os
+	 * rejeitados ficam com 0 linhas inseridas.
+	 */
+	@Override
+	@Transactional
+	public int[] emprestarEmLote(final List<Emprestimo> emprestimos, final LocalDate limiteAtraso,
+			final int maximoPorUsuario) {
+
+		final Iterator<Long> ids = Arrays.asList(geradorIds.proximos(Emprestimo.class, emprestimos.size())).iterator();
+
+		final List<Long> usuarioIds = emprestimos.stream().map(e -> e.getUsuario().getId()).distinct()
+				.collect(Collectors.toList());
+
+		jdbc.queryForList(EmprestimoRepository.BLOQUEAR_USUARIOS, Map.of("usuarioIds", usuarioIds), Long.class);
+
+		final SqlParameterSource[] parametros = emprestimos.stream()
+			// @formatter:off
+			.map(e -> new MapSqlParameterSource()
+					.addValue("id", ids.next())
+					.addValue("usuarioId", e.getUsuario().getId())
+					.addValue("livroId", e.getLivro().getId())
+					.addValue("hoje", e.getDataEmprestimo())
+					.addValue("limiteAtraso", limiteAtraso)
+					.addValue("maximoPorUsuario", maximoPorUsuario))
+			// @formatter:on
+				.toArray(SqlParameterSource[]::new);
+
+		try {
+			return emSavepoint(() -> jdbc.batchUpdate(EmprestimoRepository.EMPRESTAR_SE_DISPONIVEL, parametros));
+		} catch (final DataIntegrityViolationException e) {
+			final int[] inseridos = new int[parametros.length];
+
+			for (int i = 0; i < parametros.length; i++) {
+				final SqlParameterSource item = parametros[i];
+
+				try {
+					inseridos[i] = emSavepoint(() -> jdbc.update(EmprestimoRepository.EMPRESTAR_SE_DISPONIVEL, item));
+				} catch (final DataIntegrityViolationException emprestado) {
+					inseridos[i] = 0;
+				}
+			}
+
+			return inseridos;
+		}
+	}
+
+	/**
+	 * O JpaTransactionManager não cria transações aninhadas, então o savepoint é
+	 * feito direto na conexão da transação corrente, a mesma usada pelo jdbc.
+	 */
+	private <T> T emSavepoint(final Supplier<T> comando) {
+		return jdbc.getJdbcTemplate().execute((ConnectionCallback<T>) connection -> {
+			final Savepoint savepoint = connection.setSavepoint();
+
+			try {
+				final T resultado = comando.get();
+				connection.releaseSavepoint(savepoint);
+				return resultado;
+			} catch (final RuntimeException e) {
+				connection.rollback(savepoint);
+				throw e;
+			}
+		});
+	}
+
+	@Override
+	public int[] devolverEmLote(final List<Emprestimo> emprestimos, final LocalDate dataDevolucao) {
+
+		final SqlParameterSource[] parametros = emprestimos.stream()
+			// @formatter:off
+			.map(e -> new MapSqlParameterSource()
+					.addValue("id", e.getId())
+					.addValue("dataDevolucao", dataDevolucao))
+			// @formatter:on
+				.toArray(SqlParameterSource[]::new);
+
+		final int[] alterados = jdbc.batchUpdate(DEVOLVER, parametros);
+
+		for (int i = 0; i < emprestimos.size(); i++) {
+			if (alterados[i] != 0) {
+				final Emprestimo emprestimo = emprestimos.get(i);
+
+				// Evita que o estado antigo volte a ser gravado ou lido da sessão
+				entityManager.detach(emprestimo);
+
+				emprestimo.setStatus(StatusEmprestimo.DEVOLVIDO);
+				emprestimo.setDataDevolucao(dataDevolucao);
+			}
+		}
+
+		return alterados;
+	}
+}
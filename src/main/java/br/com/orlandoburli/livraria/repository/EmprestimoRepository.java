@@ -1,18 +1,106 @@
 package br.com.orlandoburli.livraria.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
 import br.com.orlandoburli.livraria.model.Emprestimo;
+import br.com.orlandoburli.livraria.repository.projections.EmprestimoAbertoProjection;
+import br.com.orlandoburli.livraria.repository.projections.ImpedimentosEmprestimoProjection;
+import br.com.orlandoburli.livraria.repository.projections.SituacaoUsuarioProjection;
+import br.com.orlandoburli.livraria.utils.Constants;
 
 @Repository
-public interface EmprestimoRepository extends JpaRepository<Emprestimo, Long> {
+public interface EmprestimoRepository extends JpaRepository<Emprestimo, Long>, EmprestimoLoteRepository {
 
-	Optional<Emprestimo> findByLivroIdAndStatus(Long livroId, StatusEmprestimo status);
+	/**
+	 * Bloqueia as linhas dos usuários até o fim da transação, em ordem de id.
+	 * Executado antes de {@link #EMPRESTAR_SE_DISPONIVEL}, serializa os
+	 * empréstimos de um mesmo usuário: o índice único garante somente um
+	 * empréstimo aberto por livro, e a contagem de empréstimos do usuário não
+	 * veria a inserção de outra transação ainda não confirmada.
+	 *
+	 * É um comando separado, e não uma CTE da inserção, porque no PostgreSQL um
+	 * comando que aguardou o lock continua com a visão do banco de quando
+	 * começou; a inserção seguinte já enxerga o empréstimo confirmado por quem
+	 * detinha o lock.
+	 */
+	// @formatter:off
+	String BLOQUEAR_USUARIOS = "SELECT u.id FROM " + Constants.SCHEMA + ".usuario u WHERE u.id IN (:usuarioIds) "
+			+ "ORDER BY u.id FOR UPDATE";
+	// @formatter:on
 
-	List<Emprestimo> findByUsuarioIdAndStatus(Long usuarioId, StatusEmprestimo status);
+	/**
+	 * Comando de inserção condicional de um empréstimo, usado por
+	 * {@link #emprestarSeDisponivel(Long, Long, LocalDate, LocalDate, int)} e pela
+	 * inserção em lote, após {@link #BLOQUEAR_USUARIOS}. O id é obtido do
+	 * {@link GeradorIds}, sem chamar a sequence a cada inserção.
+	 */
+	// @formatter:off
+	String EMPRESTAR_SE_DISPONIVEL = "INSERT INTO " + Constants.SCHEMA + ".emprestimo (id, usuario_id, livro_id, data_emprestimo, status) "
+			+ "SELECT :id, :usuarioId, :livroId, :hoje, 'A' "
+			+ "WHERE EXISTS (SELECT 1 FROM " + Constants.SCHEMA + ".usuario u WHERE u.id = :usuarioId AND u.status = 'A') "
+			+ "AND EXISTS (SELECT 1 FROM " + Constants.SCHEMA + ".livro l WHERE l.id = :livroId AND l.status = 'A') "
+			+ "AND (SELECT COUNT(*) FROM " + Constants.SCHEMA + ".emprestimo e WHERE e.usuario_id = :usuarioId AND e.status = 'A') < :maximoPorUsuario "
+			+ "AND NOT EXISTS (SELECT 1 FROM " + Constants.SCHEMA + ".emprestimo e WHERE e.usuario_id = :usuarioId AND e.status = 'A' AND e.data_emprestimo <= :limiteAtraso) "
+			+ "AND NOT EXISTS (SELECT 1 FROM " + Constants.SCHEMA + ".restricao r JOIN " + Constants.SCHEMA + ".emprestimo e ON e.id = r.emprestimo_id WHERE e.usuario_id = :usuarioId AND r.restrito_ate >= :hoje) "
+			+ "AND NOT EXISTS (SELECT 1 FROM " + Constants.SCHEMA + ".emprestimo e WHERE e.livro_id = :livroId AND e.status = 'A') "
+			+ "AND NOT EXISTS (SELECT 1 FROM " + Constants.SCHEMA + ".reserva r WHERE r.livro_id = :livroId AND r.data_reserva >= :hoje AND r.usuario_id <> :usuarioId)";
+	// @formatter:on
+
+	boolean existsByLivroIdAndStatus(Long livroId, StatusEmprestimo status);
+
+	boolean existsByUsuarioIdAndStatus(Long usuarioId, StatusEmprestimo status);
+
+	@EntityGraph(attributePaths = { "livro", "usuario", "usuario.instituicao" })
+	Optional<Emprestimo> findCompletoById(Long id);
+
+	@EntityGraph(attributePaths = { "livro", "usuario", "usuario.instituicao" })
+	Optional<Emprestimo> findCompletoByLivroIdAndStatus(Long livroId, StatusEmprestimo status);
+
+	@EntityGraph(attributePaths = { "livro", "usuario", "usuario.instituicao" })
+	List<Emprestimo> findCompletoByIdIn(Collection<Long> ids);
+
+	Long countByStatus(StatusEmprestimo status);
+
+	@Query("select e.livro.id from Emprestimo e where e.status = :status")
+	List<Long> findLivroIdByStatus(@Param("status") StatusEmprestimo status);
+
+	@Query("select e.id as id, e.livro.id as livroId, e.usuario.id as usuarioId from Emprestimo e where e.livro.id in :livroIds and e.status = :status")
+	List<EmprestimoAbertoProjection> findAbertosPorLivros(@Param("livroIds") Collection<Long> livroIds,
+			@Param("status") StatusEmprestimo status);
+
+	// @formatter:off
+	@Query("select count(e.id) as totalAbertos, "
+			+ "min(e.dataEmprestimo) as primeiroEmprestimo, "
+			+ "(select max(r.restritoAte) from Restricao r where r.emprestimo.usuario.id = :usuarioId) as restritoAte "
+			+ "from Emprestimo e where e.usuario.id = :usuarioId and e.status = :status")
+	// @formatter:on
+	SituacaoUsuarioProjection findSituacaoUsuario(@Param("usuarioId") Long usuarioId,
+			@Param("status") StatusEmprestimo status);
+
+	/**
+	 * Levanta, em uma única consulta, os totais de cada regra verificada por
+	 * {@link #emprestarSeDisponivel(Long, Long, LocalDate, LocalDate, int)}.
+	 */
+	// @formatter:off
+	@Query(nativeQuery = true, value = "SELECT "
+			+ "(SELECT COUNT(*) FROM " + Constants.SCHEMA + ".usuario u WHERE u.id = :usuarioId AND u.status = 'A') AS \"usuarioAtivo\", "
+			+ "(SELECT COUNT(*) FROM " + Constants.SCHEMA + ".livro l WHERE l.id = :livroId AND l.status = 'A') AS \"livroAtivo\", "
+			+ "(SELECT COUNT(*) FROM " + Constants.SCHEMA + ".emprestimo e WHERE e.usuario_id = :usuarioId AND e.status = 'A') AS \"emprestimosAbertos\", "
+			+ "(SELECT COUNT(*) FROM " + Constants.SCHEMA + ".emprestimo e WHERE e.usuario_id = :usuarioId AND e.status = 'A' AND e.data_emprestimo <= :limiteAtraso) AS \"emprestimosAtrasados\", "
+			+ "(SELECT COUNT(*) FROM " + Constants.SCHEMA + ".restricao r JOIN " + Constants.SCHEMA + ".emprestimo e ON e.id = r.emprestimo_id WHERE e.usuario_id = :usuarioId AND r.restrito_ate >= :hoje) AS \"restricoesVigentes\", "
+			+ "(SELECT COUNT(*) FROM " + Constants.SCHEMA + ".emprestimo e WHERE e.livro_id = :livroId AND e.status = 'A') AS \"livroEmprestado\", "
+			+ "(SELECT COUNT(*) FROM " + Constants.SCHEMA + ".reserva r WHERE r.livro_id = :livroId AND r.data_reserva >= :hoje AND r.usuario_id <> :usuarioId) AS \"reservasOutrosUsuarios\"")
+	// @formatter:on
+	ImpedimentosEmprestimoProjection findImpedimentosEmprestimo(@Param("usuarioId") Long usuarioId,
+			@Param("livroId") Long livroId, @Param("hoje") LocalDate hoje, @Param("limiteAtraso") LocalDate limiteAtraso);
 }
@@ -0,0 +1,54 @@
+package br.com.orlandoburli.livraria.repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Component;
+
+import br.com.orlandoburli.livraria.model.generators.SequenciaEmBlocosGenerator;
+
+/**
+ * Ids para os comandos de inserção feitos fora do Hibernate (JDBC batch e
+ * SQL nativo), obtidos do mesmo gerador das entidades. Com o
+ * {@link SequenciaEmBlocosGenerator}, a sequence é chamada somente uma vez a
+ * cada bloco de ids, e os ids não se repetem com os das inserções pelo
+ * Hibernate.
+ *
+ * Deve ser usado dentro de uma transação.
+ */
+@Component
+public class GeradorIds {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * @param entidade Classe da entidade, cujo gerador de ids é usado
+	 * @return Próximo id da entidade
+	 */
+	public Long proximo(final Class<?> entidade) {
+		return proximos(entidade, 1)[0];
+	}
+
+	/**
+	 * @param entidade   Classe da entidade, cujo gerador de ids é usado
+	 * @param quantidade Quantidade de ids
+	 * @return Próximos ids da entidade, em ordem crescente
+	 */
+	public Long[] proximos(final Class<?> entidade, final int quantidade) {
+		final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+
+		final IdentifierGenerator gerador = session.getFactory().getMetamodel().entityPersister(entidade)
+				.getIdentifierGenerator();
+
+		final Long[] ids = new Long[quantidade];
+
+		for (int i = 0; i < quantidade; i++) {
+			ids[i] = ((Number) gerador.generate(session, null)).longValue();
+		}
+
+		return ids;
+	}
+}
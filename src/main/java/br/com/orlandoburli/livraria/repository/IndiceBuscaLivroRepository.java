@@ -0,0 +1,162 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+
+import br.com.orlandoburli.livraria.cache.IndiceInvertido;
+import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.model.Livro;
+import br.com.orlandoburli.livraria.repository.projections.LivroResumoProjection;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Busca sobre um {@link IndiceInvertido} em memória, para bancos sem índice de
+ * texto completo. Título, autor e sinopse são os campos principal, secundário
+ * e de descrição do índice, com os mesmos pesos das outras implementações.
+ *
+ * O índice contém somente os livros ativos. É carregado na subida da aplicação
+ * e atualizado pelo {@link br.com.orlandoburli.livraria.service.LivroService}
+ * após o commit de cada alteração. A busca resolve os ids no índice e carrega
+ * somente os livros da página. Buscas por outros status usam a busca por LIKE
+ * herdada de {@link LikeBuscaLivroRepository}.
+ */
+@Repository
+@ConditionalOnProperty(name = "livraria.busca.implementacao", havingValue = "indice")
+@Slf4j
+public class IndiceBuscaLivroRepository extends LikeBuscaLivroRepository {
+
+	private static final int TAMANHO_CARGA = 1000;
+
+	@Autowired
+	private LivroRepository livroRepository;
+
+	private volatile IndiceInvertido indice = new IndiceInvertido();
+
+	private boolean reconstruindo;
+
+	private List<Consumer<IndiceInvertido>> operacoesDuranteReconstrucao;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void aquecer() {
+		reconstruir();
+	}
+
+	/**
+	 * Reconstrói o índice a partir dos livros ativos, lidos em blocos por ordem de
+	 * id, e monta o índice novo com uma {@link IndiceInvertido.Carga}. As
+	 * alterações feitas durante a reconstrução são reaplicadas ao final.
+	 * Em caso de falha, o índice anterior é mantido.
+	 */
+	public void reconstruir() {
+		synchronized (this) {
+			reconstruindo = true;
+			operacoesDuranteReconstrucao = new ArrayList<>();
+		}
+
+		try {
+			final IndiceInvertido.Carga carga = new IndiceInvertido.Carga();
+
+			long ultimo = 0L;
+			List<LivroResumoProjection> bloco;
+
+			do {
+				bloco = livroRepository.findByStatusAndIdGreaterThanOrderByIdAsc(Status.ATIVO, ultimo,
+						PageRequest.of(0, TAMANHO_CARGA));
+
+				for (final LivroResumoProjection livro : bloco) {
+					carga.adiciona(documento(livro.getId()), livro.getTitulo(), livro.getAutor(), livro.getSinopse());
+					ultimo = livro.getId();
+				}
+			} while (bloco.size() == TAMANHO_CARGA);
+
+			final IndiceInvertido novo = carga.constroi();
+
+			synchronized (this) {
+				operacoesDuranteReconstrucao.forEach(o -> o.accept(novo));
+
+				this.indice = novo;
+			}
+
+			log.info("Índice de busca de livros reconstruído: {} livros, {} termos", novo.getTotalDocumentos(),
+					novo.getTotalTermos());
+
+		} catch (final RuntimeException e) {
+			log.warn("Não foi possível reconstruir o índice de busca de livros, o índice anterior será mantido", e);
+		} finally {
+			synchronized (this) {
+				reconstruindo = false;
+				operacoesDuranteReconstrucao = null;
+			}
+		}
+	}
+
+	@Override
+	public List<Livro> buscar(final List<String> termos, final Status status, final int inicio, final int limite) {
+		if (status != Status.ATIVO) {
+			return super.buscar(termos, status, inicio, limite);
+		}
+
+		final int[] ids = indice.busca(termos, inicio, limite);
+
+		if (ids.length == 0) {
+			return List.of();
+		}
+
+		final List<Long> ordem = Arrays.stream(ids).asLongStream().boxed().collect(Collectors.toList());
+
+		final List<Livro> livros = livroRepository.findAllById(ordem);
+
+		livros.sort(Comparator.comparingInt(l -> ordem.indexOf(l.getId())));
+
+		return livros;
+	}
+
+	@Override
+	public void indexar(final Livro livro) {
+		if (livro.getStatus() != Status.ATIVO) {
+			remover(livro.getId());
+			return;
+		}
+
+		final int documento = documento(livro.getId());
+		final String titulo = livro.getTitulo();
+		final String autor = livro.getAutor();
+		final String sinopse = livro.getSinopse();
+
+		aplica(i -> i.indexa(documento, titulo, autor, sinopse));
+	}
+
+	@Override
+	public void remover(final Long id) {
+		final int documento = documento(id);
+
+		aplica(i -> i.remove(documento));
+	}
+
+	private synchronized void aplica(final Consumer<IndiceInvertido> operacao) {
+		if (reconstruindo) {
+			operacoesDuranteReconstrucao.add(operacao);
+		}
+
+		operacao.accept(indice);
+	}
+
+	/**
+	 * Os ids de livro cabem em um int (<i>numeric(8)</i>), o que mantém as
+	 * postagens do índice compactas.
+	 */
+	private static int documento(final Long id) {
+		return Math.toIntExact(id);
+	}
+}
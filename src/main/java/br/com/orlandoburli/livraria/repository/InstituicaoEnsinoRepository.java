@@ -2,7 +2,10 @@ package br.com.orlandoburli.livraria.repository;
 
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import br.com.orlandoburli.livraria.enums.Status;
@@ -11,6 +14,11 @@ import br.com.orlandoburli.livraria.model.InstituicaoEnsino;
 @Repository
 public interface InstituicaoEnsinoRepository extends JpaRepository<InstituicaoEnsino, Long> {
 
+	/**
+	 * Consulta feita a cada conversão de usuário, mantida no cache de consultas
+	 * do Hibernate até a próxima alteração de instituição.
+	 */
+	@QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
 	Optional<InstituicaoEnsino> findByIdAndStatus(Long id, Status status);
 
 	Optional<InstituicaoEnsino> findByCnpjAndIdNot(String cnpj, Long id);
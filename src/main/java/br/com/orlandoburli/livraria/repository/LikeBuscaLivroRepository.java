@@ -0,0 +1,85 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.model.Livro;
+import br.com.orlandoburli.livraria.utils.Constants;
+
+/**
+ * Busca portável por LIKE, usada onde não há índice de texto completo (como o
+ * H2 dos testes). O início de palavra é identificado pelos padrões
+ * <i>termo%</i> e <i>% termo%</i>, e a relevância é a soma dos pesos dos campos
+ * em que cada termo foi encontrado. Percorre a tabela inteira.
+ */
+@Repository
+@ConditionalOnProperty(name = "livraria.busca.implementacao", havingValue = "like")
+public class LikeBuscaLivroRepository implements BuscaLivroRepository {
+
+	private static final String[] CAMPOS = { "titulo", "autor", "sinopse" };
+
+	private static final int[] PESOS = { 4, 2, 1 };
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Livro> buscar(final List<String> termos, final Status status, final int inicio, final int limite) {
+		final Map<String, Object> parametros = new HashMap<>();
+
+		parametros.put("status", status.getValor());
+
+		final StringJoiner filtro = new StringJoiner(" AND ");
+		final StringJoiner relevancia = new StringJoiner(" + ");
+
+		for (int i = 0; i < termos.size(); i++) {
+			parametros.put("prefixo" + i, termos.get(i) + "%");
+			parametros.put("palavra" + i, "% " + termos.get(i) + "%");
+
+			final StringJoiner algumCampo = new StringJoiner(" OR ", "(", ")");
+
+			for (int c = 0; c < CAMPOS.length; c++) {
+				final String casa = casa(CAMPOS[c], i);
+
+				algumCampo.add(casa);
+				relevancia.add("CASE WHEN " + casa + " THEN " + PESOS[c] + " ELSE 0 END");
+			}
+
+			filtro.add(algumCampo.toString());
+		}
+
+		// @formatter:off
+		final String sql = "SELECT l.id, l.titulo, l.genero, l.autor, l.sinopse, l.status "
+				+ "FROM " + Constants.SCHEMA + ".livro l "
+				+ "WHERE l.status = :status AND " + filtro + " "
+				+ "ORDER BY " + relevancia + " DESC, l.id";
+		// @formatter:on
+
+		final Query query = entityManager.createNativeQuery(sql, Livro.class)
+				.setFirstResult(inicio)
+				.setMaxResults(limite);
+
+		parametros.forEach(query::setParameter);
+
+		return resultado(query);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Livro> resultado(final Query query) {
+		return query.getResultList();
+	}
+
+	private String casa(final String campo, final int termo) {
+		return "(LOWER(l." + campo + ") LIKE :prefixo" + termo + " OR LOWER(l." + campo + ") LIKE :palavra" + termo + ")";
+	}
+}
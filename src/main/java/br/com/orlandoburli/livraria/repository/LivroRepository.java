@@ -1,16 +1,51 @@
 package br.com.orlandoburli.livraria.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
 import br.com.orlandoburli.livraria.model.Livro;
+import br.com.orlandoburli.livraria.repository.projections.DisponibilidadeLivroProjection;
+import br.com.orlandoburli.livraria.repository.projections.LivroResumoProjection;
 
 @Repository
 public interface LivroRepository extends JpaRepository<Livro, Long>{
 
 	Optional<Livro> findByIdAndStatus(Long id, Status status);
-	
-}
\ No newline at end of file
+
+	// @formatter:off
+	@Query("select l.id as livroId, "
+			+ "(select count(e.id) from Emprestimo e where e.livro = l and e.status = :statusEmprestimo) as emprestimosAbertos "
+			+ "from Livro l where l.id in :ids and l.status = :status")
+	// @formatter:on
+	List<DisponibilidadeLivroProjection> findDisponibilidade(@Param("ids") Collection<Long> ids,
+			@Param("status") Status status, @Param("statusEmprestimo") StatusEmprestimo statusEmprestimo);
+
+	/*
+	 * Consultas do catálogo, paginadas por cursor (keyset) sobre o id: cada página
+	 * começa após o último id da anterior, de forma que páginas profundas custam o
+	 * mesmo que a primeira. Há uma consulta por combinação de filtros para que
+	 * cada uma use o seu índice (ix_livro_status_id, ix_livro_genero_status_id e
+	 * ix_livro_autor_status_id). O tamanho da página vem do Pageable, sem
+	 * consulta de contagem.
+	 */
+
+	List<LivroResumoProjection> findByStatusAndIdGreaterThanOrderByIdAsc(Status status, Long id, Pageable pagina);
+
+	List<LivroResumoProjection> findByStatusAndGeneroAndIdGreaterThanOrderByIdAsc(Status status, String genero,
+			Long id, Pageable pagina);
+
+	List<LivroResumoProjection> findByStatusAndAutorAndIdGreaterThanOrderByIdAsc(Status status, String autor,
+			Long id, Pageable pagina);
+
+	List<LivroResumoProjection> findByStatusAndGeneroAndAutorAndIdGreaterThanOrderByIdAsc(Status status,
+			String genero, String autor, Long id, Pageable pagina);
+}
@@ -0,0 +1,22 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import br.com.orlandoburli.livraria.dto.MensagemDto;
+
+/**
+ * Gravação de notificações pendentes em lote, feita com JDBC batch em vez de
+ * um comando por notificação.
+ */
+public interface NotificacaoPendenteLoteRepository {
+
+	/**
+	 * Insere uma notificação pendente para cada mensagem, em um único batch JDBC.
+	 *
+	 * @param mensagens Mensagens a serem publicadas
+	 * @param criadaEm  Momento da gravação
+	 * @return Total de linhas inseridas por mensagem, na mesma ordem
+	 */
+	int[] gravarEmLote(Collection<MensagemDto> mensagens, Instant criadaEm);
+}
@@ -0,0 +1,53 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.orlandoburli.livraria.dto.MensagemDto;
+import br.com.orlandoburli.livraria.model.NotificacaoPendente;
+import br.com.orlandoburli.livraria.utils.Constants;
+
+public class NotificacaoPendenteLoteRepositoryImpl implements NotificacaoPendenteLoteRepository {
+
+	// @formatter:off
+	private static final String GRAVAR = "INSERT INTO " + Constants.SCHEMA + ".notificacao_pendente (id, titulo, mensagem, destinatario, criada_em) "
+			+ "VALUES (:id, :titulo, :mensagem, :destinatario, :criadaEm)";
+	// @formatter:on
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	@Autowired
+	private GeradorIds geradorIds;
+
+	@Override
+	@Transactional
+	public int[] gravarEmLote(final Collection<MensagemDto> mensagens, final Instant criadaEm) {
+		final Timestamp momento = Timestamp.from(criadaEm);
+
+		final Iterator<Long> ids = Arrays.asList(geradorIds.proximos(NotificacaoPendente.class, mensagens.size()))
+				.iterator();
+
+		final SqlParameterSource[] parametros = mensagens.stream()
+			// @formatter:off
+			.map(m -> new MapSqlParameterSource()
+					.addValue("id", ids.next())
+					.addValue("titulo", m.getTitulo())
+					.addValue("mensagem", m.getMensagem())
+					.addValue("destinatario", m.getDestinatario())
+					.addValue("criadaEm", momento))
+			// @formatter:on
+				.toArray(SqlParameterSource[]::new);
+
+		return jdbc.batchUpdate(GRAVAR, parametros);
+	}
+}
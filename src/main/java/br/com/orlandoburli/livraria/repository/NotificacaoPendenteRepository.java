@@ -0,0 +1,32 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.util.List;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import br.com.orlandoburli.livraria.model.NotificacaoPendente;
+
+@Repository
+public interface NotificacaoPendenteRepository
+		extends JpaRepository<NotificacaoPendente, Long>, NotificacaoPendenteLoteRepository {
+
+	/**
+	 * Notificações mais antigas, bloqueadas até o fim da transação. Com mais de
+	 * uma instância da aplicação, as linhas já bloqueadas por outra são puladas
+	 * com <i>skip locked</i>, gerado pelo Hibernate a partir do
+	 * PostgreSQL95Dialect; com dialetos sem suporte, as linhas são aguardadas.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	// Timeout -2 é o LockOptions.SKIP_LOCKED do Hibernate
+	@QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+	@Query("select n from NotificacaoPendente n order by n.id")
+	List<NotificacaoPendente> findPendentes(Pageable pageable);
+}
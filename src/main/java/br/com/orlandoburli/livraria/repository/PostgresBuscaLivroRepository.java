@@ -0,0 +1,55 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.model.Livro;
+import br.com.orlandoburli.livraria.utils.Constants;
+
+/**
+ * Busca sobre a coluna gerada <i>livro.busca</i> (tsvector), indexada por GIN.
+ * Os termos viram uma tsquery com prefixo (<i>termo:*</i>) unidos por
+ * <i>&amp;</i>, e a relevância é calculada por <i>ts_rank</i> sobre os pesos
+ * A (título), B (autor) e C (sinopse) da coluna.
+ */
+@Repository
+@ConditionalOnProperty(name = "livraria.busca.implementacao", havingValue = "postgres", matchIfMissing = true)
+public class PostgresBuscaLivroRepository implements BuscaLivroRepository {
+
+	// @formatter:off
+	private static final String BUSCAR = "SELECT l.id, l.titulo, l.genero, l.autor, l.sinopse, l.status "
+			+ "FROM " + Constants.SCHEMA + ".livro l, to_tsquery('portuguese', :consulta) q "
+			+ "WHERE l.status = :status AND l.busca @@ q "
+			+ "ORDER BY ts_rank(l.busca, q) DESC, l.id";
+	// @formatter:on
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Livro> buscar(final List<String> termos, final Status status, final int inicio, final int limite) {
+		// Os termos contêm somente letras e números, não há como injetar operadores
+		final String consulta = termos.stream().map(t -> t + ":*").collect(Collectors.joining(" & "));
+
+		// @formatter:off
+		return resultado(entityManager.createNativeQuery(BUSCAR, Livro.class)
+				.setParameter("consulta", consulta)
+				.setParameter("status", status.getValor())
+				.setFirstResult(inicio)
+				.setMaxResults(limite));
+		// @formatter:on
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Livro> resultado(final Query query) {
+		return query.getResultList();
+	}
+}
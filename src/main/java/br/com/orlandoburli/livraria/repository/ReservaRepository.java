@@ -1,16 +1,38 @@
 package br.com.orlandoburli.livraria.repository;
 
 import java.time.LocalDate;
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import br.com.orlandoburli.livraria.model.Reserva;
+import br.com.orlandoburli.livraria.repository.projections.ReservaVigenteProjection;
+import br.com.orlandoburli.livraria.utils.Constants;
 
 @Repository
 public interface ReservaRepository extends JpaRepository<Reserva, Long> {
 
-	Optional<Reserva> findByLivroIdAndDataReservaGreaterThanEqualAndUsuarioIdNot(Long livroId, LocalDate dataReservas,
+	boolean existsByLivroIdAndDataReservaGreaterThanEqualAndUsuarioIdNot(Long livroId, LocalDate dataReservas,
 			Long usuarioId);
-}
\ No newline at end of file
+
+	/**
+	 * Total de reservas vigentes. Reservas repetidas do mesmo usuário para o
+	 * mesmo livro e data contam uma única vez, como no índice de disponibilidade.
+	 */
+	// @formatter:off
+	@Query(nativeQuery = true, value = "SELECT COUNT(*) FROM ("
+			+ "SELECT DISTINCT r.livro_id, r.usuario_id, r.data_reserva FROM " + Constants.SCHEMA + ".reserva r WHERE r.data_reserva >= :data) v")
+	// @formatter:on
+	long countVigentes(@Param("data") LocalDate data);
+
+	@Query("select r.livro.id as livroId, r.usuario.id as usuarioId, r.dataReserva as dataReserva from Reserva r where r.dataReserva >= :data")
+	List<ReservaVigenteProjection> findVigentes(@Param("data") LocalDate data);
+
+	@Query("select r.livro.id as livroId, r.usuario.id as usuarioId, r.dataReserva as dataReserva from Reserva r where r.livro.id in :livroIds and r.dataReserva >= :data")
+	List<ReservaVigenteProjection> findVigentesPorLivros(@Param("livroIds") Collection<Long> livroIds,
+			@Param("data") LocalDate data);
+}
@@ -0,0 +1,20 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Operações de restrição em lote, feitas com JDBC batch em vez de um comando
+ * por restrição.
+ */
+public interface RestricaoLoteRepository {
+
+	/**
+	 * Insere uma restrição para cada empréstimo, em um único batch JDBC.
+	 *
+	 * @param emprestimoIds Ids dos empréstimos devolvidos com atraso
+	 * @param restritoAte   Data até a qual os usuários ficam restritos
+	 * @return Total de linhas inseridas por empréstimo, na mesma ordem
+	 */
+	int[] restringirEmLote(Collection<Long> emprestimoIds, LocalDate restritoAte);
+}
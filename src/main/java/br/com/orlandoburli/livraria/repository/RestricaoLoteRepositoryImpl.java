@@ -0,0 +1,47 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.com.orlandoburli.livraria.model.Restricao;
+import br.com.orlandoburli.livraria.utils.Constants;
+
+public class RestricaoLoteRepositoryImpl implements RestricaoLoteRepository {
+
+	// @formatter:off
+	private static final String RESTRINGIR = "INSERT INTO " + Constants.SCHEMA + ".restricao (id, emprestimo_id, restrito_ate) "
+			+ "VALUES (:id, :emprestimoId, :restritoAte)";
+	// @formatter:on
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	@Autowired
+	private GeradorIds geradorIds;
+
+	@Override
+	@Transactional
+	public int[] restringirEmLote(final Collection<Long> emprestimoIds, final LocalDate restritoAte) {
+
+		final Iterator<Long> ids = Arrays.asList(geradorIds.proximos(Restricao.class, emprestimoIds.size())).iterator();
+
+		final SqlParameterSource[] parametros = emprestimoIds.stream()
+			// @formatter:off
+			.map(id -> new MapSqlParameterSource()
+					.addValue("id", ids.next())
+					.addValue("emprestimoId", id)
+					.addValue("restritoAte", restritoAte))
+			// @formatter:on
+				.toArray(SqlParameterSource[]::new);
+
+		return jdbc.batchUpdate(RESTRINGIR, parametros);
+	}
+}
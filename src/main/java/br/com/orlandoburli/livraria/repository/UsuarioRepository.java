@@ -1,12 +1,19 @@
 package br.com.orlandoburli.livraria.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
 import br.com.orlandoburli.livraria.model.Usuario;
+import br.com.orlandoburli.livraria.repository.projections.SituacaoUsuarioLoteProjection;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
@@ -14,6 +21,20 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 	Long countByInstituicaoId(Long id);
 
 	Optional<Usuario> findByIdAndStatus(Long id, Status status);
-	
+
+	@EntityGraph(attributePaths = "instituicao")
+	Optional<Usuario> findCompletoByIdAndStatus(Long id, Status status);
+
+
 	Optional<Usuario> findByCpfAndIdNot(String cpf, Long id);
+
+	// @formatter:off
+	@Query("select u.id as usuarioId, "
+			+ "(select count(e.id) from Emprestimo e where e.usuario = u and e.status = :statusEmprestimo) as totalAbertos, "
+			+ "(select min(e.dataEmprestimo) from Emprestimo e where e.usuario = u and e.status = :statusEmprestimo) as primeiroEmprestimo, "
+			+ "(select max(r.restritoAte) from Restricao r where r.emprestimo.usuario = u) as restritoAte "
+			+ "from Usuario u where u.id in :ids and u.status = :status")
+	// @formatter:on
+	List<SituacaoUsuarioLoteProjection> findSituacaoUsuarios(@Param("ids") Collection<Long> ids,
+			@Param("status") Status status, @Param("statusEmprestimo") StatusEmprestimo statusEmprestimo);
 }
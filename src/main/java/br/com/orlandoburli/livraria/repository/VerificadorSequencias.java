@@ -0,0 +1,77 @@
+package br.com.orlandoburli.livraria.repository;
+
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import br.com.orlandoburli.livraria.model.generators.SequenciaEmBlocosGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Confere, na subida da aplicação, se o <i>INCREMENT BY</i> de cada sequence
+ * usada pelo {@link SequenciaEmBlocosGenerator} é igual ao tamanho do bloco
+ * configurado. Com valores diferentes o otimizador <i>pooled-lo</i> entregaria
+ * ids repetidos, então a aplicação não sobe.
+ */
+@Component
+@Slf4j
+public class VerificadorSequencias {
+
+	// @formatter:off
+	private static final String INCREMENTO = "SELECT s.increment FROM information_schema.sequences s "
+			+ "WHERE UPPER(s.sequence_schema) = UPPER(?) AND UPPER(s.sequence_name) = UPPER(?)";
+	// @formatter:on
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	/**
+	 * @throws IllegalStateException Exceção disparada caso o incremento de alguma
+	 *                               sequence seja diferente do tamanho do bloco
+	 */
+	@PostConstruct
+	public void verifica() {
+		final SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+		for (final EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+			final IdentifierGenerator gerador = persister.getIdentifierGenerator();
+
+			if (gerador instanceof SequenciaEmBlocosGenerator) {
+				verifica(((SequenciaEmBlocosGenerator) gerador).getDatabaseStructure());
+			}
+		}
+	}
+
+	private void verifica(final DatabaseStructure sequence) {
+		final String nome = sequence.getName();
+		final int separador = nome.lastIndexOf('.');
+
+		final List<String> incrementos = jdbc.queryForList(INCREMENTO, String.class,
+				separador < 0 ? "" : nome.substring(0, separador), nome.substring(separador + 1));
+
+		if (incrementos.isEmpty()) {
+			log.warn("Sequence {} não encontrada, o incremento não foi verificado", nome);
+			return;
+		}
+
+		final long incremento = Long.parseLong(incrementos.get(0).trim());
+
+		if (incremento != sequence.getIncrementSize()) {
+			throw new IllegalStateException(String.format(
+					"A sequence %s tem INCREMENT BY %d, diferente do tamanho de bloco de ids configurado (%d)", nome,
+					incremento, sequence.getIncrementSize()));
+		}
+	}
+}
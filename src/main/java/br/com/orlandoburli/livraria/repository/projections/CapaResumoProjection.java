@@ -0,0 +1,15 @@
+package br.com.orlandoburli.livraria.repository.projections;
+
+import java.time.Instant;
+
+/**
+ * Metadados de uma capa, sem a imagem.
+ */
+public interface CapaResumoProjection {
+
+	String getHash();
+
+	String getTipo();
+
+	Instant getDataAtualizacao();
+}
@@ -0,0 +1,11 @@
+package br.com.orlandoburli.livraria.repository.projections;
+
+/**
+ * Total de empréstimos em aberto de um livro ativo.
+ */
+public interface DisponibilidadeLivroProjection {
+
+	Long getLivroId();
+
+	Long getEmprestimosAbertos();
+}
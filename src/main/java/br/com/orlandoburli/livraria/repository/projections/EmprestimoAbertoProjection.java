@@ -0,0 +1,13 @@
+package br.com.orlandoburli.livraria.repository.projections;
+
+/**
+ * Identificação de um empréstimo em aberto: id, livro e usuário.
+ */
+public interface EmprestimoAbertoProjection {
+
+	Long getId();
+
+	Long getLivroId();
+
+	Long getUsuarioId();
+}
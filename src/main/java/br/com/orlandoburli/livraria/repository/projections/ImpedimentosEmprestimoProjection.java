@@ -0,0 +1,22 @@
+package br.com.orlandoburli.livraria.repository.projections;
+
+/**
+ * Totais que explicam por que um empréstimo não pôde ser realizado, obtidos em
+ * uma única consulta.
+ */
+public interface ImpedimentosEmprestimoProjection {
+
+	Long getUsuarioAtivo();
+
+	Long getLivroAtivo();
+
+	Long getEmprestimosAbertos();
+
+	Long getEmprestimosAtrasados();
+
+	Long getRestricoesVigentes();
+
+	Long getLivroEmprestado();
+
+	Long getReservasOutrosUsuarios();
+}
@@ -0,0 +1,21 @@
+package br.com.orlandoburli.livraria.repository.projections;
+
+import br.com.orlandoburli.livraria.enums.Status;
+
+/**
+ * Dados de um livro para listagem do catálogo, lidos sem carregar a entidade.
+ */
+public interface LivroResumoProjection {
+
+	Long getId();
+
+	String getTitulo();
+
+	String getGenero();
+
+	String getAutor();
+
+	String getSinopse();
+
+	Status getStatus();
+}
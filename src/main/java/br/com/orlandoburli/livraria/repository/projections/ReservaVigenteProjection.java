@@ -0,0 +1,16 @@
+package br.com.orlandoburli.livraria.repository.projections;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção enxuta de uma reserva, somente com as colunas necessárias para o
+ * índice de disponibilidade dos livros.
+ */
+public interface ReservaVigenteProjection {
+
+	Long getLivroId();
+
+	Long getUsuarioId();
+
+	LocalDate getDataReserva();
+}
@@ -0,0 +1,10 @@
+package br.com.orlandoburli.livraria.repository.projections;
+
+/**
+ * Situação de empréstimos de um usuário, identificada pelo seu id, para
+ * consultas de vários usuários de uma só vez.
+ */
+public interface SituacaoUsuarioLoteProjection extends SituacaoUsuarioProjection {
+
+	Long getUsuarioId();
+}
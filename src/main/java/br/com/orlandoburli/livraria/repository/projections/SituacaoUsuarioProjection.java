@@ -0,0 +1,17 @@
+package br.com.orlandoburli.livraria.repository.projections;
+
+import java.time.LocalDate;
+
+/**
+ * Situação de empréstimos de um usuário, resumida em uma única linha: total de
+ * empréstimos em aberto, data do empréstimo aberto mais antigo e data até a
+ * qual o usuário está restrito.
+ */
+public interface SituacaoUsuarioProjection {
+
+	Long getTotalAbertos();
+
+	LocalDate getPrimeiroEmprestimo();
+
+	LocalDate getRestritoAte();
+}
@@ -0,0 +1,35 @@
+package br.com.orlandoburli.livraria.resources;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.orlandoburli.livraria.dto.EstatisticaCacheDto;
+import br.com.orlandoburli.livraria.service.EstatisticasCacheService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+@RestController
+@RequestMapping("cache")
+@Api(tags = "Cache", description = "API para acompanhamento dos caches.")
+public class CacheResource {
+
+	// @formatter:off
+
+	@Autowired
+	private EstatisticasCacheService service;
+
+	@ApiOperation("Retorna as estatísticas de uso de cada região de cache.")
+	@ApiResponses({
+		@ApiResponse(code = 200, message = "Estatísticas retornadas com sucesso.")
+	})
+	@GetMapping("estatisticas")
+	public List<EstatisticaCacheDto> estatisticas() {
+		return service.list();
+	}
+}
@@ -1,6 +1,7 @@
 package br.com.orlandoburli.livraria.resources;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import javax.transaction.Transactional;
 
@@ -9,11 +10,15 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.com.orlandoburli.livraria.dto.DevolucaoLoteResultadoDto;
 import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteItemDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteResultadoDto;
 import br.com.orlandoburli.livraria.dto.ReservaDto;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.EmprestimoException;
 import br.com.orlandoburli.livraria.exceptions.livro.LivroException;
@@ -52,6 +57,18 @@ public class EmprestimoResource {
 		return service.emprestar(usuarioId, livroId);
 	}
 
+	@ApiOperation("Empresta vários livros de uma só vez, retornando o resultado de cada empréstimo.")
+	@ApiResponses({
+		@ApiResponse(code = 200, message = "Lote processado. Verificar o resultado de cada item."),
+		@ApiResponse(code = 422, message = "Lote vazio ou acima do máximo de itens permitido.")
+	})
+	@PostMapping("emprestimos/lote")
+	public List<EmprestimoLoteResultadoDto> emprestarLote(
+			@ApiParam("Livros e usuários a serem emprestados") @RequestBody final List<EmprestimoLoteItemDto> itens
+		) throws EmprestimoException {
+		return service.emprestarLote(itens);
+	}
+
 	@ApiOperation("Reserva um livro para um usuário.")
 	@ApiResponses({
 		@ApiResponse(code = 204, message = "Reserva realizada com sucesso."),
@@ -79,4 +96,16 @@ public class EmprestimoResource {
 	public void devolver(@ApiParam("Id do empréstimo") @PathVariable final Long id) throws EmprestimoException, ValidationLivrariaException {
 		service.devolver(id);
 	}
-}
\ No newline at end of file
+
+	@ApiOperation("Devolve vários livros de uma só vez, retornando o resultado de cada devolução.")
+	@ApiResponses({
+		@ApiResponse(code = 200, message = "Lote processado. Verificar o resultado de cada item."),
+		@ApiResponse(code = 422, message = "Lote vazio ou acima do máximo de itens permitido.")
+	})
+	@PostMapping("devolucoes/lote")
+	public List<DevolucaoLoteResultadoDto> devolverLote(
+			@ApiParam("Ids dos empréstimos a serem devolvidos") @RequestBody final List<Long> ids
+		) throws EmprestimoException {
+		return service.devolverLote(ids);
+	}
+}
@@ -1,11 +1,18 @@
 package br.com.orlandoburli.livraria.resources;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
 
 import javax.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,14 +23,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import br.com.orlandoburli.livraria.dto.CapaDto;
 import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.PaginaDto;
 import br.com.orlandoburli.livraria.exceptions.LivrariaException;
 import br.com.orlandoburli.livraria.exceptions.livro.LivroException;
 import br.com.orlandoburli.livraria.service.LivroService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 
@@ -38,6 +49,9 @@ public class LivroResource {
 	@Autowired
 	private LivroService service;
 
+	@Value("${livraria.capas.max-age-segundos:86400}")
+	private long capaMaxAge;
+
 	@ApiOperation("Retorna um livro pelo seu id.")
 	@ApiResponses({
 		@ApiResponse(code = 200, message = "Livro retornado com sucesso."),
@@ -48,6 +62,36 @@ public class LivroResource {
 		return service.get(id);
 	}
 
+	@ApiOperation("Lista os livros do catálogo, paginados por cursor.")
+	@ApiResponses({
+		@ApiResponse(code = 200, message = "Livros retornados com sucesso."),
+		@ApiResponse(code = 400, message = "Status ou cursor inválido.")
+	})
+	@GetMapping
+	public PaginaDto<LivroDto> list(
+			@ApiParam("Status dos livros: A (padrão) ou I") @RequestParam(required = false) final String status,
+			@ApiParam("Gênero dos livros") @RequestParam(required = false) final String genero,
+			@ApiParam("Autor dos livros") @RequestParam(required = false) final String autor,
+			@ApiParam("Cursor retornado em proximaPagina") @RequestParam(required = false) final String cursor,
+			@ApiParam("Livros por página, padrão 20 e máximo 100") @RequestParam(required = false) final Integer tamanho
+		) throws LivroException {
+		return service.list(status, genero, autor, cursor, tamanho);
+	}
+
+	@ApiOperation("Busca livros por palavras do título, autor ou sinopse, ordenados por relevância.")
+	@ApiResponses({
+		@ApiResponse(code = 200, message = "Livros retornados com sucesso."),
+		@ApiResponse(code = 400, message = "Texto ou cursor inválido.")
+	})
+	@GetMapping("busca")
+	public PaginaDto<LivroDto> search(
+			@ApiParam("Palavras a serem buscadas, também pelo início") @RequestParam final String texto,
+			@ApiParam("Cursor retornado em proximaPagina") @RequestParam(required = false) final String cursor,
+			@ApiParam("Livros por página, padrão 20 e máximo 100") @RequestParam(required = false) final Integer tamanho
+		) throws LivroException {
+		return service.search(texto, cursor, tamanho);
+	}
+
 	@ApiOperation("Cria um livro.")
 	@ApiResponses({
 		@ApiResponse(code = 201, message = "Livro criado com sucesso."),
@@ -84,21 +128,47 @@ public class LivroResource {
 	@ApiOperation("Faz o upload da capa de um livro.")
 	@ApiResponses({
 		@ApiResponse(code = 204, message = "Capa salva com sucesso."),
+		@ApiResponse(code = 413, message = "Capa excede o tamanho máximo"),
 		@ApiResponse(code = 422, message = "Dados inválidos")
 	})
 	@PostMapping("{id}/capa")
 	@ResponseStatus(HttpStatus.CREATED)
 	public void uploadCapa(@PathVariable final Long id, @RequestParam("file") final MultipartFile file) throws LivroException, IOException {
-		service.saveCapa(id, file.getBytes());
+		try (InputStream imagem = file.getInputStream()) {
+			service.saveCapa(id, imagem);
+		}
 	}
 
-	@ApiOperation("Retorna a capa de um livro.")
+	@ApiOperation("Retorna a capa de um livro, na versão thumb, medium ou original. Suporta requisições condicionais com If-None-Match e If-Modified-Since.")
 	@ApiResponses({
 		@ApiResponse(code = 200, message = "Capa retornada com sucesso"),
+		@ApiResponse(code = 304, message = "Capa não foi alterada"),
+		@ApiResponse(code = 400, message = "Tamanho de capa inválido"),
 		@ApiResponse(code = 404, message = "Capa não encontrada")
 	})
 	@GetMapping("{id}/capa")
-	public byte[] getCapa(@PathVariable final Long id) throws LivroException {
-		return service.getCapa(id);
+	public ResponseEntity<Resource> getCapa(@PathVariable final Long id,
+			@ApiParam("Versão da capa: thumb, medium ou original (padrão)") @RequestParam(name = "size", required = false) final String size,
+			final WebRequest request) throws LivroException {
+		final CapaDto capa = service.getInfoCapa(id, size);
+
+		final String etag = "\"" + capa.getHash() + (capa.getTamanho().isOriginal() ? "" : "-" + capa.getTamanho().getValor()) + "\"";
+
+		// Enquanto a versão reduzida não é gerada a original é servida sem cache, para que o cliente busque a versão reduzida depois
+		final CacheControl cacheControl = capa.isProvisoria() ? CacheControl.noCache() : CacheControl.maxAge(capaMaxAge, TimeUnit.SECONDS).cachePublic();
+
+		// A imagem só é aberta caso o cliente não tenha a versão atual
+		if (request.checkNotModified(etag, capa.getDataAtualizacao().toEpochMilli())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+		}
+
+		final MediaType tipo = capa.getTipo() == null ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(capa.getTipo());
+
+		return ResponseEntity.ok()
+				.eTag(etag)
+				.lastModified(capa.getDataAtualizacao())
+				.cacheControl(cacheControl)
+				.contentType(tipo)
+				.body(service.abrirCapa(capa));
 	}
 }
@@ -0,0 +1,35 @@
+package br.com.orlandoburli.livraria.resources;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.orlandoburli.livraria.utils.MessagesService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+@RestController
+@RequestMapping("mensagens")
+@Api(tags = "Mensagens", description = "API para manutenção do catálogo de mensagens.")
+public class MensagensResource {
+
+	// @formatter:off
+
+	@Autowired
+	private MessagesService service;
+
+	@ApiOperation("Lê novamente os arquivos de mensagens, aplicando alterações feitas neles.")
+	@ApiResponses({
+		@ApiResponse(code = 204, message = "Mensagens recarregadas com sucesso.")
+	})
+	@PostMapping("recarregar")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void recarregar() {
+		service.recarregar();
+	}
+}
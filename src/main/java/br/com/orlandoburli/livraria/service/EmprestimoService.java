@@ -1,22 +1,41 @@
 package br.com.orlandoburli.livraria.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.convert.ConversionService;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import br.com.orlandoburli.livraria.cache.DisponibilidadeLivroCache;
+import br.com.orlandoburli.livraria.constraints.groups.Devolucao;
+import br.com.orlandoburli.livraria.converters.emprestimo.EmprestimoEntityToDtoConvert;
+import br.com.orlandoburli.livraria.converters.reserva.ReservaDtoToEntityConverter;
+import br.com.orlandoburli.livraria.dto.DevolucaoLoteResultadoDto;
 import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteItemDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteResultadoDto;
 import br.com.orlandoburli.livraria.dto.LivroDto;
 import br.com.orlandoburli.livraria.dto.ReservaDto;
 import br.com.orlandoburli.livraria.dto.UsuarioDto;
+import br.com.orlandoburli.livraria.enums.Status;
 import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.EmprestimoJaDevolvidoException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.EmprestimoNaoEncontradoException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.EmprestimoNaoInformadoException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.LivroJaEmprestadoException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.LivroJaReservadoException;
+import br.com.orlandoburli.livraria.exceptions.emprestimo.LoteInvalidoException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.MaximoPedidosUsuarioException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.UsuarioBloqueadoPorAtrasoException;
 import br.com.orlandoburli.livraria.exceptions.livro.LivroNaoEncontradoException;
@@ -24,12 +43,23 @@ import br.com.orlandoburli.livraria.exceptions.livro.LivroNaoInformadoException;
 import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioNaoEncontradoException;
 import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioNaoInformadoException;
 import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
+import br.com.orlandoburli.livraria.metricas.MetricasExcecoes;
 import br.com.orlandoburli.livraria.model.Emprestimo;
+import br.com.orlandoburli.livraria.model.Livro;
 import br.com.orlandoburli.livraria.model.Reserva;
 import br.com.orlandoburli.livraria.model.Restricao;
+import br.com.orlandoburli.livraria.model.Usuario;
 import br.com.orlandoburli.livraria.repository.EmprestimoRepository;
+import br.com.orlandoburli.livraria.repository.LivroRepository;
 import br.com.orlandoburli.livraria.repository.ReservaRepository;
 import br.com.orlandoburli.livraria.repository.RestricaoRepository;
+import br.com.orlandoburli.livraria.repository.UsuarioRepository;
+import br.com.orlandoburli.livraria.repository.projections.DisponibilidadeLivroProjection;
+import br.com.orlandoburli.livraria.repository.projections.EmprestimoAbertoProjection;
+import br.com.orlandoburli.livraria.repository.projections.ImpedimentosEmprestimoProjection;
+import br.com.orlandoburli.livraria.repository.projections.ReservaVigenteProjection;
+import br.com.orlandoburli.livraria.repository.projections.SituacaoUsuarioLoteProjection;
+import br.com.orlandoburli.livraria.repository.projections.SituacaoUsuarioProjection;
 import br.com.orlandoburli.livraria.utils.ClockUtils;
 import br.com.orlandoburli.livraria.utils.MessagesService;
 import br.com.orlandoburli.livraria.utils.ValidatorUtils;
@@ -51,8 +81,22 @@ public class EmprestimoService {
 
 	private static final String EMPRESTIMO_JA_DEVOLVIDO_EXCEPTION = "exceptions.EmprestimoJaDevolvidoException";
 
+	private static final String USUARIO_BLOQUEADO_POR_ATRASO_EXCEPTION = "exceptions.UsuarioBloqueadoPorAtrasoException";
+
+	private static final String USUARIO_NAO_ENCONTRADO_EXCEPTION = "exceptions.UsuarioNaoEncontradoException";
+
+	private static final String USUARIO_NAO_INFORMADO_EXCEPTION = "exceptions.UsuarioNaoInformadoException";
+
+	private static final String LIVRO_NAO_ENCONTRADO_EXCEPTION = "exceptions.LivroNaoEncontradoException";
+
+	private static final String LIVRO_NAO_INFORMADO_EXCEPTION = "exceptions.LivroNaoInformadoException";
+
+	private static final String LOTE_INVALIDO_EXCEPTION = "exceptions.LoteInvalidoException";
+
 	private static final int PRAZO_DEVOLUCAO = 30;
 
+	private static final int MAXIMO_ITENS_LOTE = 500;
+
 	@Autowired
 	private EmprestimoRepository repository;
 
@@ -62,6 +106,12 @@ public class EmprestimoService {
 	@Autowired
 	private ReservaRepository reservaRepository;
 
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
+	@Autowired
+	private LivroRepository livroRepository;
+
 	@Autowired
 	private UsuarioService usuarioService;
 
@@ -69,7 +119,13 @@ public class EmprestimoService {
 	private LivroService livroService;
 
 	@Autowired
-	private ConversionService conversionService;
+	private DisponibilidadeLivroCache disponibilidade;
+
+	@Autowired
+	private EmprestimoEntityToDtoConvert entityToDto;
+
+	@Autowired
+	private ReservaDtoToEntityConverter reservaDtoToEntity;
 
 	@Autowired
 	private MessagesService messages;
@@ -83,6 +139,9 @@ public class EmprestimoService {
 	@Autowired(required = false)
 	private NotificacaoService notificacaoService;
 
+	@Autowired
+	private MetricasExcecoes metricasExcecoes;
+
 	/**
 	 * Retorna um emprestimo pelo seu id
 	 *
@@ -95,14 +154,28 @@ public class EmprestimoService {
 	 */
 	public EmprestimoDto get(final Long id) throws EmprestimoNaoEncontradoException, EmprestimoNaoInformadoException {
 
+		return entityToDto.convert(buscaCompleto(id));
+	}
+
+	/**
+	 * Busca um empréstimo com livro, usuário e instituição do usuário
+	 *
+	 * @param id Id do empréstimo
+	 * @return Empréstimo localizado
+	 * @throws EmprestimoNaoEncontradoException Exceção disparada caso o empréstimo
+	 *                                          não tenha sido localizado.
+	 * @throws EmprestimoNaoInformadoException  Exceção disparada caso o id
+	 *                                          informado seja nulo
+	 */
+	private Emprestimo buscaCompleto(final Long id)
+			throws EmprestimoNaoEncontradoException, EmprestimoNaoInformadoException {
+
 		if (id == null) {
 			throw new EmprestimoNaoInformadoException(messages.get("exceptions.EmprestimoNaoInformadoException"));
 		}
 
-		final Emprestimo entity = repository.findById(id).orElseThrow(
+		return repository.findCompletoById(id).orElseThrow(
 				() -> new EmprestimoNaoEncontradoException(messages.get(EMPRESTIMO_NAO_ENCONTRADO_EXCEPTION, id)));
-
-		return conversionService.convert(entity, EmprestimoDto.class);
 	}
 
 	/**
@@ -137,35 +210,509 @@ public class EmprestimoService {
 			LivroNaoInformadoException, ValidationLivrariaException, LivroJaEmprestadoException,
 			MaximoPedidosUsuarioException, UsuarioBloqueadoPorAtrasoException, LivroJaReservadoException {
 
-		final UsuarioDto usuario = usuarioService.get(usuarioId);
+		if (usuarioId == null) {
+			throw new UsuarioNaoInformadoException(messages.get(USUARIO_NAO_INFORMADO_EXCEPTION));
+		}
 
-		final LivroDto livro = livroService.get(livroId);
+		if (livroId == null) {
+			throw new LivroNaoInformadoException(messages.get(LIVRO_NAO_INFORMADO_EXCEPTION));
+		}
 
-		validaImpedimentosUsuario(usuario);
+		final LocalDate hoje = clock.hoje();
 
-		validaImpedimentosLivro(livro, usuario.getId());
+		final LocalDate limiteAtraso = hoje.minusDays(PRAZO_DEVOLUCAO);
 
-		// @formatter:off
-		final EmprestimoDto emprestimo = EmprestimoDto
-				.builder()
-					.livro(livro)
-					.usuario(usuario)
-					.dataEmprestimo(clock.hoje())
-					.status(StatusEmprestimo.ABERTO)
-				.build();
-		// @formatter:on
+		// O índice só evita a tentativa de inserção; o motivo exato da recusa sempre
+		// vem do banco.
+		final boolean provavelmenteDisponivel = !disponibilidade.isSincronizado()
+				|| !disponibilidade.isEmprestado(livroId) && !disponibilidade.isReservado(livroId, usuarioId, hoje);
 
-		final Emprestimo entity = conversionService.convert(emprestimo, Emprestimo.class);
+		if (!provavelmenteDisponivel || !inserirEmprestimo(usuarioId, livroId, hoje, limiteAtraso)) {
+			validaImpedimentosEmprestimo(usuarioId, livroId, hoje, limiteAtraso);
 
-		validator.validate(entity);
+			// Os impedimentos deixaram de existir entre a inserção e a verificação
+			if (!inserirEmprestimo(usuarioId, livroId, hoje, limiteAtraso)) {
+				throw new LivroJaEmprestadoException(messages.get(LIVRO_JA_EMPRESTADO_EXCEPTION, livroId));
+			}
+		}
+
+		disponibilidade.registraEmprestimo(livroId);
 
-		final EmprestimoDto emprestimoDto = conversionService.convert(repository.save(entity), EmprestimoDto.class);
+		final Emprestimo entity = repository.findCompletoByLivroIdAndStatus(livroId, StatusEmprestimo.ABERTO)
+				.orElseThrow(() -> new LivroNaoEncontradoException(messages.get(LIVRO_NAO_ENCONTRADO_EXCEPTION, livroId)));
 
-		emprestimoDto.setDataPrevistaDevolucao(calculaDataDevolucao(emprestimo.getDataEmprestimo()));
+		final EmprestimoDto emprestimoDto = entityToDto.convert(entity);
+
+		emprestimoDto.setDataPrevistaDevolucao(calculaDataDevolucao(emprestimoDto.getDataEmprestimo()));
 
 		return emprestimoDto;
 	}
 
+	/**
+	 * Realiza vários empréstimos de uma só vez. As regras de empréstimo são
+	 * verificadas com uma consulta por tabela para todo o lote, e os empréstimos
+	 * aceitos são inseridos em um único batch JDBC. Um item recusado não impede
+	 * os demais; o resultado de cada item é devolvido na mesma ordem do lote.
+	 *
+	 * @param itens Pares de livro e usuário a serem emprestados
+	 * @return Resultado de cada item do lote
+	 * @throws LoteInvalidoException Exceção disparada caso o lote esteja vazio ou
+	 *                               exceda o máximo de itens permitido
+	 */
+	public List<EmprestimoLoteResultadoDto> emprestarLote(final List<EmprestimoLoteItemDto> itens)
+			throws LoteInvalidoException {
+
+		if (itens == null || itens.isEmpty() || itens.size() > MAXIMO_ITENS_LOTE) {
+			throw new LoteInvalidoException(messages.get(LOTE_INVALIDO_EXCEPTION, MAXIMO_ITENS_LOTE));
+		}
+
+		// As consultas do lote precisam enxergar alterações ainda pendentes na sessão
+		repository.flush();
+
+		final LocalDate hoje = clock.hoje();
+
+		final LocalDate limiteAtraso = hoje.minusDays(PRAZO_DEVOLUCAO);
+
+		final ContextoLote contexto = carregaContextoLote(itens, hoje);
+
+		final List<EmprestimoLoteResultadoDto> resultados = new ArrayList<>(itens.size());
+
+		final List<Emprestimo> aceitos = new ArrayList<>();
+
+		final List<EmprestimoLoteResultadoDto> resultadosAceitos = new ArrayList<>();
+
+		for (final EmprestimoLoteItemDto item : itens) {
+			final Long usuarioId = item == null ? null : item.getUsuario();
+			final Long livroId = item == null ? null : item.getLivro();
+
+			final EmprestimoLoteResultadoDto resultado = EmprestimoLoteResultadoDto.builder().livro(livroId)
+					.usuario(usuarioId).build();
+
+			resultados.add(resultado);
+
+			try {
+				validaItemLote(usuarioId, livroId, contexto);
+			} catch (final LivrariaException e) {
+				recusaItemLote(resultado, e);
+				continue;
+			}
+
+			contexto.registraEmprestimo(usuarioId, livroId);
+
+			// @formatter:off
+			aceitos.add(Emprestimo
+					.builder()
+						.usuario(Usuario.builder().id(usuarioId).build())
+						.livro(Livro.builder().id(livroId).build())
+						.dataEmprestimo(hoje)
+						.status(StatusEmprestimo.ABERTO)
+					.build());
+			// @formatter:on
+
+			resultadosAceitos.add(resultado);
+		}
+
+		if (!aceitos.isEmpty()) {
+			confirmaEmprestimosLote(aceitos, resultadosAceitos, hoje, limiteAtraso);
+		}
+
+		return resultados;
+	}
+
+	/**
+	 * Carrega, com uma consulta para cada tabela, a situação de todos os usuários
+	 * e livros do lote.
+	 *
+	 * @param itens Itens do lote
+	 * @param hoje  Data do empréstimo
+	 * @return Situação dos usuários e livros do lote
+	 */
+	private ContextoLote carregaContextoLote(final List<EmprestimoLoteItemDto> itens, final LocalDate hoje) {
+		final Set<Long> usuarioIds = itens.stream().filter(Objects::nonNull).map(EmprestimoLoteItemDto::getUsuario)
+				.filter(Objects::nonNull).collect(Collectors.toSet());
+
+		final Set<Long> livroIds = itens.stream().filter(Objects::nonNull).map(EmprestimoLoteItemDto::getLivro)
+				.filter(Objects::nonNull).collect(Collectors.toSet());
+
+		final ContextoLote contexto = new ContextoLote();
+
+		if (!usuarioIds.isEmpty()) {
+			contexto.usuarios = usuarioRepository
+					.findSituacaoUsuarios(usuarioIds, Status.ATIVO, StatusEmprestimo.ABERTO).stream()
+					.collect(Collectors.toMap(SituacaoUsuarioLoteProjection::getUsuarioId, Function.identity()));
+		}
+
+		if (!livroIds.isEmpty()) {
+			contexto.livros = livroRepository.findDisponibilidade(livroIds, Status.ATIVO, StatusEmprestimo.ABERTO)
+					.stream().collect(Collectors.toMap(DisponibilidadeLivroProjection::getLivroId,
+							DisponibilidadeLivroProjection::getEmprestimosAbertos));
+
+			contexto.reservas = reservaRepository.findVigentesPorLivros(livroIds, hoje).stream()
+					.collect(Collectors.groupingBy(ReservaVigenteProjection::getLivroId));
+		}
+
+		return contexto;
+	}
+
+	/**
+	 * Verifica as regras de empréstimo de um item do lote, na mesma ordem de
+	 * prioridade do empréstimo individual.
+	 *
+	 * @param usuarioId Id do usuário
+	 * @param livroId   Id do livro
+	 * @param contexto  Situação dos usuários e livros do lote
+	 * @throws LivrariaException Exceção correspondente ao primeiro impedimento
+	 *                           encontrado
+	 */
+	private void validaItemLote(final Long usuarioId, final Long livroId, final ContextoLote contexto)
+			throws LivrariaException {
+
+		if (usuarioId == null) {
+			throw new UsuarioNaoInformadoException(messages.get(USUARIO_NAO_INFORMADO_EXCEPTION));
+		}
+
+		if (livroId == null) {
+			throw new LivroNaoInformadoException(messages.get(LIVRO_NAO_INFORMADO_EXCEPTION));
+		}
+
+		final SituacaoUsuarioLoteProjection situacao = contexto.usuarios.get(usuarioId);
+
+		if (situacao == null) {
+			throw new UsuarioNaoEncontradoException(messages.get(USUARIO_NAO_ENCONTRADO_EXCEPTION, usuarioId));
+		}
+
+		final Long emprestimosLivro = contexto.livros.get(livroId);
+
+		if (emprestimosLivro == null) {
+			throw new LivroNaoEncontradoException(messages.get(LIVRO_NAO_ENCONTRADO_EXCEPTION, livroId));
+		}
+
+		if (situacao.getTotalAbertos() + contexto.emprestimosNoLote(usuarioId) >= MAXIMO_LIVROS_POR_USUARIO) {
+			throw new MaximoPedidosUsuarioException(messages.get(MAXIMO_PEDIDOS_USUARIO_EXCEPTION, usuarioId));
+		}
+
+		if (isUsuarioRestrito(situacao) || isUsuarioComEmprestimoAtrasado(situacao)) {
+			throw new UsuarioBloqueadoPorAtrasoException(messages.get(USUARIO_BLOQUEADO_POR_ATRASO_EXCEPTION, usuarioId));
+		}
+
+		if (emprestimosLivro > 0 || contexto.livrosEmprestados.contains(livroId)) {
+			throw new LivroJaEmprestadoException(messages.get(LIVRO_JA_EMPRESTADO_EXCEPTION, livroId));
+		}
+
+		final boolean reservadoParaOutro = contexto.reservas.getOrDefault(livroId, Collections.emptyList()).stream()
+				.anyMatch(r -> !r.getUsuarioId().equals(usuarioId));
+
+		if (reservadoParaOutro) {
+			throw new LivroJaReservadoException(messages.get(LIVRO_JA_RESERVADO_EXCEPTION, livroId));
+		}
+	}
+
+	/**
+	 * Insere os empréstimos aceitos do lote e preenche os resultados. Itens
+	 * recusados pela inserção condicional, por alterações concorrentes desde a
+	 * validação do lote, recebem o motivo levantado no banco.
+	 *
+	 * @param aceitos      Empréstimos aceitos na validação do lote
+	 * @param resultados   Resultados correspondentes aos empréstimos aceitos
+	 * @param hoje         Data do empréstimo
+	 * @param limiteAtraso Data a partir da qual empréstimos abertos estão em
+	 *                     atraso
+	 */
+	private void confirmaEmprestimosLote(final List<Emprestimo> aceitos,
+			final List<EmprestimoLoteResultadoDto> resultados, final LocalDate hoje, final LocalDate limiteAtraso) {
+
+		final int[] inseridos = repository.emprestarEmLote(aceitos, limiteAtraso, MAXIMO_LIVROS_POR_USUARIO);
+
+		final Map<Long, EmprestimoAbertoProjection> abertos = repository
+				.findAbertosPorLivros(aceitos.stream().map(e -> e.getLivro().getId()).collect(Collectors.toSet()),
+						StatusEmprestimo.ABERTO)
+				.stream().collect(Collectors.toMap(EmprestimoAbertoProjection::getLivroId, Function.identity()));
+
+		for (int i = 0; i < aceitos.size(); i++) {
+			final Long usuarioId = aceitos.get(i).getUsuario().getId();
+			final Long livroId = aceitos.get(i).getLivro().getId();
+			final EmprestimoLoteResultadoDto resultado = resultados.get(i);
+
+			final EmprestimoAbertoProjection aberto = abertos.get(livroId);
+
+			if (inseridos[i] != 0 && aberto != null && aberto.getUsuarioId().equals(usuarioId)) {
+				resultado.setSucesso(true);
+				resultado.setEmprestimo(aberto.getId());
+
+				disponibilidade.registraEmprestimo(livroId);
+				continue;
+			}
+
+			try {
+				validaImpedimentosEmprestimo(usuarioId, livroId, hoje, limiteAtraso);
+
+				throw new LivroJaEmprestadoException(messages.get(LIVRO_JA_EMPRESTADO_EXCEPTION, livroId));
+			} catch (final LivrariaException e) {
+				recusaItemLote(resultado, e);
+			}
+		}
+	}
+
+	/**
+	 * Devolve vários empréstimos de uma só vez. Os empréstimos são lidos com uma
+	 * única consulta, devolvidos em um único batch JDBC e as restrições dos
+	 * devolvidos com atraso são inseridas em outro batch. As notificações de
+	 * atraso são publicadas juntas ao final. Um item recusado não impede os
+	 * demais; o resultado de cada item é devolvido na mesma ordem do lote.
+	 *
+	 * @param ids Ids dos empréstimos a serem devolvidos
+	 * @return Resultado de cada item do lote
+	 * @throws LoteInvalidoException Exceção disparada caso o lote esteja vazio ou
+	 *                               exceda o máximo de itens permitido
+	 */
+	public List<DevolucaoLoteResultadoDto> devolverLote(final List<Long> ids) throws LoteInvalidoException {
+
+		if (ids == null || ids.isEmpty() || ids.size() > MAXIMO_ITENS_LOTE) {
+			throw new LoteInvalidoException(messages.get(LOTE_INVALIDO_EXCEPTION, MAXIMO_ITENS_LOTE));
+		}
+
+		repository.flush();
+
+		final LocalDate hoje = clock.hoje();
+
+		final Map<Long, Emprestimo> emprestimos = repository
+				.findCompletoByIdIn(ids.stream().filter(Objects::nonNull).collect(Collectors.toSet())).stream()
+				.collect(Collectors.toMap(Emprestimo::getId, Function.identity()));
+
+		final List<DevolucaoLoteResultadoDto> resultados = new ArrayList<>(ids.size());
+
+		final List<Emprestimo> aceitos = new ArrayList<>();
+
+		final List<DevolucaoLoteResultadoDto> resultadosAceitos = new ArrayList<>();
+
+		final Set<Long> idsNoLote = new HashSet<>();
+
+		for (final Long id : ids) {
+			final DevolucaoLoteResultadoDto resultado = DevolucaoLoteResultadoDto.builder().emprestimo(id).build();
+
+			resultados.add(resultado);
+
+			try {
+				validaItemDevolucaoLote(id, emprestimos.get(id), idsNoLote);
+			} catch (final LivrariaException e) {
+				recusaItemLote(resultado, e);
+				continue;
+			}
+
+			idsNoLote.add(id);
+
+			aceitos.add(emprestimos.get(id));
+
+			resultadosAceitos.add(resultado);
+		}
+
+		if (!aceitos.isEmpty()) {
+			confirmaDevolucoesLote(aceitos, resultadosAceitos, hoje);
+		}
+
+		return resultados;
+	}
+
+	/**
+	 * Verifica se um item do lote pode ser devolvido
+	 *
+	 * @param id         Id do empréstimo
+	 * @param emprestimo Empréstimo localizado, ou <b>null</b>
+	 * @param idsNoLote  Ids dos empréstimos já aceitos no lote
+	 * @throws LivrariaException Exceção correspondente ao impedimento encontrado
+	 */
+	private void validaItemDevolucaoLote(final Long id, final Emprestimo emprestimo, final Set<Long> idsNoLote)
+			throws LivrariaException {
+
+		if (id == null) {
+			throw new EmprestimoNaoInformadoException(messages.get("exceptions.EmprestimoNaoInformadoException"));
+		}
+
+		if (emprestimo == null) {
+			throw new EmprestimoNaoEncontradoException(messages.get(EMPRESTIMO_NAO_ENCONTRADO_EXCEPTION, id));
+		}
+
+		if (emprestimo.getStatus() == StatusEmprestimo.DEVOLVIDO || idsNoLote.contains(id)) {
+			throw new EmprestimoJaDevolvidoException(messages.get(EMPRESTIMO_JA_DEVOLVIDO_EXCEPTION, id));
+		}
+	}
+
+	/**
+	 * Devolve os empréstimos aceitos do lote, registra as restrições dos
+	 * devolvidos com atraso e publica as notificações. Empréstimos devolvidos
+	 * concorrentemente desde a leitura do lote são recusados.
+	 *
+	 * @param aceitos    Empréstimos aceitos na validação do lote
+	 * @param resultados Resultados correspondentes aos empréstimos aceitos
+	 * @param hoje       Data da devolução
+	 */
+	private void confirmaDevolucoesLote(final List<Emprestimo> aceitos,
+			final List<DevolucaoLoteResultadoDto> resultados, final LocalDate hoje) {
+
+		final int[] devolvidos = repository.devolverEmLote(aceitos, hoje);
+
+		final LocalDate restritoAte = calculaDataRestricao(hoje);
+
+		final List<Long> atrasados = new ArrayList<>();
+
+		final List<EmprestimoDto> notificacoes = new ArrayList<>();
+
+		for (int i = 0; i < aceitos.size(); i++) {
+			final Emprestimo emprestimo = aceitos.get(i);
+			final DevolucaoLoteResultadoDto resultado = resultados.get(i);
+
+			if (devolvidos[i] == 0) {
+				recusaItemLote(resultado, new EmprestimoJaDevolvidoException(
+						messages.get(EMPRESTIMO_JA_DEVOLVIDO_EXCEPTION, emprestimo.getId())));
+				continue;
+			}
+
+			resultado.setSucesso(true);
+
+			disponibilidade.registraDevolucao(emprestimo.getLivro().getId());
+
+			if (!isEmprestimoNoPrazo(emprestimo.getDataEmprestimo())) {
+				resultado.setRestritoAte(restritoAte);
+
+				atrasados.add(emprestimo.getId());
+
+				final EmprestimoDto emprestimoDto = entityToDto.convert(emprestimo);
+				emprestimoDto.setDataPrevistaDevolucao(calculaDataDevolucao(emprestimoDto.getDataEmprestimo()));
+
+				notificacoes.add(emprestimoDto);
+			}
+		}
+
+		if (!atrasados.isEmpty()) {
+			restricaoRepository.restringirEmLote(atrasados, restritoAte);
+
+			notificacaoService.notificarEntregasComAtraso(notificacoes);
+		}
+	}
+
+	private void recusaItemLote(final EmprestimoLoteResultadoDto resultado, final LivrariaException e) {
+		metricasExcecoes.registra(e);
+
+		resultado.setSucesso(false);
+		resultado.setMotivo(e.getClass().getSimpleName());
+		resultado.setMensagem(e.getMessage());
+	}
+
+	private void recusaItemLote(final DevolucaoLoteResultadoDto resultado, final LivrariaException e) {
+		metricasExcecoes.registra(e);
+
+		resultado.setSucesso(false);
+		resultado.setMotivo(e.getClass().getSimpleName());
+		resultado.setMensagem(e.getMessage());
+	}
+
+	/**
+	 * Situação dos usuários e livros de um lote de empréstimos, atualizada à
+	 * medida que os itens do lote são aceitos.
+	 */
+	private static final class ContextoLote {
+
+		private Map<Long, SituacaoUsuarioLoteProjection> usuarios = Collections.emptyMap();
+
+		private Map<Long, Long> livros = Collections.emptyMap();
+
+		private Map<Long, List<ReservaVigenteProjection>> reservas = Collections.emptyMap();
+
+		private final Map<Long, Integer> emprestimosPorUsuario = new HashMap<>();
+
+		private final Set<Long> livrosEmprestados = new HashSet<>();
+
+		private int emprestimosNoLote(final Long usuarioId) {
+			return emprestimosPorUsuario.getOrDefault(usuarioId, 0);
+		}
+
+		private void registraEmprestimo(final Long usuarioId, final Long livroId) {
+			emprestimosPorUsuario.merge(usuarioId, 1, Integer::sum);
+			livrosEmprestados.add(livroId);
+		}
+	}
+
+	/**
+	 * Tenta inserir o empréstimo com um único comando condicional. Caso outro
+	 * empréstimo em aberto do mesmo livro seja inserido concorrentemente, o índice
+	 * único do banco rejeita a inserção, e a violação é traduzida para
+	 * {@link LivroJaEmprestadoException}.
+	 *
+	 * @param usuarioId    Id do usuário
+	 * @param livroId      Id do livro
+	 * @param hoje         Data do empréstimo
+	 * @param limiteAtraso Data a partir da qual empréstimos abertos estão em
+	 *                     atraso
+	 * @return <b>true</b> caso o empréstimo tenha sido inserido
+	 * @throws LivroJaEmprestadoException Exceção disparada caso o livro tenha sido
+	 *                                    emprestado concorrentemente
+	 */
+	private boolean inserirEmprestimo(final Long usuarioId, final Long livroId, final LocalDate hoje,
+			final LocalDate limiteAtraso) throws LivroJaEmprestadoException {
+		try {
+			return repository.emprestarSeDisponivel(usuarioId, livroId, hoje, limiteAtraso,
+					MAXIMO_LIVROS_POR_USUARIO) > 0;
+		} catch (final DataIntegrityViolationException e) {
+			throw new LivroJaEmprestadoException(messages.get(LIVRO_JA_EMPRESTADO_EXCEPTION, livroId));
+		}
+	}
+
+	/**
+	 * Identifica o impedimento que fez o empréstimo ser recusado, na mesma ordem
+	 * de prioridade das validações de usuário e livro.
+	 *
+	 * @param usuarioId    Id do usuário
+	 * @param livroId      Id do livro
+	 * @param hoje         Data do empréstimo
+	 * @param limiteAtraso Data a partir da qual empréstimos abertos estão em
+	 *                     atraso
+	 * @throws UsuarioNaoEncontradoException      Exceção disparada caso o usuário
+	 *                                            não seja encontrado
+	 * @throws LivroNaoEncontradoException        Exceção disparada caso o Livro não
+	 *                                            seja encontrado
+	 * @throws MaximoPedidosUsuarioException      Exceção disparada caso o máximo de
+	 *                                            emprestimos já tenha sido feito
+	 *                                            pelo usuario
+	 * @throws UsuarioBloqueadoPorAtrasoException Exceção disparada caso o usuário
+	 *                                            esteja bloqueado por atraso
+	 * @throws LivroJaEmprestadoException         Exceção disparada caso o livro já
+	 *                                            esteja emprestado
+	 * @throws LivroJaReservadoException          Exceção disparada caso o livro já
+	 *                                            esteja reservado para alguém
+	 */
+	private void validaImpedimentosEmprestimo(final Long usuarioId, final Long livroId, final LocalDate hoje,
+			final LocalDate limiteAtraso) throws UsuarioNaoEncontradoException, LivroNaoEncontradoException,
+			MaximoPedidosUsuarioException, UsuarioBloqueadoPorAtrasoException, LivroJaEmprestadoException,
+			LivroJaReservadoException {
+
+		final ImpedimentosEmprestimoProjection impedimentos = repository.findImpedimentosEmprestimo(usuarioId,
+				livroId, hoje, limiteAtraso);
+
+		if (impedimentos.getUsuarioAtivo() == 0) {
+			throw new UsuarioNaoEncontradoException(messages.get(USUARIO_NAO_ENCONTRADO_EXCEPTION, usuarioId));
+		}
+
+		if (impedimentos.getLivroAtivo() == 0) {
+			throw new LivroNaoEncontradoException(messages.get(LIVRO_NAO_ENCONTRADO_EXCEPTION, livroId));
+		}
+
+		if (impedimentos.getEmprestimosAbertos() >= MAXIMO_LIVROS_POR_USUARIO) {
+			throw new MaximoPedidosUsuarioException(messages.get(MAXIMO_PEDIDOS_USUARIO_EXCEPTION, usuarioId));
+		}
+
+		if (impedimentos.getEmprestimosAtrasados() > 0 || impedimentos.getRestricoesVigentes() > 0) {
+			throw new UsuarioBloqueadoPorAtrasoException(messages.get(USUARIO_BLOQUEADO_POR_ATRASO_EXCEPTION, usuarioId));
+		}
+
+		if (impedimentos.getLivroEmprestado() > 0) {
+			throw new LivroJaEmprestadoException(messages.get(LIVRO_JA_EMPRESTADO_EXCEPTION, livroId));
+		}
+
+		if (impedimentos.getReservasOutrosUsuarios() > 0) {
+			throw new LivroJaReservadoException(messages.get(LIVRO_JA_RESERVADO_EXCEPTION, livroId));
+		}
+	}
+
 	/**
 	 * Devolve um livro
 	 *
@@ -181,21 +728,34 @@ public class EmprestimoService {
 	 */
 	public void devolver(final Long id) throws EmprestimoNaoEncontradoException, EmprestimoJaDevolvidoException,
 			EmprestimoNaoInformadoException, ValidationLivrariaException {
-		final EmprestimoDto emprestimo = get(id);
+		final Emprestimo emprestimo = buscaCompleto(id);
 
 		validaLivroPodeSerDevolvido(emprestimo);
 
-		emprestimo.setStatus(StatusEmprestimo.DEVOLVIDO);
-		emprestimo.setDataDevolucao(clock.hoje());
-
-		final Emprestimo entity = conversionService.convert(emprestimo, Emprestimo.class);
+		// Cópia do empréstimo lido, reaproveitando livro e usuário já carregados. A
+		// entidade lida não é alterada antes da validação.
+		// @formatter:off
+		final Emprestimo entity = Emprestimo
+				.builder()
+					.id(emprestimo.getId())
+					.usuario(emprestimo.getUsuario())
+					.livro(emprestimo.getLivro())
+					.dataEmprestimo(emprestimo.getDataEmprestimo())
+					.dataDevolucao(clock.hoje())
+					.status(StatusEmprestimo.DEVOLVIDO)
+				.build();
+		// @formatter:on
 
-		validator.validate(entity);
+		// Livro, usuário e data do empréstimo vieram do banco, somente os campos da
+		// devolução são validados
+		validator.validate(entity, Devolucao.class);
 
 		repository.save(entity);
 
-		if (!isEmprestimoNoPrazo(emprestimo.getDataEmprestimo())) {
-			registraInadimplenciaUsuario(emprestimo);
+		disponibilidade.registraDevolucao(entity.getLivro().getId());
+
+		if (!isEmprestimoNoPrazo(entity.getDataEmprestimo())) {
+			registraInadimplenciaUsuario(entityToDto.convert(entity));
 		}
 	}
 
@@ -248,9 +808,14 @@ public class EmprestimoService {
 				.build();
 		// @formatter:on
 
-		final Reserva created = reservaRepository.save(conversionService.convert(reserva, Reserva.class));
+		final Reserva created = reservaRepository.save(reservaDtoToEntity.convert(reserva));
 
-		return conversionService.convert(created, ReservaDto.class);
+		disponibilidade.registraReserva(livro.getId(), usuario.getId(), dataReserva, clock.hoje());
+
+		// Livro e usuário já estão em mãos, a entidade gravada só fornece o id
+		reserva.setId(created.getId());
+
+		return reserva;
 	}
 
 	/**
@@ -266,13 +831,54 @@ public class EmprestimoService {
 	 */
 	public void validaImpedimentosLivro(final LivroDto livro, final Long usuarioId)
 			throws LivroJaEmprestadoException, LivroJaReservadoException {
-		if (repository.findByLivroIdAndStatus(livro.getId(), StatusEmprestimo.ABERTO).isPresent()) {
+		if (disponibilidade.isSincronizado()) {
+			validaImpedimentosLivroIndice(livro, usuarioId);
+		} else {
+			validaImpedimentosLivroBanco(livro, usuarioId);
+		}
+	}
+
+	/**
+	 * Verifica os impedimentos do livro pelo índice de disponibilidade em memória,
+	 * sem consultar o banco de dados.
+	 *
+	 * @param livro     Livro a ser verificado
+	 * @param usuarioId Id do usuário para ser excluído da pesquisa de reservas.
+	 * @throws LivroJaEmprestadoException Exceção disparada caso o livro já esteja
+	 *                                    emprestado para alguém
+	 * @throws LivroJaReservadoException  Exceção disparada caso o livro já esteja
+	 *                                    reservado para alguém
+	 */
+	private void validaImpedimentosLivroIndice(final LivroDto livro, final Long usuarioId)
+			throws LivroJaEmprestadoException, LivroJaReservadoException {
+		if (disponibilidade.isEmprestado(livro.getId())) {
 			throw new LivroJaEmprestadoException(messages.get(LIVRO_JA_EMPRESTADO_EXCEPTION, livro.getId()));
 		}
 
-		if (reservaRepository
-				.findByLivroIdAndDataReservaGreaterThanEqualAndUsuarioIdNot(livro.getId(), clock.hoje(), usuarioId)
-				.isPresent()) {
+		if (disponibilidade.isReservado(livro.getId(), usuarioId, clock.hoje())) {
+			throw new LivroJaReservadoException(messages.get(LIVRO_JA_RESERVADO_EXCEPTION, livro.getId()));
+		}
+	}
+
+	/**
+	 * Verifica os impedimentos do livro diretamente no banco de dados. Usado
+	 * enquanto o índice de disponibilidade não estiver sincronizado.
+	 *
+	 * @param livro     Livro a ser verificado
+	 * @param usuarioId Id do usuário para ser excluído da pesquisa de reservas.
+	 * @throws LivroJaEmprestadoException Exceção disparada caso o livro já esteja
+	 *                                    emprestado para alguém
+	 * @throws LivroJaReservadoException  Exceção disparada caso o livro já esteja
+	 *                                    reservado para alguém
+	 */
+	private void validaImpedimentosLivroBanco(final LivroDto livro, final Long usuarioId)
+			throws LivroJaEmprestadoException, LivroJaReservadoException {
+		if (repository.existsByLivroIdAndStatus(livro.getId(), StatusEmprestimo.ABERTO)) {
+			throw new LivroJaEmprestadoException(messages.get(LIVRO_JA_EMPRESTADO_EXCEPTION, livro.getId()));
+		}
+
+		if (reservaRepository.existsByLivroIdAndDataReservaGreaterThanEqualAndUsuarioIdNot(livro.getId(),
+				clock.hoje(), usuarioId)) {
 			throw new LivroJaReservadoException(messages.get(LIVRO_JA_RESERVADO_EXCEPTION, livro.getId()));
 		}
 	}
@@ -290,25 +896,40 @@ public class EmprestimoService {
 	 */
 	public void validaImpedimentosUsuario(final UsuarioDto usuario)
 			throws MaximoPedidosUsuarioException, UsuarioBloqueadoPorAtrasoException {
-		final List<Emprestimo> livrosEmprestados = repository.findByUsuarioIdAndStatus(usuario.getId(),
+		final SituacaoUsuarioProjection situacao = repository.findSituacaoUsuario(usuario.getId(),
 				StatusEmprestimo.ABERTO);
 
-		if (livrosEmprestados.size() >= MAXIMO_LIVROS_POR_USUARIO) {
+		if (situacao.getTotalAbertos() >= MAXIMO_LIVROS_POR_USUARIO) {
 			throw new MaximoPedidosUsuarioException(messages.get(MAXIMO_PEDIDOS_USUARIO_EXCEPTION, usuario.getId()));
 		}
 
-		final long livrosEmprestadosAtrasados = livrosEmprestados.stream()
-				.filter(l -> !isEmprestimoNoPrazo(l.getDataEmprestimo())).count();
-
-		final Long totalRestricoesHoje = restricaoRepository
-				.countByEmprestimoUsuarioIdAndRestritoAteGreaterThanEqual(usuario.getId(), clock.hoje());
-
-		if (totalRestricoesHoje > 0 || livrosEmprestadosAtrasados > 0) {
+		if (isUsuarioRestrito(situacao) || isUsuarioComEmprestimoAtrasado(situacao)) {
 			throw new UsuarioBloqueadoPorAtrasoException(
-					messages.get("exceptions.UsuarioBloqueadoPorAtrasoException", usuario.getId()));
+					messages.get(USUARIO_BLOQUEADO_POR_ATRASO_EXCEPTION, usuario.getId()));
 		}
 	}
 
+	/**
+	 * Identifica se o usuário possui restrição vigente por devolução em atraso
+	 *
+	 * @param situacao Situação de empréstimos do usuário
+	 * @return <b>true</b> se o usuário estiver restrito
+	 */
+	private boolean isUsuarioRestrito(final SituacaoUsuarioProjection situacao) {
+		return situacao.getRestritoAte() != null && !situacao.getRestritoAte().isBefore(clock.hoje());
+	}
+
+	/**
+	 * Identifica se o usuário possui algum empréstimo em aberto fora do prazo.
+	 * Basta verificar o empréstimo aberto mais antigo.
+	 *
+	 * @param situacao Situação de empréstimos do usuário
+	 * @return <b>true</b> se houver empréstimo atrasado
+	 */
+	private boolean isUsuarioComEmprestimoAtrasado(final SituacaoUsuarioProjection situacao) {
+		return situacao.getPrimeiroEmprestimo() != null && !isEmprestimoNoPrazo(situacao.getPrimeiroEmprestimo());
+	}
+
 	/**
 	 * Cria um registro de inadimplência para o usuário, bloqueando-o por 30 dias.
 	 *
@@ -318,7 +939,7 @@ public class EmprestimoService {
 		// @formatter:off
 			final Restricao restricao = Restricao
 				.builder()
-					.emprestimo(repository.findById(emprestimo.getId()).orElse(null))
+					.emprestimo(repository.getOne(emprestimo.getId()))
 					.restritoAte(calculaDataRestricao(clock.hoje()))
 				.build();
 		// @formatter:on
@@ -346,7 +967,7 @@ public class EmprestimoService {
 	 * @throws EmprestimoJaDevolvidoException Exceção disparada caso o empréstimo já
 	 *                                        tenha sido devolvido
 	 */
-	private void validaLivroPodeSerDevolvido(final EmprestimoDto emprestimo) throws EmprestimoJaDevolvidoException {
+	private void validaLivroPodeSerDevolvido(final Emprestimo emprestimo) throws EmprestimoJaDevolvidoException {
 		if (emprestimo.getStatus() == StatusEmprestimo.DEVOLVIDO) {
 			throw new EmprestimoJaDevolvidoException(
 					messages.get(EMPRESTIMO_JA_DEVOLVIDO_EXCEPTION, emprestimo.getId()));
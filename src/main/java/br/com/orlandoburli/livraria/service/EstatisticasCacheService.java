@@ -0,0 +1,87 @@
+package br.com.orlandoburli.livraria.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import br.com.orlandoburli.livraria.cache.CacheLeitura;
+import br.com.orlandoburli.livraria.dto.EstatisticaCacheDto;
+
+/**
+ * Reúne os contadores das regiões do cache de segundo nível do Hibernate e dos
+ * caches de leitura dos serviços.
+ */
+@Service
+public class EstatisticasCacheService {
+
+	public static final String TIPO_SEGUNDO_NIVEL = "segundo-nivel";
+
+	public static final String TIPO_LEITURA = "leitura";
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private List<CacheLeitura<?>> caches;
+
+	/**
+	 * Lista as estatísticas de cada região de cache. As do cache de segundo nível
+	 * só são coletadas com <i>hibernate.generate_statistics</i> habilitado.
+	 *
+	 * @return Estatísticas das regiões, ordenadas por tipo e nome
+	 */
+	public List<EstatisticaCacheDto> list() {
+		final List<EstatisticaCacheDto> estatisticas = new ArrayList<>();
+
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		final String[] regioes = statistics.getSecondLevelCacheRegionNames();
+		Arrays.sort(regioes);
+
+		for (final String regiao : regioes) {
+			final CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(regiao);
+
+			if (regionStatistics != null) {
+				// @formatter:off
+				estatisticas.add(EstatisticaCacheDto
+						.builder()
+							.regiao(regiao)
+							.tipo(TIPO_SEGUNDO_NIVEL)
+							.acertos(regionStatistics.getHitCount())
+							.falhas(regionStatistics.getMissCount())
+							.gravacoes(regionStatistics.getPutCount())
+							.tamanho(tamanho(regionStatistics.getElementCountInMemory()))
+						.build());
+				// @formatter:on
+			}
+		}
+
+		caches.stream().sorted((a, b) -> a.getNome().compareTo(b.getNome())).forEach(cache ->
+			// @formatter:off
+			estatisticas.add(EstatisticaCacheDto
+					.builder()
+						.regiao(cache.getNome())
+						.tipo(TIPO_LEITURA)
+						.acertos(cache.getAcertos())
+						.falhas(cache.getFalhas())
+						.descartes(cache.getDescartes())
+						.tamanho((long) cache.getTamanho())
+					.build())
+			// @formatter:on
+		);
+
+		return estatisticas;
+	}
+
+	private static Long tamanho(final long elementos) {
+		return elementos < 0 ? null : elementos;
+	}
+}
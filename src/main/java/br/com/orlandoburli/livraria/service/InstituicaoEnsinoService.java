@@ -1,10 +1,13 @@
 package br.com.orlandoburli.livraria.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.convert.ConversionService;
 import org.springframework.stereotype.Service;
 
+import br.com.orlandoburli.livraria.cache.CacheLeitura;
+import br.com.orlandoburli.livraria.converters.instuicaoensino.InstituicaoEnsinoDtoToEntityConverter;
+import br.com.orlandoburli.livraria.converters.instuicaoensino.InstituicaoEnsinoEntityToDtoConverter;
 import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
 import br.com.orlandoburli.livraria.enums.Status;
 import br.com.orlandoburli.livraria.exceptions.instituicaoensino.CnpjJaExistenteException;
 import br.com.orlandoburli.livraria.exceptions.instituicaoensino.InstituicaoEnsinoComUsuariosException;
@@ -27,7 +30,10 @@ public class InstituicaoEnsinoService {
 	private static final String INSTITUICAO_ENSINO_NAO_ENCONTRADA_EXCEPTION = "exceptions.InstituicaoEnsinoNaoEncontradaException";
 
 	@Autowired
-	private ConversionService conversionService;
+	private InstituicaoEnsinoEntityToDtoConverter entityToDto;
+
+	@Autowired
+	private InstituicaoEnsinoDtoToEntityConverter dtoToEntity;
 
 	@Autowired
 	private ValidatorUtils validatorUtils;
@@ -38,6 +44,15 @@ public class InstituicaoEnsinoService {
 	@Autowired
 	private UsuarioRepository usuarioRepository;
 
+	@Autowired
+	private CacheLeitura<InstituicaoEnsinoDto> instituicaoEnsinoCache;
+
+	/**
+	 * Os usuários em cache levam os dados da sua instituição.
+	 */
+	@Autowired
+	private CacheLeitura<UsuarioDto> usuarioCache;
+
 	@Autowired
 	private MessagesService messages;
 
@@ -51,11 +66,15 @@ public class InstituicaoEnsinoService {
 	 *                                                 seja encontrada.
 	 */
 	public InstituicaoEnsinoDto get(final Long id) throws InstituicaoEnsinoNaoEncontradaException {
-		final InstituicaoEnsino entity = repository.findByIdAndStatus(id, Status.ATIVO)
+		if (id == null) {
+			throw new InstituicaoEnsinoNaoEncontradaException(messages.get(INSTITUICAO_ENSINO_NAO_ENCONTRADA_EXCEPTION, id));
+		}
+
+		return instituicaoEnsinoCache
+				.get(id, i -> repository.findByIdAndStatus(i, Status.ATIVO)
+						.map(entityToDto::convert))
 				.orElseThrow(() -> new InstituicaoEnsinoNaoEncontradaException(
 						messages.get(INSTITUICAO_ENSINO_NAO_ENCONTRADA_EXCEPTION, id)));
-
-		return conversionService.convert(entity, InstituicaoEnsinoDto.class);
 	}
 
 	/**
@@ -78,7 +97,7 @@ public class InstituicaoEnsinoService {
 
 		instituicaoEnsino.setStatus(Status.ATIVO);
 
-		final InstituicaoEnsino entity = conversionService.convert(instituicaoEnsino, InstituicaoEnsino.class);
+		final InstituicaoEnsino entity = dtoToEntity.convert(instituicaoEnsino);
 
 		validatorUtils.validate(entity);
 
@@ -86,7 +105,9 @@ public class InstituicaoEnsinoService {
 
 		final InstituicaoEnsino saved = repository.save(entity);
 
-		return conversionService.convert(saved, InstituicaoEnsinoDto.class);
+		instituicaoEnsinoCache.invalida(saved.getId());
+
+		return entityToDto.convert(saved);
 	}
 
 	/**
@@ -115,7 +136,7 @@ public class InstituicaoEnsinoService {
 
 		validaInstituicaoExistente(instituicaoEnsino.getId());
 
-		final InstituicaoEnsino entity = conversionService.convert(instituicaoEnsino, InstituicaoEnsino.class);
+		final InstituicaoEnsino entity = dtoToEntity.convert(instituicaoEnsino);
 
 		entity.setStatus(Status.ATIVO);
 
@@ -125,7 +146,10 @@ public class InstituicaoEnsinoService {
 
 		final InstituicaoEnsino saved = repository.save(entity);
 
-		return conversionService.convert(saved, InstituicaoEnsinoDto.class);
+		instituicaoEnsinoCache.invalida(saved.getId());
+		usuarioCache.invalidaTodos();
+
+		return entityToDto.convert(saved);
 	}
 
 	/**
@@ -154,6 +178,8 @@ public class InstituicaoEnsinoService {
 
 		repository.save(entity);
 
+		instituicaoEnsinoCache.invalida(id);
+		usuarioCache.invalidaTodos();
 	}
 
 	/**
@@ -0,0 +1,120 @@
+package br.com.orlandoburli.livraria.service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.orlandoburli.livraria.repository.CapaRepository;
+import br.com.orlandoburli.livraria.storage.CapaStorage;
+import br.com.orlandoburli.livraria.utils.ClockUtils;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remoção das imagens de capa que nenhuma capa usa mais.
+ *
+ * Uma imagem sem uso pode estar sendo gravada novamente por um upload ainda
+ * não confirmado, com o mesmo conteúdo. Por isso as referências são conferidas
+ * em uma transação nova, que enxerga somente o que já foi confirmado, e só são
+ * removidas imagens gravadas há mais de <i>livraria.capas.limpeza.carencia-ms</i>:
+ * o upload renova a data de gravação da imagem antes do seu commit. As imagens
+ * mantidas pela carência são removidas pela varredura periódica.
+ */
+@Service
+@Slf4j
+public class LimpezaCapasService {
+
+	private static final int TAMANHO_LOTE = 500;
+
+	@Autowired
+	private CapaRepository capaRepository;
+
+	@Autowired
+	private CapaStorage capaStorage;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ClockUtils clock;
+
+	@Value("${livraria.capas.limpeza.carencia-ms:3600000}")
+	private long carenciaMs;
+
+	private TransactionTemplate transactionTemplate;
+
+	@PostConstruct
+	private void init() {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * Remove a imagem caso nenhuma capa confirmada a use e ela tenha sido gravada
+	 * antes da carência. Deve ser chamado após o commit.
+	 *
+	 * @param hash SHA-1 da imagem
+	 */
+	public void removeSeSemUso(final String hash) {
+		final Instant limite = limite();
+
+		try {
+			if (transactionTemplate.execute(status -> capaRepository.countByHash(hash)) == 0
+					&& !capaStorage.remover(hash, limite)) {
+				log.debug("Imagem de capa {} gravada recentemente, será removida na próxima varredura", hash);
+			}
+		} catch (final IOException | RuntimeException e) {
+			log.warn("Não foi possível remover a imagem de capa {}", hash, e);
+		}
+	}
+
+	/**
+	 * Percorre o armazenamento e remove as imagens gravadas antes da carência que
+	 * nenhuma capa confirmada usa. As referências são consultadas em lotes.
+	 */
+	@Scheduled(initialDelayString = "${livraria.capas.limpeza.intervalo-ms:3600000}", fixedDelayString = "${livraria.capas.limpeza.intervalo-ms:3600000}")
+	public void varre() {
+		final Instant limite = limite();
+
+		try {
+			final List<String> hashes = capaStorage.listar(limite);
+
+			int removidas = 0;
+
+			for (int i = 0; i < hashes.size(); i += TAMANHO_LOTE) {
+				final List<String> lote = hashes.subList(i, Math.min(i + TAMANHO_LOTE, hashes.size()));
+
+				final Set<String> emUso = new HashSet<>(
+						transactionTemplate.execute(status -> capaRepository.findHashesEmUso(lote)));
+
+				for (final String hash : lote) {
+					if (!emUso.contains(hash) && capaStorage.remover(hash, limite)) {
+						removidas++;
+					}
+				}
+			}
+
+			if (removidas > 0) {
+				log.info("Varredura de capas: {} imagens sem uso removidas", removidas);
+			}
+		} catch (final IOException | RuntimeException e) {
+			log.warn("Não foi possível varrer as imagens de capa", e);
+		}
+	}
+
+	private Instant limite() {
+		return clock.agora().minusMillis(carenciaMs);
+	}
+}
@@ -1,31 +1,87 @@
 package br.com.orlandoburli.livraria.service;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.convert.ConversionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import br.com.orlandoburli.livraria.cache.CacheLeitura;
+import br.com.orlandoburli.livraria.converters.livro.LivroDtoToEntityConverter;
+import br.com.orlandoburli.livraria.converters.livro.LivroEntityToDtoConverter;
+import br.com.orlandoburli.livraria.converters.livro.LivroResumoProjectionToDtoConverter;
+import br.com.orlandoburli.livraria.dto.CapaDto;
 import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.PaginaDto;
 import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.enums.TamanhoCapa;
+import br.com.orlandoburli.livraria.exceptions.livro.CapaInvalidaException;
+import br.com.orlandoburli.livraria.exceptions.livro.CapaMuitoGrandeException;
 import br.com.orlandoburli.livraria.exceptions.livro.CapaNaoEncontradaException;
 import br.com.orlandoburli.livraria.exceptions.livro.CapaNaoInformadaException;
+import br.com.orlandoburli.livraria.exceptions.livro.FiltroLivroInvalidoException;
 import br.com.orlandoburli.livraria.exceptions.livro.LivroNaoEncontradoException;
 import br.com.orlandoburli.livraria.exceptions.livro.LivroNaoInformadoException;
+import br.com.orlandoburli.livraria.exceptions.livro.TamanhoCapaInvalidoException;
 import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
 import br.com.orlandoburli.livraria.model.Capa;
 import br.com.orlandoburli.livraria.model.CapaId;
 import br.com.orlandoburli.livraria.model.Livro;
+import br.com.orlandoburli.livraria.repository.BuscaLivroRepository;
 import br.com.orlandoburli.livraria.repository.CapaRepository;
 import br.com.orlandoburli.livraria.repository.LivroRepository;
+import br.com.orlandoburli.livraria.repository.projections.CapaResumoProjection;
+import br.com.orlandoburli.livraria.repository.projections.LivroResumoProjection;
+import br.com.orlandoburli.livraria.storage.CapaStorage;
+import br.com.orlandoburli.livraria.utils.ClockUtils;
+import br.com.orlandoburli.livraria.utils.LimiteInputStream;
+import br.com.orlandoburli.livraria.utils.LimiteInputStream.LimiteExcedidoException;
 import br.com.orlandoburli.livraria.utils.MessagesService;
+import br.com.orlandoburli.livraria.utils.Utils;
 import br.com.orlandoburli.livraria.utils.ValidatorUtils;
+import lombok.extern.slf4j.Slf4j;
 
 @Service
+@Slf4j
 public class LivroService {
 
+	private static final String CAPA_NAO_ENCONTRADA_EXCEPTION = "exceptions.CapaNaoEncontradaException";
+
 	private static final String LIVRO_NAO_ENCONTRADO_EXCEPTION = "exceptions.LivroNaoEncontradoException";
 
 	private static final String LIVRO_NAO_INFORMADO_EXCEPTION = "exceptions.LivroNaoInformadoException";
 
+	private static final String FILTRO_LIVRO_INVALIDO_EXCEPTION = "exceptions.FiltroLivroInvalidoException";
+
+	public static final int TAMANHO_PADRAO_PAGINA = 20;
+
+	public static final int TAMANHO_MAXIMO_PAGINA = 100;
+
+	public static final int MAXIMO_TERMOS_BUSCA = 10;
+
+	/**
+	 * Bytes lidos do início da imagem para identificar seu formato e suas
+	 * dimensões, que em JPEG vêm depois das tabelas e dos metadados.
+	 */
+	private static final int TAMANHO_CABECALHO = 64 * 1024;
+
 	@Autowired
 	private LivroRepository repository;
 
@@ -33,7 +89,31 @@ public class LivroService {
 	private CapaRepository capaRepository;
 
 	@Autowired
-	private ConversionService conversionService;
+	private BuscaLivroRepository buscaRepository;
+
+	@Autowired
+	private CacheLeitura<LivroDto> livroCache;
+
+	@Autowired
+	private CapaStorage capaStorage;
+
+	@Autowired
+	private VariantesCapaService variantesCapaService;
+
+	@Autowired
+	private LimpezaCapasService limpezaCapasService;
+
+	@Value("${livraria.capas.tamanho-maximo:10MB}")
+	private DataSize tamanhoMaximoCapa;
+
+	@Autowired
+	private LivroEntityToDtoConverter entityToDto;
+
+	@Autowired
+	private LivroDtoToEntityConverter dtoToEntity;
+
+	@Autowired
+	private LivroResumoProjectionToDtoConverter resumoToDto;
 
 	@Autowired
 	private ValidatorUtils validatorUtils;
@@ -41,6 +121,9 @@ public class LivroService {
 	@Autowired
 	private MessagesService messages;
 
+	@Autowired
+	private ClockUtils clock;
+
 	/**
 	 * Busca um livro pelo seu Id
 	 *
@@ -51,7 +134,127 @@ public class LivroService {
 	 *                                     seja informado.
 	 */
 	public LivroDto get(final Long id) throws LivroNaoEncontradoException, LivroNaoInformadoException {
-		return conversionService.convert(validaLivroExistente(id), LivroDto.class);
+		if (id == null) {
+			throw new LivroNaoInformadoException(messages.get(LIVRO_NAO_INFORMADO_EXCEPTION));
+		}
+
+		return livroCache
+				.get(id, i -> repository.findByIdAndStatus(i, Status.ATIVO)
+						.map(entityToDto::convert))
+				.orElseThrow(() -> new LivroNaoEncontradoException(messages.get(LIVRO_NAO_ENCONTRADO_EXCEPTION, id)));
+	}
+
+	/**
+	 * Lista o catálogo de livros em ordem de id, paginado por cursor. O cursor é
+	 * opaco para o cliente e indica o último livro da página anterior, de forma
+	 * que a página seguinte é lida diretamente pelo índice, sem <i>offset</i>.
+	 *
+	 * @param status  Status dos livros. Caso não informado, lista os ativos.
+	 * @param genero  Gênero dos livros, opcional
+	 * @param autor   Autor dos livros, opcional
+	 * @param cursor  Cursor retornado na página anterior. Caso não informado,
+	 *                retorna a primeira página.
+	 * @param tamanho Quantidade de livros por página, limitada a
+	 *                {@value #TAMANHO_MAXIMO_PAGINA}
+	 * @return Página de livros, com o cursor da próxima página
+	 * @throws FiltroLivroInvalidoException Exceção disparada caso o status ou o
+	 *                                      cursor informados sejam inválidos.
+	 */
+	public PaginaDto<LivroDto> list(final String status, final String genero, final String autor,
+			final String cursor, final Integer tamanho) throws FiltroLivroInvalidoException {
+
+		final Status statusLivro = status == null ? Status.ATIVO : Status.from(status);
+
+		if (statusLivro == null) {
+			throw new FiltroLivroInvalidoException(messages.get(FILTRO_LIVRO_INVALIDO_EXCEPTION, "status", status));
+		}
+
+		final Long aposId = cursor == null ? 0L : leCursor(cursor);
+
+		final int tamanhoPagina = tamanhoPagina(tamanho);
+
+		// Um item a mais indica se existe próxima página
+		final Pageable pagina = PageRequest.of(0, tamanhoPagina + 1);
+
+		final List<LivroResumoProjection> livros;
+
+		if (StringUtils.isNotBlank(genero) && StringUtils.isNotBlank(autor)) {
+			livros = repository.findByStatusAndGeneroAndAutorAndIdGreaterThanOrderByIdAsc(statusLivro, genero, autor,
+					aposId, pagina);
+		} else if (StringUtils.isNotBlank(genero)) {
+			livros = repository.findByStatusAndGeneroAndIdGreaterThanOrderByIdAsc(statusLivro, genero, aposId, pagina);
+		} else if (StringUtils.isNotBlank(autor)) {
+			livros = repository.findByStatusAndAutorAndIdGreaterThanOrderByIdAsc(statusLivro, autor, aposId, pagina);
+		} else {
+			livros = repository.findByStatusAndIdGreaterThanOrderByIdAsc(statusLivro, aposId, pagina);
+		}
+
+		final boolean temProxima = livros.size() > tamanhoPagina;
+
+		final List<LivroDto> itens = livros.stream()
+				.limit(tamanhoPagina)
+				.map(resumoToDto::convert)
+				.collect(Collectors.toList());
+
+		// @formatter:off
+		return PaginaDto.<LivroDto>builder()
+					.itens(itens)
+					.proximaPagina(temProxima ? geraCursor(itens.get(itens.size() - 1).getId()) : null)
+				.build();
+		// @formatter:on
+	}
+
+	/**
+	 * Busca livros ativos por palavras do título, autor ou sinopse, do mais para
+	 * o menos relevante. Cada palavra informada casa com o início de uma palavra
+	 * do livro, e todas devem ser encontradas.
+	 *
+	 * @param texto   Texto a ser buscado. Somente letras e números são
+	 *                considerados, até {@value #MAXIMO_TERMOS_BUSCA} palavras.
+	 * @param cursor  Cursor retornado na página anterior. Caso não informado,
+	 *                retorna a primeira página.
+	 * @param tamanho Quantidade de livros por página, limitada a
+	 *                {@value #TAMANHO_MAXIMO_PAGINA}
+	 * @return Página de livros, com o cursor da próxima página
+	 * @throws FiltroLivroInvalidoException Exceção disparada caso o texto não
+	 *                                      contenha palavras ou o cursor seja
+	 *                                      inválido.
+	 */
+	public PaginaDto<LivroDto> search(final String texto, final String cursor, final Integer tamanho)
+			throws FiltroLivroInvalidoException {
+
+		final List<String> termos = texto == null ? List.of()
+				: Arrays.stream(texto.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+						.filter(StringUtils::isNotEmpty)
+						.distinct()
+						.limit(MAXIMO_TERMOS_BUSCA)
+						.collect(Collectors.toList());
+
+		if (termos.isEmpty()) {
+			throw new FiltroLivroInvalidoException(messages.get(FILTRO_LIVRO_INVALIDO_EXCEPTION, "texto", texto));
+		}
+
+		// Resultados ordenados por relevância não têm chave crescente, o cursor
+		// guarda a posição na busca
+		final int inicio = cursor == null ? 0 : leCursor(cursor).intValue();
+
+		final int tamanhoPagina = tamanhoPagina(tamanho);
+
+		final List<Livro> livros = buscaRepository.buscar(termos, Status.ATIVO, inicio, tamanhoPagina + 1);
+
+		final boolean temProxima = livros.size() > tamanhoPagina;
+
+		final List<LivroDto> itens = livros.stream()
+				.limit(tamanhoPagina)
+				.map(entityToDto::convert)
+				.collect(Collectors.toList());
+
+		// @formatter:off
+		return PaginaDto.<LivroDto>builder()
+					.itens(itens)
+					.proximaPagina(temProxima ? geraCursor((long) inicio + tamanhoPagina) : null)
+				.build();
+		// @formatter:on
 	}
 
 	/**
@@ -70,13 +273,17 @@ public class LivroService {
 
 		livro.setStatus(Status.ATIVO);
 
-		final Livro entity = conversionService.convert(livro, Livro.class);
+		final Livro entity = dtoToEntity.convert(livro);
 
 		validatorUtils.validate(entity);
 
 		final Livro created = repository.save(entity);
 
-		return conversionService.convert(created, LivroDto.class);
+		livroCache.invalida(created.getId());
+
+		aposCommit(() -> buscaRepository.indexar(created));
+
+		return entityToDto.convert(created);
 	}
 
 	/**
@@ -98,7 +305,7 @@ public class LivroService {
 
 		validaLivroExistente(livro.getId());
 
-		final Livro entity = conversionService.convert(livro, Livro.class);
+		final Livro entity = dtoToEntity.convert(livro);
 
 		entity.setStatus(Status.ATIVO);
 
@@ -106,7 +313,11 @@ public class LivroService {
 
 		final Livro updated = repository.save(entity);
 
-		return conversionService.convert(updated, LivroDto.class);
+		livroCache.invalida(updated.getId());
+
+		aposCommit(() -> buscaRepository.indexar(updated));
+
+		return entityToDto.convert(updated);
 	}
 
 	/**
@@ -125,13 +336,18 @@ public class LivroService {
 		entity.setStatus(Status.INATIVO);
 
 		repository.save(entity);
+
+		livroCache.invalida(id);
+
+		aposCommit(() -> buscaRepository.remover(id));
 	}
 
 	/**
-	 * Retorna a imagem da capa de um livro
+	 * Retorna a imagem da capa de um livro, para ser lida diretamente do
+	 * armazenamento de capas.
 	 *
 	 * @param id Id do livro
-	 * @return Bytes da capa do livro, caso exista
+	 * @return Imagem da capa do livro, caso exista
 	 * @throws CapaNaoEncontradaException  Exceção disparada caso não exista a capa
 	 *                                     do livro.
 	 * @throws LivroNaoEncontradoException Exceção disparada caso não exista o livro
@@ -139,41 +355,178 @@ public class LivroService {
 	 * @throws LivroNaoInformadoException  Exceção disparada caso o id do livro não
 	 *                                     seja informado.
 	 */
-	public byte[] getCapa(final Long id)
+	public Resource getCapa(final Long id)
 			throws CapaNaoEncontradaException, LivroNaoEncontradoException, LivroNaoInformadoException {
-		final Livro livro = validaLivroExistente(id);
+		return abrirCapa(getInfoCapa(id));
+	}
 
-		return capaRepository.findById(CapaId.builder().livro(livro).build())
-				.orElseThrow(
-						() -> new CapaNaoEncontradaException(messages.get("exceptions.CapaNaoEncontradaException", id)))
-				.getImagem();
+	/**
+	 * Retorna os metadados da capa original de um livro, com uma única consulta e
+	 * sem abrir a imagem.
+	 *
+	 * @param id Id do livro
+	 * @return Metadados da capa
+	 * @throws CapaNaoEncontradaException  Exceção disparada caso não exista a capa
+	 *                                     do livro.
+	 * @throws LivroNaoEncontradoException Exceção disparada caso não exista o livro
+	 *                                     com o id informado.
+	 * @throws LivroNaoInformadoException  Exceção disparada caso o id do livro não
+	 *                                     seja informado.
+	 */
+	public CapaDto getInfoCapa(final Long id)
+			throws CapaNaoEncontradaException, LivroNaoEncontradoException, LivroNaoInformadoException {
+		return getInfoCapa(id, TamanhoCapa.ORIGINAL);
+	}
+
+	/**
+	 * Retorna os metadados de uma versão da capa de um livro. Caso a versão
+	 * reduzida ainda não tenha sido gerada, sua geração é agendada e são
+	 * retornados os metadados da original, marcados como provisórios.
+	 *
+	 * @param id      Id do livro
+	 * @param tamanho Versão da capa: thumb, medium ou original. Caso não
+	 *                informada, retorna a original.
+	 * @return Metadados da versão da capa
+	 * @throws TamanhoCapaInvalidoException Exceção disparada caso a versão
+	 *                                      informada não exista.
+	 * @throws CapaNaoEncontradaException   Exceção disparada caso não exista a
+	 *                                      capa do livro.
+	 * @throws LivroNaoEncontradoException  Exceção disparada caso não exista o
+	 *                                      livro com o id informado.
+	 * @throws LivroNaoInformadoException   Exceção disparada caso o id do livro
+	 *                                      não seja informado.
+	 */
+	public CapaDto getInfoCapa(final Long id, final String tamanho) throws TamanhoCapaInvalidoException,
+			CapaNaoEncontradaException, LivroNaoEncontradoException, LivroNaoInformadoException {
+		if (tamanho == null) {
+			return getInfoCapa(id);
+		}
+
+		final TamanhoCapa tamanhoCapa = TamanhoCapa.from(tamanho);
+
+		if (tamanhoCapa == null) {
+			throw new TamanhoCapaInvalidoException(messages.get("exceptions.TamanhoCapaInvalidoException", tamanho));
+		}
+
+		return getInfoCapa(id, tamanhoCapa);
+	}
+
+	private CapaDto getInfoCapa(final Long id, final TamanhoCapa tamanho)
+			throws CapaNaoEncontradaException, LivroNaoEncontradoException, LivroNaoInformadoException {
+		if (id == null) {
+			throw new LivroNaoInformadoException(messages.get(LIVRO_NAO_INFORMADO_EXCEPTION));
+		}
+
+		final Optional<CapaResumoProjection> resumo = capaRepository.findResumo(id, Status.ATIVO);
+
+		if (!resumo.isPresent()) {
+			validaLivroExistente(id);
+
+			throw new CapaNaoEncontradaException(messages.get(CAPA_NAO_ENCONTRADA_EXCEPTION, id));
+		}
+
+		// @formatter:off
+		final CapaDto capa = CapaDto
+				.builder()
+					.livro(id)
+					.hash(resumo.get().getHash())
+					.tipo(resumo.get().getTipo())
+					.dataAtualizacao(resumo.get().getDataAtualizacao())
+					.tamanho(TamanhoCapa.ORIGINAL)
+				.build();
+		// @formatter:on
+
+		if (!tamanho.isOriginal()) {
+			if (variantesCapaService.abrir(capa.getHash(), tamanho).isPresent()) {
+				capa.setTamanho(tamanho);
+				capa.setTipo(VariantesCapaService.TIPO_VARIANTE);
+			} else {
+				capa.setProvisoria(true);
+			}
+		}
+
+		return capa;
 	}
 
 	/**
-	 * Salva a imagem da capa de um livro.
+	 * Abre a imagem de uma capa no armazenamento de capas, na versão indicada
+	 * nos metadados.
+	 *
+	 * @param capa Metadados da capa
+	 * @return Imagem da capa
+	 * @throws CapaNaoEncontradaException Exceção disparada caso a imagem não
+	 *                                    exista no armazenamento.
+	 */
+	public Resource abrirCapa(final CapaDto capa) throws CapaNaoEncontradaException {
+		final Optional<Resource> imagem = capa.getTamanho() == null || capa.getTamanho().isOriginal()
+				? capaStorage.abrir(capa.getHash())
+				: capaStorage.abrirVariante(capa.getHash(), capa.getTamanho().getValor());
+
+		return imagem.orElseThrow(
+				() -> new CapaNaoEncontradaException(messages.get(CAPA_NAO_ENCONTRADA_EXCEPTION, capa.getLivro())));
+	}
+
+	/**
+	 * Salva a imagem da capa de um livro. A imagem é gravada no armazenamento de
+	 * capas, e a tabela de capas guarda somente o seu SHA-1. As versões reduzidas
+	 * são geradas em segundo plano após o commit.
+	 *
+	 * A imagem é transmitida do stream para o armazenamento em blocos, sem ser
+	 * carregada em memória, e o tamanho máximo é verificado à medida que os bytes
+	 * são lidos. O stream não é fechado.
 	 *
 	 * @param id     Id do livro
-	 * @param imagem Bytes da imagem da capa do livro
+	 * @param imagem Stream com os bytes da imagem da capa do livro
 	 * @throws LivroNaoEncontradoException Exceção disparada caso não exista o livro
 	 *                                     informado
-	 * @throws CapaNaoInformadaException   Exceção disparada caso a imagem informada
-	 *                                     seja inválida
+	 * @throws CapaNaoInformadaException   Exceção disparada caso a imagem não seja
+	 *                                     informada
+	 * @throws CapaInvalidaException       Exceção disparada caso a imagem não seja
+	 *                                     de um formato suportado, ou exceda o
+	 *                                     máximo de pixels
+	 * @throws CapaMuitoGrandeException    Exceção disparada caso a imagem exceda o
+	 *                                     tamanho máximo
 	 * @throws LivroNaoInformadoException  Exceção disparada caso o id do livro não
 	 *                                     seja informado.
 	 */
-	public void saveCapa(final Long id, final byte[] imagem)
-			throws LivroNaoEncontradoException, CapaNaoInformadaException, LivroNaoInformadoException {
+	public void saveCapa(final Long id, final InputStream imagem) throws LivroNaoEncontradoException,
+			CapaNaoInformadaException, CapaInvalidaException, CapaMuitoGrandeException, LivroNaoInformadoException {
+
+		final BufferedInputStream entrada = imagem == null ? null : new BufferedInputStream(imagem);
+
+		final byte[] cabecalho = leCabecalho(entrada);
 
-		validaBytesImage(imagem);
+		validaBytesImage(cabecalho);
 
 		final Livro livro = validaLivroExistente(id);
 
+		final String hash;
+
+		try {
+			hash = capaStorage.salvar(new LimiteInputStream(entrada, tamanhoMaximoCapa.toBytes()));
+		} catch (final LimiteExcedidoException e) {
+			throw new CapaMuitoGrandeException(
+					messages.get("exceptions.CapaMuitoGrandeException", tamanhoMaximoCapa.toBytes()));
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
 		final Capa capa = capaRepository.findById(CapaId.builder().livro(livro).build())
 				.orElse(Capa.builder().id(CapaId.builder().livro(livro).build()).build());
 
-		capa.setImagem(imagem);
+		final String hashAnterior = capa.getHash();
+
+		capa.setHash(hash);
+		capa.setTipo(Utils.contentType(cabecalho));
+		capa.setDataAtualizacao(clock.agora());
 
 		capaRepository.save(capa);
+
+		if (hashAnterior != null && !hashAnterior.equals(hash)) {
+			removeImagemSemUso(hashAnterior);
+		}
+
+		aposCommit(() -> variantesCapaService.gerarVariantes(hash));
 	}
 
 	/**
@@ -192,23 +545,94 @@ public class LivroService {
 		final Livro livro = validaLivroExistente(id);
 
 		final Capa capa = capaRepository.findById(CapaId.builder().livro(livro).build()).orElseThrow(
-				() -> new CapaNaoEncontradaException(messages.get("exceptions.CapaNaoEncontradaException", id)));
+				() -> new CapaNaoEncontradaException(messages.get(CAPA_NAO_ENCONTRADA_EXCEPTION, id)));
 
 		capaRepository.delete(capa);
+
+		removeImagemSemUso(capa.getHash());
 	}
 
 	/**
-	 * Valida se os bytes são de uma imagem válida
+	 * Remove a imagem do armazenamento de capas caso nenhuma outra capa a use. A
+	 * remoção só é feita após o commit, para que um rollback não deixe capas
+	 * apontando para imagens inexistentes, e é conferida novamente pelo
+	 * {@link LimpezaCapasService}, já que outra transação pode estar gravando a
+	 * mesma imagem.
 	 *
-	 * @param imagem Bytes da imagem a ser validada
-	 * @throws CapaNaoInformadaException Exceção disparada caso a imagem informada
-	 *                                   seja inválida
+	 * @param hash SHA-1 da imagem
+	 */
+	private void removeImagemSemUso(final String hash) {
+		if (capaRepository.countByHash(hash) > 0) {
+			return;
+		}
+
+		aposCommit(() -> limpezaCapasService.removeSeSemUso(hash));
+	}
+
+	/**
+	 * Executa uma ação após o commit da transação corrente, ou imediatamente caso
+	 * não exista transação.
+	 *
+	 * @param acao Ação a ser executada
+	 */
+	private void aposCommit(final Runnable acao) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					acao.run();
+				}
+			});
+		} else {
+			acao.run();
+		}
+	}
+
+	/**
+	 * Lê o cabeçalho da imagem, devolvendo o stream para o início.
+	 *
+	 * @param imagem Stream da imagem
+	 * @return Primeiros bytes da imagem, ou <b>null</b> caso o stream seja nulo
+	 */
+	private byte[] leCabecalho(final BufferedInputStream imagem) {
+		if (imagem == null) {
+			return null;
+		}
+
+		try {
+			imagem.mark(TAMANHO_CABECALHO);
+
+			final byte[] cabecalho = imagem.readNBytes(TAMANHO_CABECALHO);
+
+			imagem.reset();
+
+			return cabecalho;
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Valida se os bytes são de uma imagem válida. Somente o cabeçalho é lido, a
+	 * imagem é decodificada uma única vez, na geração das versões reduzidas.
 	 *
+	 * @param cabecalho Primeiros bytes da imagem a ser validada
+	 * @throws CapaNaoInformadaException Exceção disparada caso a imagem não seja
+	 *                                   informada
+	 * @throws CapaInvalidaException     Exceção disparada caso a imagem não seja
+	 *                                   de um formato suportado, ou exceda o
+	 *                                   máximo de pixels
 	 */
-	private void validaBytesImage(final byte[] imagem) throws CapaNaoInformadaException {
-		if (imagem == null || imagem.length <= 10) {
+	private void validaBytesImage(final byte[] cabecalho) throws CapaNaoInformadaException, CapaInvalidaException {
+		if (cabecalho == null || cabecalho.length <= 10) {
 			throw new CapaNaoInformadaException(messages.get("exceptions.CapaNaoInformadaException"));
 		}
+		if (!variantesCapaService.isImagemSuportada(cabecalho)) {
+			throw new CapaInvalidaException(messages.get("exceptions.CapaInvalidaException"));
+		}
+		if (!variantesCapaService.isDimensaoPermitida(cabecalho)) {
+			throw new CapaInvalidaException(messages.get("exceptions.CapaInvalidaException.dimensoes"));
+		}
 	}
 
 	/**
@@ -229,6 +653,28 @@ public class LivroService {
 				.orElseThrow(() -> new LivroNaoEncontradoException(messages.get(LIVRO_NAO_ENCONTRADO_EXCEPTION, id)));
 	}
 
+	private int tamanhoPagina(final Integer tamanho) {
+		return tamanho == null || tamanho < 1 ? TAMANHO_PADRAO_PAGINA : Math.min(tamanho, TAMANHO_MAXIMO_PAGINA);
+	}
+
+	private String geraCursor(final Long posicao) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(posicao.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Long leCursor(final String cursor) throws FiltroLivroInvalidoException {
+		try {
+			final Long posicao = Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+
+			if (posicao < 0 || posicao > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException(cursor);
+			}
+
+			return posicao;
+		} catch (final IllegalArgumentException e) {
+			throw new FiltroLivroInvalidoException(messages.get(FILTRO_LIVRO_INVALIDO_EXCEPTION, "cursor", cursor));
+		}
+	}
+
 	/**
 	 * Valida se o livro foi informado
 	 *
@@ -1,33 +1,234 @@
 package br.com.orlandoburli.livraria.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.springframework.amqp.rabbit.annotation.Queue;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
 
+import br.com.orlandoburli.livraria.config.NotificacoesConfig;
 import br.com.orlandoburli.livraria.dto.MensagemDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Envia por email as notificações da fila <i>livraria.notificacoes.queue</i>.
+ *
+ * As notificações são recebidas em lotes e divididas entre até
+ * <i>livraria.email.paralelismo</i> envios simultâneos. Cada envio manda todos
+ * os emails da sua parte em uma única conexão SMTP, em vez de abrir uma conexão
+ * por email. Os emails recusados são reenviados, com intervalo crescente, até
+ * <i>livraria.email.tentativas</i> vezes, e os que ainda assim falharem são
+ * publicados na fila <i>livraria.notificacoes.dlq</i>.
+ */
 @Service
+@Slf4j
 public class MailSenderService {
 
+	public static final String FILA_NAO_ENTREGUES = "livraria.notificacoes.dlq";
+
+	static final String TIMER_CONSUMO = "livraria.notificacoes.consumo";
+
+	static final String CONTADOR_NAO_ENTREGUES = "livraria.notificacoes.nao-entregues";
+
 	@Autowired(required = false)
 	private JavaMailSender javaMailSender;
 
-	@RabbitListener(queuesToDeclare = { @Queue(NotificacaoService.FILA_MENSAGENS) })
-	public void receive(@Payload final MensagemDto mensagem) {
-		sendEmail(mensagem);
+	@Autowired(required = false)
+	private RabbitTemplate rabbitTemplate;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	private final int paralelismo;
+
+	private final ThreadPoolExecutor executor;
+
+	private final RetryTemplate retry;
+
+	private Timer consumo;
+
+	private Counter naoEntregues;
+
+	public MailSenderService(@Value("${livraria.email.paralelismo:4}") final int paralelismo,
+			@Value("${livraria.email.tentativas:3}") final int tentativas,
+			@Value("${livraria.email.intervalo-ms:1000}") final long intervaloMs,
+			@Value("${livraria.email.intervalo-maximo-ms:10000}") final long intervaloMaximoMs) {
+		final AtomicInteger contador = new AtomicInteger();
+
+		this.paralelismo = paralelismo;
+
+		// Com mais de um consumidor a fila pode encher, e o próprio consumidor envia
+		this.executor = new ThreadPoolExecutor(paralelismo, paralelismo, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(paralelismo), r -> {
+					final Thread thread = new Thread(r, "email-envio-" + contador.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+
+		final ExponentialBackOffPolicy backOff = new ExponentialBackOffPolicy();
+		backOff.setInitialInterval(intervaloMs);
+		backOff.setMaxInterval(intervaloMaximoMs);
+
+		this.retry = new RetryTemplate();
+		this.retry.setRetryPolicy(new SimpleRetryPolicy(tentativas));
+		this.retry.setBackOffPolicy(backOff);
+	}
+
+	@PostConstruct
+	private void init() {
+		this.consumo = registry.timer(TIMER_CONSUMO);
+		this.naoEntregues = registry.counter(CONTADOR_NAO_ENTREGUES);
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Consome um lote de notificações da fila, enviando os emails. O tempo do
+	 * consumo do lote, com os envios e as novas tentativas, é medido no timer
+	 * <i>livraria.notificacoes.consumo</i>.
+	 *
+	 * @param mensagens Notificações recebidas
+	 */
+	@RabbitListener(queuesToDeclare = { @Queue(NotificacaoService.FILA_MENSAGENS) }, containerFactory = NotificacoesConfig.CONTAINER_FACTORY)
+	public void receive(@Payload final List<MensagemDto> mensagens) {
+		consumo.record(() -> sendEmails(mensagens));
+	}
+
+	/**
+	 * Envia os emails, tentando novamente somente os que falharam. Os que não
+	 * forem enviados após todas as tentativas são publicados na fila de não
+	 * entregues.
+	 *
+	 * @param mensagens Notificações a serem enviadas
+	 */
+	public void sendEmails(final List<MensagemDto> mensagens) {
+		final List<SimpleMailMessage> pendentes = mensagens.stream().map(this::email).collect(Collectors.toList());
+
+		retry.execute(contexto -> {
+			final List<SimpleMailMessage> falhas = enviaEmParalelo(pendentes);
+
+			pendentes.clear();
+			pendentes.addAll(falhas);
+
+			if (!falhas.isEmpty()) {
+				throw new MailSendException(falhas.size() + " emails não enviados");
+			}
+			return null;
+		}, contexto -> {
+			publicaNaoEntregues(pendentes);
+			return null;
+		});
 	}
 
-	public void sendEmail(final MensagemDto mensagem) {
+	private List<SimpleMailMessage> enviaEmParalelo(final List<SimpleMailMessage> emails) {
+		final int partes = Math.min(paralelismo, emails.size());
+
+		if (partes <= 1) {
+			return envia(emails);
+		}
+
+		final List<CompletableFuture<List<SimpleMailMessage>>> envios = new ArrayList<>(partes);
+
+		for (int i = 0; i < partes; i++) {
+			final List<SimpleMailMessage> parte = emails.subList(emails.size() * i / partes,
+					emails.size() * (i + 1) / partes);
+
+			envios.add(CompletableFuture.supplyAsync(() -> envia(parte), executor));
+		}
+
+		return envios.stream().flatMap(e -> e.join().stream()).collect(Collectors.toList());
+	}
+
+	/**
+	 * Envia os emails em uma única conexão SMTP.
+	 *
+	 * @return Emails que não foram enviados
+	 */
+	private List<SimpleMailMessage> envia(final List<SimpleMailMessage> emails) {
+		try {
+			javaMailSender.send(emails.toArray(new SimpleMailMessage[0]));
+
+			return Collections.emptyList();
+
+		} catch (final MailSendException e) {
+			log.warn("{} de {} emails não enviados: {}", e.getFailedMessages().size(), emails.size(), e.getMessage());
+
+			final List<SimpleMailMessage> falhas = e.getFailedMessages().keySet().stream()
+					.filter(SimpleMailMessage.class::isInstance).map(SimpleMailMessage.class::cast)
+					.collect(Collectors.toList());
+
+			return falhas.isEmpty() ? new ArrayList<>(emails) : falhas;
+
+		} catch (final MailException e) {
+			log.warn("{} emails não enviados: {}", emails.size(), e.getMessage());
+
+			return new ArrayList<>(emails);
+		}
+	}
+
+	private void publicaNaoEntregues(final List<SimpleMailMessage> emails) {
+		naoEntregues.increment(emails.size());
+
+		if (rabbitTemplate == null) {
+			log.error("{} emails não enviados após todas as tentativas", emails.size());
+			return;
+		}
+
+		log.error("{} emails não enviados após todas as tentativas, publicados em {}", emails.size(),
+				FILA_NAO_ENTREGUES);
+
+		rabbitTemplate.invoke(operations -> {
+			emails.forEach(e -> operations.convertAndSend(FILA_NAO_ENTREGUES, mensagem(e)));
+			return null;
+		});
+	}
+
+	private SimpleMailMessage email(final MensagemDto mensagem) {
 		final SimpleMailMessage msg = new SimpleMailMessage();
 
 		msg.setTo(mensagem.getDestinatario());
 		msg.setSubject(mensagem.getTitulo());
 		msg.setText(mensagem.getMensagem());
 
-		javaMailSender.send(msg);
+		return msg;
+	}
+
+	private MensagemDto mensagem(final SimpleMailMessage email) {
+		// @formatter:off
+		return MensagemDto
+				.builder()
+					.destinatario(email.getTo()[0])
+					.titulo(email.getSubject())
+					.mensagem(email.getText())
+				.build();
+		// @formatter:on
 	}
-}
\ No newline at end of file
+}
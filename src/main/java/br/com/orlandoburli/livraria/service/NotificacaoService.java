@@ -1,32 +1,183 @@
 package br.com.orlandoburli.livraria.service;
 
 import java.time.Period;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import br.com.orlandoburli.livraria.converters.notificacao.NotificacaoPendenteToMensagemDtoConverter;
 import br.com.orlandoburli.livraria.dto.EmprestimoDto;
 import br.com.orlandoburli.livraria.dto.MensagemDto;
+import br.com.orlandoburli.livraria.model.NotificacaoPendente;
+import br.com.orlandoburli.livraria.repository.NotificacaoPendenteRepository;
+import br.com.orlandoburli.livraria.utils.ClockUtils;
 import br.com.orlandoburli.livraria.utils.MessagesService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Notificações aos usuários, entregues por email a partir da fila
+ * <i>livraria.notificacoes.queue</i>.
+ *
+ * As notificações não são publicadas na fila durante a requisição. Elas são
+ * gravadas na tabela <i>notificacao_pendente</i>, na mesma transação que as
+ * originou, e publicadas em lotes por {@link #publicarPendentes()}. Assim a
+ * devolução não depende do RabbitMQ, e uma notificação só é publicada se a
+ * transação for confirmada. Cada lote só é apagado depois que o RabbitMQ
+ * confirma a publicação, então uma falha entre a confirmação e o commit pode
+ * publicar o lote novamente (entrega ao menos uma vez).
+ */
 @Service
+@Slf4j
 public class NotificacaoService {
 
 	static final String FILA_MENSAGENS = "livraria.notificacoes.queue";
 
+	static final String TIMER_PUBLICACAO = "livraria.notificacoes.publicacao";
+
 	@Autowired(required = false)
 	private RabbitTemplate rabbitTemplate;
 
+	@Autowired
+	private NotificacaoPendenteRepository repository;
+
+	@Autowired
+	private NotificacaoPendenteToMensagemDtoConverter pendenteToDto;
+
 	@Autowired
 	private MessagesService messages;
 
+	@Autowired
+	private ClockUtils clock;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Value("${livraria.notificacoes.lote:100}")
+	private int tamanhoLote;
+
+	@Value("${livraria.notificacoes.confirmacao-ms:5000}")
+	private long confirmacaoMs;
+
+	private TransactionTemplate transactionTemplate;
+
+	private Timer publicacao;
+
+	@PostConstruct
+	private void init() {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.publicacao = registry.timer(TIMER_PUBLICACAO);
+	}
+
+	/**
+	 * Grava a notificação de uma entrega com atraso, para ser publicada depois do
+	 * commit da transação atual.
+	 *
+	 * @param emprestimo Empréstimo devolvido com atraso
+	 */
 	public void notificarEntregaComAtraso(final EmprestimoDto emprestimo) {
+		final MensagemDto mensagem = mensagemEntregaComAtraso(emprestimo);
+
+		// @formatter:off
+		repository.save(NotificacaoPendente
+				.builder()
+					.titulo(mensagem.getTitulo())
+					.mensagem(mensagem.getMensagem())
+					.destinatario(mensagem.getDestinatario())
+					.criadaEm(clock.agora())
+				.build());
+		// @formatter:on
+	}
+
+	/**
+	 * Grava as notificações de várias entregas com atraso em um único batch
+	 * JDBC, para serem publicadas depois do commit da transação atual.
+	 *
+	 * @param emprestimos Empréstimos devolvidos com atraso
+	 */
+	public void notificarEntregasComAtraso(final List<EmprestimoDto> emprestimos) {
+		if (emprestimos.isEmpty()) {
+			return;
+		}
+
+		repository.gravarEmLote(
+				emprestimos.stream().map(this::mensagemEntregaComAtraso).collect(Collectors.toList()),
+				clock.agora());
+	}
+
+	/**
+	 * Publica as notificações pendentes, em lotes de
+	 * <i>livraria.notificacoes.lote</i>, até esvaziar a tabela. Cada lote é
+	 * publicado em um único canal, aguardando as confirmações do RabbitMQ
+	 * (<i>publisher confirms</i>) antes de apagar as notificações na mesma
+	 * transação que as leu. Se a publicação falhar, o lote permanece pendente e é
+	 * tentado novamente na próxima execução.
+	 *
+	 * @return Total de notificações publicadas
+	 */
+	@Scheduled(initialDelayString = "${livraria.notificacoes.publicacao-ms:5000}", fixedDelayString = "${livraria.notificacoes.publicacao-ms:5000}")
+	public int publicarPendentes() {
+		if (rabbitTemplate == null) {
+			return 0;
+		}
+
+		int total = 0;
+
+		try {
+			int publicadas;
+
+			do {
+				publicadas = transactionTemplate.execute(status -> publicaLote());
+				total += publicadas;
+			} while (publicadas == tamanhoLote);
+
+		} catch (final AmqpException e) {
+			log.warn("Falha ao publicar notificações pendentes, nova tentativa na próxima execução: {}",
+					e.getMessage());
+		}
+
+		return total;
+	}
+
+	private int publicaLote() {
+		final List<NotificacaoPendente> pendentes = repository.findPendentes(PageRequest.of(0, tamanhoLote));
+
+		if (pendentes.isEmpty()) {
+			return 0;
+		}
+
+		publicacao.record(() -> rabbitTemplate.invoke(operations -> {
+			pendentes.forEach(p -> operations.convertAndSend(FILA_MENSAGENS, pendenteToDto.convert(p)));
+			operations.waitForConfirmsOrDie(confirmacaoMs);
+			return null;
+		}));
+
+		repository.deleteInBatch(pendentes);
+
+		return pendentes.size();
+	}
+
+	private MensagemDto mensagemEntregaComAtraso(final EmprestimoDto emprestimo) {
 
 		final Period atraso = Period.between(emprestimo.getDataPrevistaDevolucao(), emprestimo.getDataDevolucao());
 
 		// @formatter:off
-		final MensagemDto mensagem = MensagemDto
+		return MensagemDto
 				.builder()
 					.titulo(messages.get("notifications.entregaComAtraso.titulo"))
 					.mensagem(messages.get("notifications.entregaComAtraso.mensagem",
@@ -35,7 +186,6 @@ public class NotificacaoService {
 							emprestimo.getUsuario().getNome()))
 					.destinatario(messages.get("notifications.entregaComAtraso.destinatario"))
 				.build();
-
-		rabbitTemplate.convertAndSend(FILA_MENSAGENS, mensagem);
+		// @formatter:on
 	}
-}
\ No newline at end of file
+}
@@ -1,9 +1,11 @@
 package br.com.orlandoburli.livraria.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.convert.ConversionService;
 import org.springframework.stereotype.Service;
 
+import br.com.orlandoburli.livraria.cache.CacheLeitura;
+import br.com.orlandoburli.livraria.converters.usuario.UsuarioDtoToEntityConverter;
+import br.com.orlandoburli.livraria.converters.usuario.UsuarioEntityToDtoConverter;
 import br.com.orlandoburli.livraria.dto.UsuarioDto;
 import br.com.orlandoburli.livraria.enums.Status;
 import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
@@ -29,7 +31,13 @@ public class UsuarioService {
 	private UsuarioRepository repository;
 
 	@Autowired
-	private ConversionService conversionService;
+	private CacheLeitura<UsuarioDto> usuarioCache;
+
+	@Autowired
+	private UsuarioEntityToDtoConverter entityToDto;
+
+	@Autowired
+	private UsuarioDtoToEntityConverter dtoToEntity;
 
 	@Autowired
 	private ValidatorUtils validatorUtils;
@@ -51,7 +59,14 @@ public class UsuarioService {
 	 *                                       não seja informado
 	 */
 	public UsuarioDto get(final Long id) throws UsuarioNaoEncontradoException, UsuarioNaoInformadoException {
-		return conversionService.convert(validaUsuarioExistente(id), UsuarioDto.class);
+		if (id == null) {
+			throw new UsuarioNaoInformadoException(messages.get(USUARIO_NAO_INFORMADO_EXCEPTION));
+		}
+
+		return usuarioCache
+				.get(id, i -> repository.findCompletoByIdAndStatus(i, Status.ATIVO)
+						.map(entityToDto::convert))
+				.orElseThrow(() -> new UsuarioNaoEncontradoException(messages.get(USUARIO_NAO_ENCONTRADO_EXCEPTION, id)));
 	}
 
 	/**
@@ -72,7 +87,7 @@ public class UsuarioService {
 
 		usuario.setStatus(Status.ATIVO);
 
-		final Usuario entity = conversionService.convert(usuario, Usuario.class);
+		final Usuario entity = dtoToEntity.convert(usuario);
 
 		validatorUtils.validate(entity);
 
@@ -80,7 +95,9 @@ public class UsuarioService {
 
 		final Usuario created = repository.save(entity);
 
-		return conversionService.convert(created, UsuarioDto.class);
+		usuarioCache.invalida(created.getId());
+
+		return entityToDto.convert(created);
 	}
 
 	/**
@@ -104,7 +121,7 @@ public class UsuarioService {
 
 		validaUsuarioExistente(usuario.getId());
 
-		final Usuario entity = conversionService.convert(usuario, Usuario.class);
+		final Usuario entity = dtoToEntity.convert(usuario);
 
 		entity.setStatus(Status.ATIVO);
 
@@ -114,7 +131,9 @@ public class UsuarioService {
 
 		final Usuario saved = repository.save(entity);
 
-		return conversionService.convert(saved, UsuarioDto.class);
+		usuarioCache.invalida(saved.getId());
+
+		return entityToDto.convert(saved);
 	}
 
 	/**
@@ -139,6 +158,8 @@ public class UsuarioService {
 		entity.setStatus(Status.INATIVO);
 
 		repository.save(entity);
+
+		usuarioCache.invalida(id);
 	}
 
 	/**
@@ -164,7 +185,7 @@ public class UsuarioService {
 	 *                                                  em aberto
 	 */
 	private void validaUsuarioPossuiEmprestimos(final Long id) throws UsuarioPossuiEmprestimosAbertosException {
-		if (!emprestimoRepository.findByUsuarioIdAndStatus(id, StatusEmprestimo.ABERTO).isEmpty()) {
+		if (emprestimoRepository.existsByUsuarioIdAndStatus(id, StatusEmprestimo.ABERTO)) {
 			throw new UsuarioPossuiEmprestimosAbertosException(
 					messages.get("exceptions.UsuarioPossuiEmprestimosAbertosException", id));
 		}
@@ -0,0 +1,308 @@
+package br.com.orlandoburli.livraria.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import br.com.orlandoburli.livraria.enums.TamanhoCapa;
+import br.com.orlandoburli.livraria.storage.CapaStorage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gera as versões reduzidas das capas em segundo plano.
+ *
+ * A geração roda em um pool de threads com fila limitada. A tarefa recebe só o
+ * hash da imagem e a lê do armazenamento de capas, de forma que a fila não
+ * retém imagens em memória. A imagem original é decodificada uma única vez e
+ * todas as versões são derivadas dela. Pedidos repetidos para o mesmo hash
+ * enquanto a geração está em andamento reaproveitam a mesma tarefa.
+ *
+ * A largura e a altura são lidas do cabeçalho antes da decodificação, e imagens
+ * acima de <i>livraria.capas.pixels-maximo</i> não são decodificadas: um
+ * arquivo pequeno pode declarar dimensões que ocupariam gigabytes em memória.
+ */
+@Service
+@Slf4j
+public class VariantesCapaService {
+
+	public static final String TIPO_VARIANTE = "image/jpeg";
+
+	private static final String FORMATO_VARIANTE = "jpg";
+
+	@Autowired
+	private CapaStorage capaStorage;
+
+	private final ThreadPoolExecutor executor;
+
+	private final Map<String, CompletableFuture<Void>> emAndamento = new ConcurrentHashMap<>();
+
+	@Value("${livraria.capas.pixels-maximo:16000000}")
+	private long pixelsMaximo;
+
+	public VariantesCapaService(@Value("${livraria.capas.variantes.threads:2}") final int threads,
+			@Value("${livraria.capas.variantes.fila:100}") final int fila) {
+		final AtomicInteger contador = new AtomicInteger();
+
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(fila), r -> {
+					final Thread thread = new Thread(r, "capa-variantes-" + contador.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	@PreDestroy
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Verifica, somente pelo cabeçalho e sem decodificar a imagem, se os bytes
+	 * são de um formato de imagem suportado.
+	 *
+	 * @param imagem Bytes da imagem
+	 * @return <b>true</b> caso exista um leitor para o formato da imagem
+	 */
+	public boolean isImagemSuportada(final byte[] imagem) {
+		try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(imagem))) {
+			return iis != null && ImageIO.getImageReaders(iis).hasNext();
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Verifica, somente pelo cabeçalho e sem decodificar a imagem, se a largura
+	 * vezes a altura da imagem está dentro do máximo de pixels. Caso as dimensões
+	 * não estejam nos bytes informados, a imagem é aceita, e a verificação é
+	 * refeita antes da decodificação.
+	 *
+	 * @param imagem Bytes iniciais da imagem
+	 * @return <b>false</b> caso a imagem exceda o máximo de pixels
+	 */
+	public boolean isDimensaoPermitida(final byte[] imagem) {
+		try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(imagem))) {
+			final ImageReader reader = leitor(iis);
+
+			if (reader == null) {
+				return true;
+			}
+
+			try {
+				return isDimensaoPermitida(reader);
+			} finally {
+				reader.dispose();
+			}
+		} catch (final IOException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Agenda a geração das versões reduzidas de uma imagem. Caso a fila esteja
+	 * cheia, a geração é descartada e será pedida novamente na próxima leitura da
+	 * versão.
+	 *
+	 * @param hash SHA-1 da imagem original
+	 * @return Tarefa de geração, concluída quando todas as versões estiverem
+	 *         gravadas
+	 */
+	public CompletableFuture<Void> gerarVariantes(final String hash) {
+		final CompletableFuture<Void> tarefa = new CompletableFuture<>();
+
+		final CompletableFuture<Void> existente = emAndamento.putIfAbsent(hash, tarefa);
+
+		if (existente != null) {
+			return existente;
+		}
+
+		try {
+			CompletableFuture.runAsync(() -> gera(hash), executor).whenComplete((r, e) -> {
+				emAndamento.remove(hash, tarefa);
+
+				if (e != null) {
+					log.warn("Não foi possível gerar as variantes da capa {}", hash, e);
+					tarefa.completeExceptionally(e);
+				} else {
+					tarefa.complete(null);
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			log.warn("Fila de geração de variantes cheia, capa {} será processada na próxima leitura", hash);
+			emAndamento.remove(hash, tarefa);
+			tarefa.complete(null);
+		}
+
+		return tarefa;
+	}
+
+	/**
+	 * Abre uma versão reduzida de uma imagem. Caso ainda não tenha sido gerada, a
+	 * geração é agendada.
+	 *
+	 * @param hash    SHA-1 da imagem original
+	 * @param tamanho Versão desejada
+	 * @return Versão da imagem, caso já esteja disponível
+	 */
+	public Optional<Resource> abrir(final String hash, final TamanhoCapa tamanho) {
+		final Optional<Resource> variante = capaStorage.abrirVariante(hash, tamanho.getValor());
+
+		if (!variante.isPresent()) {
+			gerarVariantes(hash);
+		}
+
+		return variante;
+	}
+
+	private void gera(final String hash) {
+		final Optional<Resource> original = capaStorage.abrir(hash);
+
+		if (!original.isPresent()) {
+			return;
+		}
+
+		try {
+			final BufferedImage imagem;
+
+			try (InputStream is = original.get().getInputStream()) {
+				imagem = decodifica(is, hash);
+			}
+
+			if (imagem == null) {
+				log.warn("Capa {} não pôde ser decodificada, variantes não serão geradas", hash);
+				return;
+			}
+
+			for (final TamanhoCapa tamanho : TamanhoCapa.values()) {
+				if (!tamanho.isOriginal()) {
+					capaStorage.salvarVariante(hash, tamanho.getValor(), codifica(reduz(imagem, tamanho.getLargura())));
+				}
+			}
+
+			log.debug("Variantes da capa {} geradas", hash);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Decodifica a imagem com o mesmo leitor usado para ler suas dimensões.
+	 *
+	 * @return Imagem decodificada, ou <b>null</b> caso o formato não seja
+	 *         suportado ou a imagem exceda o máximo de pixels
+	 */
+	private BufferedImage decodifica(final InputStream is, final String hash) throws IOException {
+		try (ImageInputStream iis = ImageIO.createImageInputStream(is)) {
+			final ImageReader reader = leitor(iis);
+
+			if (reader == null) {
+				return null;
+			}
+
+			try {
+				if (!isDimensaoPermitida(reader)) {
+					log.warn("Capa {} excede o máximo de {} pixels", hash, pixelsMaximo);
+					return null;
+				}
+
+				return reader.read(0, reader.getDefaultReadParam());
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	private static ImageReader leitor(final ImageInputStream iis) {
+		if (iis == null) {
+			return null;
+		}
+
+		final Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+
+		if (!readers.hasNext()) {
+			return null;
+		}
+
+		final ImageReader reader = readers.next();
+		reader.setInput(iis, true, true);
+
+		return reader;
+	}
+
+	private boolean isDimensaoPermitida(final ImageReader reader) throws IOException {
+		return (long) reader.getWidth(0) * reader.getHeight(0) <= pixelsMaximo;
+	}
+
+	/**
+	 * Reduz a imagem à largura informada, mantendo a proporção. A redução é feita
+	 * em passos de no máximo metade do tamanho, o que evita o serrilhado da
+	 * interpolação bilinear em reduções grandes. Imagens menores que a largura
+	 * não são ampliadas.
+	 */
+	private BufferedImage reduz(final BufferedImage imagem, final int largura) {
+		final int larguraFinal = Math.min(largura, imagem.getWidth());
+		final int alturaFinal = Math.max(1, imagem.getHeight() * larguraFinal / imagem.getWidth());
+
+		BufferedImage atual = imagem;
+
+		do {
+			final int w = Math.max(larguraFinal, atual.getWidth() / 2);
+			final int h = w == larguraFinal ? alturaFinal : Math.max(alturaFinal, atual.getHeight() / 2);
+
+			atual = desenha(atual, w, h);
+		} while (atual.getWidth() > larguraFinal);
+
+		return atual;
+	}
+
+	private BufferedImage desenha(final BufferedImage imagem, final int largura, final int altura) {
+		// JPEG não suporta transparência, a imagem é sempre convertida para RGB
+		final BufferedImage destino = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+
+		final Graphics2D g = destino.createGraphics();
+
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.drawImage(imagem, 0, 0, largura, altura, Color.WHITE, null);
+		} finally {
+			g.dispose();
+		}
+
+		return destino;
+	}
+
+	private byte[] codifica(final BufferedImage imagem) throws IOException {
+		final ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+		ImageIO.write(imagem, FORMATO_VARIANTE, saida);
+
+		return saida.toByteArray();
+	}
+}
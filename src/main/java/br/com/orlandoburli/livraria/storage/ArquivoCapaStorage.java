@@ -0,0 +1,191 @@
+package br.com.orlandoburli.livraria.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import br.com.orlandoburli.livraria.utils.Utils;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Armazena as capas no sistema de arquivos local, em
+ * <i>{diretorio}/{2 primeiros caracteres do hash}/{hash}</i>. As variantes
+ * ficam ao lado da original, em <i>{hash}.{variante}</i>.
+ *
+ * A gravação é feita em um arquivo temporário no mesmo sistema de arquivos e
+ * movida atomicamente para o nome final, de forma que um leitor nunca enxerga um
+ * arquivo incompleto. A data de modificação do arquivo original é a data de
+ * gravação da imagem. A gravação usa um buffer fixo, independente do tamanho
+ * da imagem. A leitura devolve um {@link FileSystemResource}, que é
+ * transmitido em blocos para a resposta, sem carregar a imagem inteira no heap.
+ */
+@Component
+@ConditionalOnProperty(name = "livraria.capas.storage", havingValue = "arquivo", matchIfMissing = true)
+@Slf4j
+public class ArquivoCapaStorage implements CapaStorage {
+
+	private static final int TAMANHO_BUFFER = 8192;
+
+	private final Path diretorio;
+
+	public ArquivoCapaStorage(@Value("${livraria.capas.diretorio}") final String diretorio) {
+		this.diretorio = Paths.get(diretorio).toAbsolutePath();
+	}
+
+	@Override
+	public String salvar(final InputStream imagem) throws IOException {
+		Files.createDirectories(diretorio);
+
+		// O nome final só é conhecido ao fim da leitura, o arquivo temporário fica
+		// na raiz do armazenamento, no mesmo sistema de arquivos do destino
+		final Path temporario = Files.createTempFile(diretorio, "upload", ".tmp");
+
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+
+			try (OutputStream saida = Files.newOutputStream(temporario)) {
+				final byte[] buffer = new byte[TAMANHO_BUFFER];
+
+				int lidos;
+				while ((lidos = imagem.read(buffer)) != -1) {
+					digest.update(buffer, 0, lidos);
+					saida.write(buffer, 0, lidos);
+				}
+			}
+
+			final String hash = Utils.hex(digest.digest());
+
+			final Path arquivo = caminho(hash);
+
+			if (!Files.exists(arquivo)) {
+				Files.createDirectories(arquivo.getParent());
+				Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE);
+
+				log.debug("Capa {} gravada em {}", hash, arquivo);
+			} else {
+				Files.setLastModifiedTime(arquivo, FileTime.from(Instant.now()));
+			}
+
+			return hash;
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			Files.deleteIfExists(temporario);
+		}
+	}
+
+	@Override
+	public Optional<Resource> abrir(final String hash) {
+		return abre(caminho(hash));
+	}
+
+	@Override
+	public void salvarVariante(final String hash, final String variante, final byte[] dados) throws IOException {
+		final Path arquivo = caminho(hash, variante);
+
+		grava(arquivo, hash, dados);
+
+		log.debug("Variante {} da capa {} gravada em {}", variante, hash, arquivo);
+	}
+
+	@Override
+	public Optional<Resource> abrirVariante(final String hash, final String variante) {
+		return abre(caminho(hash, variante));
+	}
+
+	@Override
+	public List<String> listar(final Instant gravadasAntesDe) throws IOException {
+		final List<String> hashes = new ArrayList<>();
+
+		if (!Files.isDirectory(diretorio)) {
+			return hashes;
+		}
+
+		try (DirectoryStream<Path> prefixos = Files.newDirectoryStream(diretorio, Files::isDirectory)) {
+			for (final Path prefixo : prefixos) {
+				try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(prefixo)) {
+					for (final Path arquivo : arquivos) {
+						final String nome = arquivo.getFileName().toString();
+
+						// Variantes e temporários têm extensão, as originais são só o hash
+						if (nome.indexOf('.') < 0 && isGravadoAntes(arquivo, gravadasAntesDe)) {
+							hashes.add(nome);
+						}
+					}
+				}
+			}
+		}
+
+		return hashes;
+	}
+
+	@Override
+	public boolean remover(final String hash, final Instant gravadaAntesDe) throws IOException {
+		final Path arquivo = caminho(hash);
+
+		if (Files.exists(arquivo) && !isGravadoAntes(arquivo, gravadaAntesDe)) {
+			return false;
+		}
+
+		if (Files.isDirectory(arquivo.getParent())) {
+			try (DirectoryStream<Path> variantes = Files.newDirectoryStream(arquivo.getParent(), hash + ".*")) {
+				for (final Path variante : variantes) {
+					Files.deleteIfExists(variante);
+				}
+			}
+		}
+
+		return Files.deleteIfExists(arquivo);
+	}
+
+	private boolean isGravadoAntes(final Path arquivo, final Instant limite) throws IOException {
+		return Files.getLastModifiedTime(arquivo).toInstant().isBefore(limite);
+	}
+
+	private void grava(final Path arquivo, final String hash, final byte[] dados) throws IOException {
+		Files.createDirectories(arquivo.getParent());
+
+		final Path temporario = Files.createTempFile(arquivo.getParent(), hash, ".tmp");
+
+		try {
+			Files.write(temporario, dados);
+			Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporario);
+		}
+	}
+
+	private Optional<Resource> abre(final Path arquivo) {
+		if (!Files.isRegularFile(arquivo)) {
+			return Optional.empty();
+		}
+
+		return Optional.of(new FileSystemResource(arquivo));
+	}
+
+	private Path caminho(final String hash) {
+		return diretorio.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	private Path caminho(final String hash, final String variante) {
+		return caminho(hash).resolveSibling(hash + "." + variante);
+	}
+}
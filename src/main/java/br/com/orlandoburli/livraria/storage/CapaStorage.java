@@ -0,0 +1,84 @@
+package br.com.orlandoburli.livraria.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Armazenamento das imagens de capa fora do banco de dados, endereçado pelo
+ * conteúdo: cada imagem é identificada pelo SHA-1 de seus bytes, de forma que
+ * imagens iguais são gravadas uma única vez.
+ *
+ * Cada imagem pode ter variantes derivadas dela (como as versões reduzidas),
+ * guardadas sob o mesmo hash e removidas junto com a original.
+ */
+public interface CapaStorage {
+
+	/**
+	 * Grava uma imagem, caso ainda não exista. A imagem é lida do stream em
+	 * blocos e o SHA-1 é calculado à medida que os bytes chegam, sem carregar a
+	 * imagem inteira em memória. O stream não é fechado.
+	 *
+	 * Caso a imagem já exista, sua data de gravação é renovada, de forma que ela
+	 * não seja removida por {@link #remover(String, Instant)} enquanto a capa
+	 * que a usa ainda não foi confirmada.
+	 *
+	 * @param imagem Stream com os bytes da imagem
+	 * @return SHA-1 da imagem, usado como chave para leitura
+	 * @throws IOException Exceção disparada caso a imagem não possa ser lida ou
+	 *                     gravada
+	 */
+	String salvar(InputStream imagem) throws IOException;
+
+	/**
+	 * Abre uma imagem para leitura, sem carregá-la em memória.
+	 *
+	 * @param hash SHA-1 da imagem
+	 * @return Imagem, caso exista
+	 */
+	Optional<Resource> abrir(String hash);
+
+	/**
+	 * Grava uma variante de uma imagem já existente, substituindo a anterior.
+	 *
+	 * @param hash     SHA-1 da imagem original
+	 * @param variante Nome da variante
+	 * @param dados    Bytes da variante
+	 * @throws IOException Exceção disparada caso a variante não possa ser gravada
+	 */
+	void salvarVariante(String hash, String variante, byte[] dados) throws IOException;
+
+	/**
+	 * Abre uma variante de uma imagem para leitura, sem carregá-la em memória.
+	 *
+	 * @param hash     SHA-1 da imagem original
+	 * @param variante Nome da variante
+	 * @return Variante, caso já tenha sido gravada
+	 */
+	Optional<Resource> abrirVariante(String hash, String variante);
+
+	/**
+	 * Lista as imagens gravadas antes do instante informado.
+	 *
+	 * @param gravadasAntesDe Instante limite de gravação
+	 * @return SHA-1 das imagens
+	 * @throws IOException Exceção disparada caso o armazenamento não possa ser
+	 *                     lido
+	 */
+	List<String> listar(Instant gravadasAntesDe) throws IOException;
+
+	/**
+	 * Remove uma imagem e todas as suas variantes, caso a imagem tenha sido
+	 * gravada antes do instante informado.
+	 *
+	 * @param hash            SHA-1 da imagem
+	 * @param gravadaAntesDe  Instante limite de gravação
+	 * @return <b>true</b> caso a imagem tenha sido removida
+	 * @throws IOException Exceção disparada caso a imagem não possa ser removida
+	 */
+	boolean remover(String hash, Instant gravadaAntesDe) throws IOException;
+}
@@ -0,0 +1,65 @@
+package br.com.orlandoburli.livraria.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import br.com.orlandoburli.livraria.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Migração única que move as imagens da coluna <i>capa.imagem</i> para o
+ * {@link CapaStorage}, gravando o SHA-1 de cada imagem na coluna
+ * <i>capa.hash</i>. A coluna <i>imagem</i> é removida na migração seguinte.
+ *
+ * É registrada como bean para ter acesso ao {@link CapaStorage}; o Spring Boot
+ * repassa os beans do tipo <i>JavaMigration</i> ao Flyway.
+ */
+@Component
+@Slf4j
+public class V1_5__MoveCapasParaStorage extends BaseJavaMigration {
+
+	private static final int TAMANHO_LEITURA = 10;
+
+	@Autowired
+	private CapaStorage capaStorage;
+
+	@Override
+	public void migrate(final Context context) throws Exception {
+		final Connection connection = context.getConnection();
+
+		int total = 0;
+
+		// @formatter:off
+		try (Statement select = connection.createStatement();
+				PreparedStatement update = connection.prepareStatement("UPDATE " + Constants.SCHEMA + ".capa SET hash = ?, imagem = NULL WHERE id = ?")) {
+		// @formatter:on
+
+			// Lê as imagens em blocos, sem carregar a tabela inteira em memória
+			select.setFetchSize(TAMANHO_LEITURA);
+
+			try (ResultSet rs = select
+					.executeQuery("SELECT id, imagem FROM " + Constants.SCHEMA + ".capa WHERE imagem IS NOT NULL")) {
+				while (rs.next()) {
+					update.setString(1, capaStorage.salvar(rs.getBinaryStream("imagem")));
+					update.setLong(2, rs.getLong("id"));
+					update.addBatch();
+
+					if (++total % TAMANHO_LEITURA == 0) {
+						update.executeBatch();
+					}
+				}
+			}
+
+			update.executeBatch();
+		}
+
+		log.info("{} capas movidas para o armazenamento de capas", total);
+	}
+}
@@ -0,0 +1,256 @@
+package br.com.orlandoburli.livraria.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.context.support.AbstractMessageSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Catálogo de mensagens lido uma única vez dos arquivos
+ * <i>basename</i>.properties, <i>basename</i>_pt.properties,
+ * <i>basename</i>_pt_BR.properties e assim por diante, em UTF-8.
+ *
+ * Cada locale encontrado tem um catálogo imutável com os textos e os
+ * {@link MessageFormat} já compilados, de forma que resolver uma mensagem não
+ * consulta arquivos nem compila padrões, e os números dos argumentos são
+ * formatados sem criar um {@link NumberFormat} a cada mensagem. Um locale sem
+ * arquivo próprio usa o catálogo do seu idioma, ou o do arquivo sem locale.
+ * Textos que não são padrões válidos de {@link MessageFormat}, como os das
+ * validações (<i>{min}</i>, <i>{max}</i>), ficam somente como texto, resolvidos
+ * sem argumentos.
+ *
+ * Os arquivos não são verificados periodicamente. Alterações só são lidas por
+ * {@link #recarregar()}.
+ */
+public class CatalogoMensagens extends AbstractMessageSource {
+
+	private static final String EXTENSAO = ".properties";
+
+	private final String basename;
+
+	private final ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+	private volatile Catalogos catalogos;
+
+	/**
+	 * @param basename Nome dos arquivos no classpath, sem locale e sem extensão
+	 */
+	public CatalogoMensagens(final String basename) {
+		this.basename = basename;
+		this.catalogos = carrega();
+	}
+
+	/**
+	 * Lê novamente todos os arquivos de mensagens, substituindo os catálogos de
+	 * uma só vez.
+	 */
+	public void recarregar() {
+		catalogos = carrega();
+	}
+
+	@Override
+	protected String resolveCodeWithoutArguments(final String code, final Locale locale) {
+		return catalogos.get(locale).textos.get(code);
+	}
+
+	@Override
+	protected MessageFormat resolveCode(final String code, final Locale locale) {
+		final Formato formato = catalogos.get(locale).formatos.get(code);
+
+		return formato == null ? null : formato.mensagem;
+	}
+
+	@Override
+	protected String getMessageInternal(final String code, final Object[] args, final Locale locale) {
+		if (code == null || ObjectUtils.isEmpty(args)) {
+			return super.getMessageInternal(code, args, locale);
+		}
+
+		final Formato formato = catalogos.get(locale == null ? Locale.getDefault() : locale).formatos.get(code);
+
+		if (formato == null) {
+			return super.getMessageInternal(code, args, locale);
+		}
+
+		return formato.formata(resolveArguments(args, locale));
+	}
+
+	private Catalogos carrega() {
+		final Map<String, Properties> arquivos = new HashMap<>();
+
+		try {
+			for (final Resource resource : resolver.getResources("classpath*:" + basename + "*" + EXTENSAO)) {
+				final String sufixo = sufixo(resource.getFilename());
+
+				if (sufixo != null) {
+					le(resource, arquivos.computeIfAbsent(sufixo, s -> new Properties()));
+				}
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException("Erro ao ler as mensagens de " + basename, e);
+		}
+
+		final Properties raiz = arquivos.getOrDefault("", new Properties());
+
+		final Map<String, Catalogo> idiomas = new HashMap<>();
+		final Map<Locale, Catalogo> locales = new HashMap<>();
+
+		for (final Map.Entry<String, Properties> arquivo : arquivos.entrySet()) {
+			final String[] partes = arquivo.getKey().split("_");
+
+			if (partes.length == 2) {
+				final Locale locale = new Locale(partes[1]);
+				idiomas.put(locale.getLanguage(), catalogo(locale, raiz, arquivo.getValue()));
+			} else if (partes.length == 3) {
+				final Locale locale = new Locale(partes[1], partes[2]);
+				locales.put(locale, catalogo(locale, raiz, arquivos.get("_" + partes[1]), arquivo.getValue()));
+			}
+		}
+
+		// O arquivo sem locale formata números e datas no locale padrão da JVM
+		return new Catalogos(catalogo(Locale.getDefault(), raiz), idiomas, locales);
+	}
+
+	/**
+	 * Sufixo de locale do arquivo (vazio, <i>_pt</i> ou <i>_pt_BR</i>), ou null
+	 * caso o arquivo não seja do catálogo, apesar do mesmo prefixo.
+	 */
+	private String sufixo(final String nome) {
+		if (nome == null || !nome.startsWith(basename) || !nome.endsWith(EXTENSAO)) {
+			return null;
+		}
+
+		final String sufixo = nome.substring(basename.length(), nome.length() - EXTENSAO.length());
+
+		return sufixo.isEmpty() || sufixo.startsWith("_") ? sufixo : null;
+	}
+
+	private static void le(final Resource resource, final Properties properties) throws IOException {
+		try (InputStream is = resource.getInputStream();
+				Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+	}
+
+	/**
+	 * Monta o catálogo de um locale. Os arquivos mais específicos, informados por
+	 * último, sobrescrevem os mais genéricos.
+	 */
+	private Catalogo catalogo(final Locale locale, final Properties... arquivos) {
+		final Map<String, String> textos = new HashMap<>();
+
+		for (final Properties arquivo : arquivos) {
+			if (arquivo != null) {
+				arquivo.stringPropertyNames().forEach(code -> textos.put(code, arquivo.getProperty(code)));
+			}
+		}
+
+		final ThreadLocal<NumberFormat> numeros = ThreadLocal.withInitial(() -> NumberFormat.getInstance(locale));
+
+		final Map<String, Formato> formatos = new HashMap<>();
+
+		textos.forEach((code, texto) -> {
+			try {
+				formatos.put(code, new Formato(createMessageFormat(texto, locale), numeros));
+			} catch (final IllegalArgumentException e) {
+				// Não é um padrão de MessageFormat, é resolvido somente sem argumentos
+			}
+		});
+
+		return new Catalogo(textos, formatos);
+	}
+
+	private static final class Catalogos {
+
+		private final Catalogo raiz;
+
+		private final Map<String, Catalogo> idiomas;
+
+		private final Map<Locale, Catalogo> locales;
+
+		private Catalogos(final Catalogo raiz, final Map<String, Catalogo> idiomas,
+				final Map<Locale, Catalogo> locales) {
+			this.raiz = raiz;
+			this.idiomas = Collections.unmodifiableMap(idiomas);
+			this.locales = Collections.unmodifiableMap(locales);
+		}
+
+		private Catalogo get(final Locale locale) {
+			Catalogo catalogo = locales.get(locale);
+
+			if (catalogo == null) {
+				catalogo = idiomas.getOrDefault(locale.getLanguage(), raiz);
+			}
+
+			return catalogo;
+		}
+	}
+
+	private static final class Catalogo {
+
+		private final Map<String, String> textos;
+
+		private final Map<String, Formato> formatos;
+
+		private Catalogo(final Map<String, String> textos, final Map<String, Formato> formatos) {
+			this.textos = Collections.unmodifiableMap(textos);
+			this.formatos = Collections.unmodifiableMap(formatos);
+		}
+	}
+
+	/**
+	 * Mensagem compilada. Números em argumentos sem formato próprio no padrão
+	 * (<i>{0}</i>, e não <i>{0,number,#}</i>) são formatados antes, por um
+	 * {@link NumberFormat} do locale reaproveitado por thread, com o mesmo
+	 * resultado do {@link MessageFormat}, que criaria um {@link NumberFormat} a
+	 * cada formatação.
+	 */
+	private static final class Formato {
+
+		private final MessageFormat mensagem;
+
+		private final boolean[] semFormato;
+
+		private final ThreadLocal<NumberFormat> numeros;
+
+		private Formato(final MessageFormat mensagem, final ThreadLocal<NumberFormat> numeros) {
+			this.mensagem = mensagem;
+			this.numeros = numeros;
+
+			final Format[] formatos = mensagem.getFormatsByArgumentIndex();
+			this.semFormato = new boolean[formatos.length];
+
+			for (int i = 0; i < formatos.length; i++) {
+				semFormato[i] = formatos[i] == null;
+			}
+		}
+
+		private String formata(final Object[] argumentos) {
+			for (int i = 0; i < argumentos.length && i < semFormato.length; i++) {
+				if (semFormato[i] && argumentos[i] instanceof Number) {
+					argumentos[i] = numeros.get().format(argumentos[i]);
+				}
+			}
+
+			synchronized (mensagem) {
+				return mensagem.format(argumentos);
+			}
+		}
+	}
+}
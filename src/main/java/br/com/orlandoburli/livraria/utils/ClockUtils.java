@@ -1,5 +1,6 @@
 package br.com.orlandoburli.livraria.utils;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 import org.springframework.stereotype.Component;
@@ -10,4 +11,8 @@ public class ClockUtils {
 	public LocalDate hoje() {
 		return LocalDate.now();
 	}
+
+	public Instant agora() {
+		return Instant.now();
+	}
 }
@@ -0,0 +1,71 @@
+package br.com.orlandoburli.livraria.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream que limita a quantidade de bytes lidos, disparando
+ * {@link LimiteExcedidoException} assim que o limite é ultrapassado, sem
+ * esperar o fim da leitura.
+ */
+public class LimiteInputStream extends FilterInputStream {
+
+	private final long limite;
+
+	private long lidos;
+
+	public LimiteInputStream(final InputStream in, final long limite) {
+		super(in);
+		this.limite = limite;
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int b = super.read();
+		if (b != -1) {
+			conta(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		final int n = super.read(b, off, len);
+		if (n > 0) {
+			conta(n);
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		final long pulados = super.skip(n);
+		conta(pulados);
+		return pulados;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void conta(final long n) throws LimiteExcedidoException {
+		lidos += n;
+		if (lidos > limite) {
+			throw new LimiteExcedidoException(limite);
+		}
+	}
+
+	/**
+	 * Exceção disparada quando o stream ultrapassa o limite de bytes.
+	 */
+	public static class LimiteExcedidoException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public LimiteExcedidoException(final long limite) {
+			super("Limite de " + limite + " bytes excedido");
+		}
+	}
+}
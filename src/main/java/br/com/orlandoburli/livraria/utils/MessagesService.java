@@ -3,7 +3,6 @@ package br.com.orlandoburli.livraria.utils;
 import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.MessageSource;
 import org.springframework.context.support.MessageSourceAccessor;
 import org.springframework.stereotype.Component;
 
@@ -11,7 +10,7 @@ import org.springframework.stereotype.Component;
 public class MessagesService {
 
 	@Autowired
-	private MessageSource messageSource;
+	private CatalogoMensagens messageSource;
 
 	private MessageSourceAccessor accessor;
 
@@ -27,4 +26,12 @@ public class MessagesService {
 	public String get(final String code, final Object... args) {
 		return this.accessor.getMessage(code, args);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Lê novamente os arquivos de mensagens. As mensagens não são recarregadas
+	 * automaticamente quando os arquivos mudam.
+	 */
+	public void recarregar() {
+		this.messageSource.recarregar();
+	}
+}
@@ -1,6 +1,10 @@
 package br.com.orlandoburli.livraria.utils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.net.URLConnection;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -9,16 +13,43 @@ import org.apache.commons.lang3.StringUtils;
 public final class Utils {
 
 	/**
-	 * Remove todos os caracteres não-numéricos de uma string
-	 * 
+	 * Remove todos os caracteres não-numéricos de uma string. Caso a string já
+	 * contenha somente números, ela própria é retornada, sem cópia.
+	 *
 	 * @param source String a ser tratada
 	 * @return string somente com números
 	 */
 	public static String numbersOnly(String source) {
-		if (!StringUtils.isEmpty(source)) {
-			return source.replaceAll("\\D+", "");
+		if (StringUtils.isEmpty(source)) {
+			return "";
+		}
+
+		int tamanho = source.length();
+		int i = 0;
+
+		while (i < tamanho && isDigito(source.charAt(i))) {
+			i++;
+		}
+
+		if (i == tamanho) {
+			return source;
 		}
-		return "";
+
+		StringBuilder numeros = new StringBuilder(tamanho).append(source, 0, i);
+
+		for (i++; i < tamanho; i++) {
+			char c = source.charAt(i);
+
+			if (isDigito(c)) {
+				numeros.append(c);
+			}
+		}
+
+		return numeros.toString();
+	}
+
+	private static boolean isDigito(char c) {
+		return c >= '0' && c <= '9';
 	}
 
 	/**
@@ -31,6 +62,31 @@ public final class Utils {
 		MessageDigest digest = MessageDigest.getInstance("SHA-1");
 		digest.reset();
 		digest.update(dados);
-		return String.format("%040x", new BigInteger(1, digest.digest()));
+		return hex(digest.digest());
+	}
+
+	/**
+	 * Converte um SHA1 já calculado para sua representação hexadecimal.
+	 * @param sha1 Bytes do SHA1
+	 * @return String com o SHA1 em hexadecimal
+	 */
+	public static String hex(byte[] sha1) {
+		return String.format("%040x", new BigInteger(1, sha1));
+	}
+
+	/**
+	 * Identifica o Content-Type de um conjunto de bytes pela sua assinatura.
+	 * 
+	 * @param dados Bytes a serem identificados
+	 * @return Content-Type identificado, ou <i>application/octet-stream</i> caso
+	 *         não seja reconhecido
+	 */
+	public static String contentType(byte[] dados) {
+		try (InputStream is = new ByteArrayInputStream(dados)) {
+			String tipo = URLConnection.guessContentTypeFromStream(is);
+			return tipo == null ? "application/octet-stream" : tipo;
+		} catch (IOException e) {
+			return "application/octet-stream";
+		}
 	}
 }
@@ -2,7 +2,6 @@ package br.com.orlandoburli.livraria.utils;
 
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -10,43 +9,54 @@ import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
 
-import org.apache.commons.lang3.StringUtils;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
 
+/**
+ * Validação de entidades pelas anotações de bean validation.
+ *
+ * O {@link Validator} é obtido uma única vez e reaproveitado, ele é seguro
+ * para uso concorrente e guarda os metadados das restrições de cada classe já
+ * validada. Quando não há violações, nada além da própria validação é
+ * alocado.
+ */
 @Component
 public class ValidatorUtils {
 
-	@Autowired
-	private ValidatorFactory factory;
+	private static final String CAMPO_ENTIDADE = "entity";
 
-	public <T> void validate(final T vo) throws ValidationLivrariaException {
-		final Validator validator = factory.getValidator();
+	private final Validator validator;
 
-		final Set<ConstraintViolation<T>> constraintViolations = validator.validate(vo);
-
-		if (!constraintViolations.isEmpty()) {
-			final Map<String, Set<String>> errors = new HashMap<>();
-
-			final Iterator<ConstraintViolation<T>> iterator = constraintViolations.iterator();
-
-			while (iterator.hasNext()) {
-				final ConstraintViolation<T> cv = iterator.next();
+	public ValidatorUtils(final ValidatorFactory factory) {
+		this.validator = factory.getValidator();
+	}
 
-				Set<String> errosField = errors.get(cv.getPropertyPath().toString());
-				if (errosField == null) {
-					errosField = new HashSet<>();
-				}
-				errosField.add(cv.getMessage());
+	/**
+	 * Valida um objeto.
+	 *
+	 * @param vo     Objeto a ser validado
+	 * @param groups Grupos de validação. Caso nenhum seja informado, é usado o
+	 *               grupo padrão
+	 * @throws ValidationLivrariaException Exceção disparada caso alguma restrição
+	 *                                     seja violada, com as mensagens de erro
+	 *                                     de cada campo
+	 */
+	public <T> void validate(final T vo, final Class<?>... groups) throws ValidationLivrariaException {
+		final Set<ConstraintViolation<T>> constraintViolations = validator.validate(vo, groups);
+
+		if (constraintViolations.isEmpty()) {
+			return;
+		}
 
-				final String key = cv.getPropertyPath().toString();
+		final Map<String, Set<String>> errors = new HashMap<>();
 
-				errors.put(StringUtils.isEmpty(key) ? "entity" : key, errosField);
-			}
+		for (final ConstraintViolation<T> cv : constraintViolations) {
+			final String key = cv.getPropertyPath().toString();
 
-			throw new ValidationLivrariaException("Erro ao salvar dados", errors);
+			errors.computeIfAbsent(key.isEmpty() ? CAMPO_ENTIDADE : key, k -> new HashSet<>()).add(cv.getMessage());
 		}
+
+		throw new ValidationLivrariaException("Erro ao salvar dados", errors);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+CREATE SEQUENCE livraria.seq_notificacao_pendente START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE livraria.notificacao_pendente (
+	id numeric(12) not null,
+	titulo varchar(200) not null,
+	mensagem varchar(2000) not null,
+	destinatario varchar(200) not null,
+	criada_em timestamp not null,
+	CONSTRAINT pk_notificacao_pendente PRIMARY KEY (id)
+);
@@ -0,0 +1 @@
+CREATE UNIQUE INDEX uk_emprestimo_livro_aberto ON livraria.emprestimo (livro_id) WHERE status = 'A';
@@ -0,0 +1,6 @@
+ALTER SEQUENCE livraria.seq_instituicao_ensino INCREMENT BY 50;
+ALTER SEQUENCE livraria.seq_usuario INCREMENT BY 50;
+ALTER SEQUENCE livraria.seq_livro INCREMENT BY 50;
+ALTER SEQUENCE livraria.seq_emprestimo INCREMENT BY 50;
+ALTER SEQUENCE livraria.seq_restricao INCREMENT BY 50;
+ALTER SEQUENCE livraria.seq_reserva INCREMENT BY 50;
@@ -0,0 +1 @@
+ALTER TABLE livraria.capa ADD COLUMN hash varchar(40);
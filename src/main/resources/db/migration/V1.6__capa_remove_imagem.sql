@@ -0,0 +1,4 @@
+DELETE FROM livraria.capa WHERE hash IS NULL;
+ALTER TABLE livraria.capa DROP COLUMN imagem;
+ALTER TABLE livraria.capa ALTER COLUMN hash SET NOT NULL;
+CREATE INDEX ix_capa_hash ON livraria.capa (hash);
@@ -0,0 +1,4 @@
+ALTER TABLE livraria.capa ADD COLUMN tipo varchar(100);
+ALTER TABLE livraria.capa ADD COLUMN data_atualizacao timestamp;
+UPDATE livraria.capa SET data_atualizacao = CURRENT_TIMESTAMP;
+ALTER TABLE livraria.capa ALTER COLUMN data_atualizacao SET NOT NULL;
@@ -0,0 +1,3 @@
+CREATE INDEX ix_livro_status_id ON livraria.livro (status, id);
+CREATE INDEX ix_livro_genero_status_id ON livraria.livro (genero, status, id);
+CREATE INDEX ix_livro_autor_status_id ON livraria.livro (autor, status, id);
@@ -0,0 +1,7 @@
+ALTER TABLE livraria.livro ADD COLUMN busca tsvector GENERATED ALWAYS AS (
+	setweight(to_tsvector('portuguese', coalesce(titulo, '')), 'A') ||
+	setweight(to_tsvector('portuguese', coalesce(autor, '')), 'B') ||
+	setweight(to_tsvector('portuguese', coalesce(sinopse, '')), 'C')
+) STORED;
+
+CREATE INDEX ix_livro_busca ON livraria.livro USING gin (busca);
@@ -0,0 +1,331 @@
+package br.com.orlandoburli.livraria.emprestimo;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.javafaker.Faker;
+
+import br.com.orlandoburli.livraria.LivrariaApplication;
+import br.com.orlandoburli.livraria.cache.DisponibilidadeLivroCache;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteItemDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteResultadoDto;
+import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
+import br.com.orlandoburli.livraria.exceptions.emprestimo.LivroJaEmprestadoException;
+import br.com.orlandoburli.livraria.exceptions.emprestimo.MaximoPedidosUsuarioException;
+import br.com.orlandoburli.livraria.exceptions.instituicaoensino.InstituicaoEnsinoException;
+import br.com.orlandoburli.livraria.exceptions.livro.LivroException;
+import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioException;
+import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
+import br.com.orlandoburli.livraria.model.Emprestimo;
+import br.com.orlandoburli.livraria.repository.EmprestimoRepository;
+import br.com.orlandoburli.livraria.service.EmprestimoService;
+import br.com.orlandoburli.livraria.service.InstituicaoEnsinoService;
+import br.com.orlandoburli.livraria.service.LivroService;
+import br.com.orlandoburli.livraria.service.UsuarioService;
+import br.com.orlandoburli.livraria.utils.Constants;
+import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
+import br.com.orlandoburli.livraria.utils.GeraCpfCnpj;
+import br.com.orlandoburli.livraria.utils.ReflectionUtils;
+
+/**
+ * Empréstimos e índice de disponibilidade concorrentes com empréstimos feitos
+ * por outras transações. Os dados são confirmados no banco, já que a outra transação
+ * precisa enxergá-los.
+ */
+@SpringBootTest(classes = LivrariaApplication.class)
+@EnableAutoConfiguration
+@TestPropertySource(locations = "classpath:application.yml")
+public class EmprestimoConcorrenteTests {
+
+	// @formatter:off
+	private static final String EMPRESTAR = "INSERT INTO " + Constants.SCHEMA + ".emprestimo (id, usuario_id, livro_id, data_emprestimo, status) "
+			+ "VALUES (?, ?, ?, ?, 'A')";
+	// @formatter:on
+
+	@Autowired
+	private DbPrepareUtils dbPrepareUtils;
+
+	@Autowired
+	private EmprestimoService service;
+
+	@Autowired
+	private EmprestimoRepository repository;
+
+	@Autowired
+	private LivroService livroService;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private InstituicaoEnsinoService insituicaoEnsinoService;
+
+	@Autowired
+	private DisponibilidadeLivroCache disponibilidade;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final Faker faker = new Faker(new Locale("pt", "BR"));
+
+	private final GeraCpfCnpj geradorCpfCnpj = new GeraCpfCnpj();
+
+	/**
+	 * Outra transação empresta um livro do lote depois da validação e antes da
+	 * inserção, e só confirma enquanto a inserção do lote aguarda o índice único.
+	 * Somente esse item é recusado.
+	 */
+	@Test
+	public void deveRecusarSomenteItemEmprestadoPorOutraTransacaoDuranteOLote() throws Exception {
+		final LivroDto livro1 = livro();
+		final LivroDto livro2 = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		final EmprestimoRepository concorrente = mock(EmprestimoRepository.class, delegatesTo(repository));
+
+		doAnswer(invocation -> {
+			final CountDownLatch inserido = new CountDownLatch(1);
+
+			final Thread outraTransacao = new Thread(() -> novaTransacao().executeWithoutResult(status -> {
+				jdbc.update(EMPRESTAR, 99999999L, usuario2.getId(), livro1.getId(), LocalDate.now());
+				inserido.countDown();
+				aguarda(300);
+			}));
+
+			outraTransacao.start();
+			inserido.await(5, TimeUnit.SECONDS);
+
+			final int[] inseridos = repository.emprestarEmLote(invocation.getArgument(0), invocation.getArgument(1),
+					invocation.getArgument(2));
+
+			outraTransacao.join();
+
+			return inseridos;
+		}).when(concorrente).emprestarEmLote(any(), any(), anyInt());
+
+		ReflectionUtils.setValue("repository", service, concorrente);
+
+		// @formatter:off
+		final List<EmprestimoLoteResultadoDto> resultados = service.emprestarLote(Arrays.asList(
+				EmprestimoLoteItemDto.builder().livro(livro1.getId()).usuario(usuario1.getId()).build(),
+				EmprestimoLoteItemDto.builder().livro(livro2.getId()).usuario(usuario1.getId()).build()));
+		// @formatter:on
+
+		assertThat(resultados.get(0).isSucesso(), is(false));
+		assertThat(resultados.get(0).getMotivo(), is(equalTo(LivroJaEmprestadoException.class.getSimpleName())));
+		assertThat(resultados.get(1).isSucesso(), is(true));
+
+		assertThat(repository.findById(resultados.get(1).getEmprestimo()).map(Emprestimo::getLivro)
+				.map(l -> l.getId()).orElse(null), is(equalTo(livro2.getId())));
+	}
+
+	/**
+	 * Dois empréstimos do mesmo usuário, para livros diferentes, chegam juntos à
+	 * inserção depois de passar pela validação. Com um empréstimo já aberto, só
+	 * um deles cabe no máximo por usuário.
+	 */
+	@Test
+	public void deveRespeitarMaximoPorUsuarioEmEmprestimosParalelos() throws Exception {
+		final UsuarioDto usuario = usuario();
+
+		service.emprestar(usuario.getId(), livro().getId());
+
+		final List<LivroDto> livros = Arrays.asList(livro(), livro());
+
+		final EmprestimoRepository concorrente = mock(EmprestimoRepository.class, delegatesTo(repository));
+
+		final CyclicBarrier insercao = new CyclicBarrier(livros.size());
+
+		doAnswer(invocation -> {
+			insercao.await(5, TimeUnit.SECONDS);
+
+			return repository.emprestarSeDisponivel(invocation.getArgument(0), invocation.getArgument(1),
+					invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4));
+		}).when(concorrente).emprestarSeDisponivel(any(), any(), any(), any(), anyInt());
+
+		ReflectionUtils.setValue("repository", service, concorrente);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(livros.size());
+
+		try {
+			final List<Future<Boolean>> emprestimos = livros.stream()
+					.map(livro -> executor.submit(() -> novaTransacao().execute(status -> {
+						try {
+							service.emprestar(usuario.getId(), livro.getId());
+							return true;
+						} catch (final MaximoPedidosUsuarioException e) {
+							return false;
+						} catch (final LivrariaException e) {
+							throw new IllegalStateException(e);
+						}
+					})))
+					.collect(Collectors.toList());
+
+			int emprestados = 0;
+			for (final Future<Boolean> emprestimo : emprestimos) {
+				if (emprestimo.get(30, TimeUnit.SECONDS)) {
+					emprestados++;
+				}
+			}
+
+			assertThat(emprestados, is(1));
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM " + Constants.SCHEMA
+				+ ".emprestimo WHERE usuario_id = ? AND status = 'A'", Integer.class, usuario.getId()), is(2));
+	}
+
+	/**
+	 * Um empréstimo gravado por fora do serviço deixa o índice divergente do
+	 * banco. A primeira reconciliação não reconstrói o índice, já que a
+	 * divergência pode ser de um commit entre as duas contagens; a segunda sim.
+	 */
+	@Test
+	public void deveReconstruirIndiceSomenteComDivergenciaEmDuasReconciliacoes() throws Exception {
+		final LivroDto livro = livro();
+		final UsuarioDto usuario = usuario();
+
+		jdbc.update(EMPRESTAR, 99999999L, usuario.getId(), livro.getId(), LocalDate.now());
+
+		disponibilidade.reconcilia();
+
+		assertThat(disponibilidade.isSincronizado(), is(true));
+		assertThat(disponibilidade.isEmprestado(livro.getId()), is(false));
+
+		disponibilidade.reconcilia();
+
+		assertThat(disponibilidade.isSincronizado(), is(true));
+		assertThat(disponibilidade.isEmprestado(livro.getId()), is(true));
+	}
+
+	/**
+	 * O mesmo usuário pode gravar duas reservas iguais; o índice guarda uma só, e
+	 * a reconciliação também as conta uma única vez, sem reconstruir o índice.
+	 */
+	@Test
+	public void naoDeveReconstruirIndiceComReservaRepetida() throws Exception {
+		final LivroDto livro = livro();
+		final UsuarioDto usuario = usuario();
+
+		final LocalDate dataReserva = LocalDate.now().plusDays(5);
+
+		service.reservar(usuario.getId(), livro.getId(), dataReserva);
+		service.reservar(usuario.getId(), livro.getId(), dataReserva);
+
+		final Object indice = ReflectionUtils.getValue("indice", disponibilidade);
+
+		disponibilidade.reconcilia();
+		disponibilidade.reconcilia();
+
+		assertThat(disponibilidade.isSincronizado(), is(true));
+		assertThat(ReflectionUtils.getValue("indice", disponibilidade) == indice, is(true));
+	}
+
+	private TransactionTemplate novaTransacao() {
+		final TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		return template;
+	}
+
+	private static void aguarda(final long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private UsuarioDto usuario() throws UsuarioException, InstituicaoEnsinoException, ValidationLivrariaException {
+		// @formatter:off
+		final UsuarioDto usuario = UsuarioDto
+				.builder()
+					.nome(faker.name().fullName())
+					.endereco(faker.address().fullAddress())
+					.cpf(geradorCpfCnpj.cpf())
+					.email(faker.internet().emailAddress())
+					.telefone(faker.phoneNumber().phoneNumber())
+					.instituicao(instituicao())
+				.build();
+		// @formatter:on
+
+		return usuarioService.create(usuario);
+	}
+
+	private InstituicaoEnsinoDto instituicao() throws InstituicaoEnsinoException, ValidationLivrariaException {
+		// @formatter:off
+		final InstituicaoEnsinoDto instituicaoEnsino = InstituicaoEnsinoDto
+				.builder()
+					.nome(faker.company().name())
+					.cnpj(geradorCpfCnpj.cnpj())
+					.telefone(faker.phoneNumber().cellPhone())
+					.endereco(faker.address().fullAddress())
+				.build();
+		// @formatter:on
+
+		return insituicaoEnsinoService.create(instituicaoEnsino);
+	}
+
+	private LivroDto livro() throws LivroException, ValidationLivrariaException {
+		// @formatter:off
+		final LivroDto livro = LivroDto
+			.builder()
+				.titulo(faker.book().title())
+				.genero(faker.book().genre())
+				.autor(faker.book().author())
+				.sinopse(faker.lorem().characters(100, 200))
+			.build();
+		// @formatter:on
+
+		return livroService.create(livro);
+	}
+
+	@BeforeEach
+	public void prepare() throws LivrariaException {
+		dbPrepareUtils.clean();
+	}
+
+	@AfterEach
+	public void restaura() {
+		ReflectionUtils.setValue("repository", service, repository);
+	}
+}
@@ -0,0 +1,160 @@
+package br.com.orlandoburli.livraria.emprestimo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.github.javafaker.Faker;
+
+import br.com.orlandoburli.livraria.LivrariaApplication;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteItemDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteResultadoDto;
+import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
+import br.com.orlandoburli.livraria.repository.VerificadorSequencias;
+import br.com.orlandoburli.livraria.service.EmprestimoService;
+import br.com.orlandoburli.livraria.service.InstituicaoEnsinoService;
+import br.com.orlandoburli.livraria.service.LivroService;
+import br.com.orlandoburli.livraria.service.UsuarioService;
+import br.com.orlandoburli.livraria.utils.Constants;
+import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
+import br.com.orlandoburli.livraria.utils.GeraCpfCnpj;
+
+/**
+ * Ids reservados em blocos, como em produção. Os outros testes usam blocos de
+ * 1 id, já que o schema é recriado a cada teste. Este contexto usa um banco
+ * próprio, com as sequences alteradas para o tamanho do bloco, e um único
+ * teste: o bloco reservado em memória não sobrevive à recriação do schema.
+ */
+@SpringBootTest(classes = LivrariaApplication.class)
+@EnableAutoConfiguration
+@TestPropertySource(locations = "classpath:application.yml", properties = {
+		"spring.datasource.url=jdbc:h2:mem:ids-em-blocos;DB_CLOSE_DELAY=-1;MODE=Oracle",
+		"spring.jpa.properties.livraria.ids.tamanho-bloco=" + EmprestimoIdsEmBlocosTests.TAMANHO_BLOCO })
+public class EmprestimoIdsEmBlocosTests {
+
+	static final int TAMANHO_BLOCO = 50;
+
+	@Autowired
+	private DbPrepareUtils dbPrepareUtils;
+
+	@Autowired
+	private EmprestimoService service;
+
+	@Autowired
+	private LivroService livroService;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private InstituicaoEnsinoService insituicaoEnsinoService;
+
+	@Autowired
+	private VerificadorSequencias verificadorSequencias;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private final Faker faker = new Faker(new Locale("pt", "BR"));
+
+	private final GeraCpfCnpj geradorCpfCnpj = new GeraCpfCnpj();
+
+	/**
+	 * Empréstimos inseridos por SQL nativo e por JDBC batch recebem ids do mesmo
+	 * bloco, sem repetição. Uma sequence com incremento diferente do bloco é
+	 * rejeitada.
+	 */
+	@Test
+	public void deveEmprestarComIdsEmBlocos() throws LivrariaException {
+		dbPrepareUtils.clean();
+
+		alteraIncremento("%", TAMANHO_BLOCO);
+
+		verificadorSequencias.verifica();
+
+		final Set<Long> ids = new HashSet<>();
+
+		ids.add(service.emprestar(usuario().getId(), livro().getId()).getId());
+		ids.add(service.emprestar(usuario().getId(), livro().getId()).getId());
+
+		// @formatter:off
+		final List<EmprestimoLoteResultadoDto> resultados = service.emprestarLote(Arrays.asList(
+				EmprestimoLoteItemDto.builder().livro(livro().getId()).usuario(usuario().getId()).build(),
+				EmprestimoLoteItemDto.builder().livro(livro().getId()).usuario(usuario().getId()).build()));
+		// @formatter:on
+
+		resultados.forEach(r -> assertThat(r.isSucesso(), is(true)));
+		resultados.forEach(r -> ids.add(r.getEmprestimo()));
+
+		assertThat(ids.size(), is(4));
+		assertThat(jdbc.queryForObject("SELECT COUNT(DISTINCT id) FROM " + Constants.SCHEMA + ".emprestimo",
+				Integer.class), is(4));
+
+		alteraIncremento("SEQ_EMPRESTIMO", TAMANHO_BLOCO * 2);
+
+		assertThrows(IllegalStateException.class, verificadorSequencias::verifica);
+
+		alteraIncremento("SEQ_EMPRESTIMO", TAMANHO_BLOCO);
+	}
+
+	private void alteraIncremento(final String sequences, final int incremento) {
+		jdbc.queryForList("SELECT SEQUENCE_NAME FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = '"
+				+ Constants.SCHEMA.toUpperCase() + "' AND SEQUENCE_NAME LIKE ?", String.class, sequences)
+				.forEach(s -> jdbc.execute(
+						"ALTER SEQUENCE " + Constants.SCHEMA + "." + s + " INCREMENT BY " + incremento));
+	}
+
+	private UsuarioDto usuario() throws LivrariaException {
+		// @formatter:off
+		final InstituicaoEnsinoDto instituicaoEnsino = InstituicaoEnsinoDto
+				.builder()
+					.nome(faker.company().name())
+					.cnpj(geradorCpfCnpj.cnpj())
+					.telefone(faker.phoneNumber().cellPhone())
+					.endereco(faker.address().fullAddress())
+				.build();
+
+		final UsuarioDto usuario = UsuarioDto
+				.builder()
+					.nome(faker.name().fullName())
+					.endereco(faker.address().fullAddress())
+					.cpf(geradorCpfCnpj.cpf())
+					.email(faker.internet().emailAddress())
+					.telefone(faker.phoneNumber().phoneNumber())
+					.instituicao(insituicaoEnsinoService.create(instituicaoEnsino))
+				.build();
+		// @formatter:on
+
+		return usuarioService.create(usuario);
+	}
+
+	private LivroDto livro() throws LivrariaException {
+		// @formatter:off
+		final LivroDto livro = LivroDto
+			.builder()
+				.titulo(faker.book().title())
+				.genero(faker.book().genre())
+				.autor(faker.book().author())
+				.sinopse(faker.lorem().characters(100, 200))
+			.build();
+		// @formatter:on
+
+		return livroService.create(livro);
+	}
+}
@@ -1,15 +1,25 @@
 package br.com.orlandoburli.livraria.emprestimo;
 
+import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Locale;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -27,6 +37,7 @@ import com.github.javafaker.Faker;
 
 import br.com.orlandoburli.livraria.LivrariaApplication;
 import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteItemDto;
 import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
 import br.com.orlandoburli.livraria.dto.LivroDto;
 import br.com.orlandoburli.livraria.dto.UsuarioDto;
@@ -35,6 +46,9 @@ import br.com.orlandoburli.livraria.exceptions.instituicaoensino.InstituicaoEnsi
 import br.com.orlandoburli.livraria.exceptions.livro.LivroException;
 import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioException;
 import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
+import br.com.orlandoburli.livraria.metricas.ContadorSqlFilter;
+import br.com.orlandoburli.livraria.repository.LivroRepository;
+import br.com.orlandoburli.livraria.repository.UsuarioRepository;
 import br.com.orlandoburli.livraria.service.EmprestimoService;
 import br.com.orlandoburli.livraria.service.InstituicaoEnsinoService;
 import br.com.orlandoburli.livraria.service.LivroService;
@@ -68,6 +82,15 @@ public class EmprestimoResourceTests {
 	@Autowired
 	private InstituicaoEnsinoService insituicaoEnsinoService;
 
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private LivroRepository livroRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
 	private final Faker faker = new Faker(new Locale("pt", "BR"));
 
 	private final GeraCpfCnpj geradorCpfCnpj = new GeraCpfCnpj();
@@ -142,6 +165,119 @@ public class EmprestimoResourceTests {
 					.andExpect(status().isNoContent());
 	}
 
+	@Test
+	public void deveInformarComandosSqlDoEmprestimo() throws Exception {
+		final UsuarioDto usuario = usuario();
+		final LivroDto livro = livro();
+
+		// Sequence do id (bloco de tamanho 1 nos testes), o lock do usuário, o
+		// insert condicional e a leitura do empréstimo completo
+		mvc.perform(
+				post("/emprestar/" + livro.getId() + "/" + usuario.getId())
+					.contentType(MediaType.APPLICATION_JSON))
+					.andExpect(status().isCreated())
+					.andExpect(header().string(ContadorSqlFilter.CABECALHO_COMANDOS, "4"))
+					.andExpect(header().string(ContadorSqlFilter.CABECALHO_SELECTS_REPETIDOS, "0"));
+	}
+
+	@Test
+	public void deveInformarComandosSqlDaDevolucaoSemCorpo() throws Exception {
+		final EmprestimoDto emprestimo = service.emprestar(usuario().getId(), livro().getId());
+
+		mvc.perform(
+				post("/devolver/" + emprestimo.getId())
+					.contentType(MediaType.APPLICATION_JSON))
+					.andExpect(status().isNoContent())
+					.andExpect(header().string(ContadorSqlFilter.CABECALHO_COMANDOS, "2"))
+					.andExpect(header().string(ContadorSqlFilter.CABECALHO_SELECTS_REPETIDOS, "0"));
+	}
+
+	@Test
+	public void deveRealizarEmprestimoEmLote() throws Exception {
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+		final LivroDto livro = livro();
+
+		mvc.perform(
+				post("/emprestimos/lote")
+					.content(mapper.writeValueAsBytes(Arrays.asList(
+							EmprestimoLoteItemDto.builder().livro(livro.getId()).usuario(usuario1.getId()).build(),
+							EmprestimoLoteItemDto.builder().livro(livro.getId()).usuario(usuario2.getId()).build())))
+					.contentType(MediaType.APPLICATION_JSON))
+					.andExpect(status().isOk())
+					.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+					.andExpect(jsonPath("$[0].sucesso", is(true)))
+					.andExpect(jsonPath("$[0].emprestimo").isNumber())
+					.andExpect(jsonPath("$[1].sucesso", is(false)))
+					.andExpect(jsonPath("$[1].motivo", is("LivroJaEmprestadoException")))
+					.andExpect(jsonPath("$[1].mensagem", is("Livro de id " + livro.getId() + " não pode ser emprestado, já está emprestado a outro usuário")));
+	}
+
+	@Test
+	public void naoDeveRealizarEmprestimoEmLoteVazio() throws Exception {
+		mvc.perform(
+				post("/emprestimos/lote")
+					.content("[]")
+					.contentType(MediaType.APPLICATION_JSON))
+					.andExpect(status().isUnprocessableEntity())
+					.andExpect(jsonPath("$.message", is("Lote deve conter entre 1 e 500 itens")));
+	}
+
+	@Test
+	public void deveDevolverLivrosEmLote() throws Exception {
+		final UsuarioDto usuario = usuario();
+		final LivroDto livro = livro();
+
+		final EmprestimoDto emprestimo = service.emprestar(usuario.getId(), livro.getId());
+
+		mvc.perform(
+				post("/devolucoes/lote")
+					.content(mapper.writeValueAsBytes(Arrays.asList(emprestimo.getId(), emprestimo.getId())))
+					.contentType(MediaType.APPLICATION_JSON))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$[0].sucesso", is(true)))
+					.andExpect(jsonPath("$[1].sucesso", is(false)))
+					.andExpect(jsonPath("$[1].motivo", is("EmprestimoJaDevolvidoException")));
+	}
+
+	@Test
+	public void deveLerLivroEUsuarioDoCacheDeSegundoNivel() throws Exception {
+		final LivroDto livro = livro();
+		final UsuarioDto usuario = usuario();
+
+		final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		entityManagerFactory.getCache().evictAll();
+
+		livroRepository.findById(livro.getId());
+		usuarioRepository.findById(usuario.getId());
+
+		statistics.clear();
+
+		assertThat(livroRepository.findById(livro.getId()).isPresent(), is(true));
+		assertThat(usuarioRepository.findById(usuario.getId()).isPresent(), is(true));
+
+		assertThat(statistics.getPrepareStatementCount(), is(0L));
+		assertThat(statistics.getCacheRegionStatistics("livro").getHitCount(), is(1L));
+		assertThat(statistics.getCacheRegionStatistics("usuario").getHitCount(), is(1L));
+	}
+
+	@Test
+	public void deveRetornarEstatisticasCache() throws Exception {
+		final UsuarioDto usuario = usuario();
+
+		usuarioService.get(usuario.getId());
+		usuarioService.get(usuario.getId());
+
+		mvc.perform(
+				get("/cache/estatisticas")
+					.contentType(MediaType.APPLICATION_JSON))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$[*].regiao", hasItem("livro")))
+					.andExpect(jsonPath("$[?(@.regiao == 'usuario' && @.tipo == 'segundo-nivel')].gravacoes", hasItem(greaterThan(0))))
+					.andExpect(jsonPath("$[?(@.regiao == 'usuario' && @.tipo == 'leitura')].acertos", hasItem(greaterThan(0))));
+	}
+
 	private UsuarioDto usuario() throws UsuarioException, InstituicaoEnsinoException, ValidationLivrariaException {
 		final UsuarioDto usuario = UsuarioDto
 				.builder()
@@ -12,6 +12,10 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -22,12 +26,18 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.github.javafaker.Faker;
 
+import br.com.orlandoburli.livraria.cache.DisponibilidadeLivroCache;
+import br.com.orlandoburli.livraria.constraints.groups.Devolucao;
+import br.com.orlandoburli.livraria.dto.DevolucaoLoteResultadoDto;
 import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteItemDto;
+import br.com.orlandoburli.livraria.dto.EmprestimoLoteResultadoDto;
 import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
 import br.com.orlandoburli.livraria.dto.LivroDto;
 import br.com.orlandoburli.livraria.dto.ReservaDto;
@@ -40,6 +50,7 @@ import br.com.orlandoburli.livraria.exceptions.emprestimo.EmprestimoNaoEncontrad
 import br.com.orlandoburli.livraria.exceptions.emprestimo.EmprestimoNaoInformadoException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.LivroJaEmprestadoException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.LivroJaReservadoException;
+import br.com.orlandoburli.livraria.exceptions.emprestimo.LoteInvalidoException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.MaximoPedidosUsuarioException;
 import br.com.orlandoburli.livraria.exceptions.emprestimo.UsuarioBloqueadoPorAtrasoException;
 import br.com.orlandoburli.livraria.exceptions.instituicaoensino.CnpjJaExistenteException;
@@ -53,6 +64,10 @@ import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioException;
 import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioNaoEncontradoException;
 import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioNaoInformadoException;
 import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
+import br.com.orlandoburli.livraria.model.Emprestimo;
+import br.com.orlandoburli.livraria.repository.EmprestimoRepository;
+import br.com.orlandoburli.livraria.repository.LivroRepository;
+import br.com.orlandoburli.livraria.repository.UsuarioRepository;
 import br.com.orlandoburli.livraria.service.EmprestimoService;
 import br.com.orlandoburli.livraria.service.InstituicaoEnsinoService;
 import br.com.orlandoburli.livraria.service.LivroService;
@@ -62,7 +77,9 @@ import br.com.orlandoburli.livraria.service.UsuarioService;
 import br.com.orlandoburli.livraria.utils.ClockUtils;
 import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
 import br.com.orlandoburli.livraria.utils.GeraCpfCnpj;
+import br.com.orlandoburli.livraria.utils.OrcamentoSql;
 import br.com.orlandoburli.livraria.utils.ReflectionUtils;
+import br.com.orlandoburli.livraria.utils.ValidatorUtils;
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
@@ -77,6 +94,18 @@ public class EmprestimoServiceTests {
 	@Autowired
 	private DbPrepareUtils dbPrepareUtils;
 
+	@Autowired
+	private DisponibilidadeLivroCache disponibilidade;
+
+	@Autowired
+	private EmprestimoRepository emprestimoRepository;
+
+	@Autowired
+	private LivroRepository livroRepository;
+
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+
 	@Autowired
 	private LivroService livroService;
 
@@ -86,6 +115,12 @@ public class EmprestimoServiceTests {
 	@Autowired
 	private InstituicaoEnsinoService insituicaoEnsinoService;
 
+	@Autowired
+	private ValidatorUtils validatorUtils;
+
+	@Autowired
+	private OrcamentoSql orcamentoSql;
+
 	@Mock
 	private ClockUtils clock;
 
@@ -333,6 +368,30 @@ public class EmprestimoServiceTests {
 		verify(notificacaoService).notificarEntregaComAtraso(any());
 	}
 
+	@Test
+	public void deveLiberarUsuarioAposFimDaRestricao() throws LivrariaException {
+
+		final LivroDto livro = livro();
+
+		final UsuarioDto usuario = usuario();
+
+		final EmprestimoDto emprestimo = service.emprestar(usuario.getId(), livro.getId());
+
+		final LocalDate dataDevolucao = LocalDate.now().plusDays(faker.random().nextInt(31, 50));
+
+		prepareClockMockFor(dataDevolucao);
+
+		service.devolver(emprestimo.getId());
+
+		prepareClockMockFor(service.calculaDataRestricao(dataDevolucao));
+
+		assertThrows(UsuarioBloqueadoPorAtrasoException.class, () -> service.validaImpedimentosUsuario(usuario));
+
+		prepareClockMockFor(service.calculaDataRestricao(dataDevolucao).plusDays(1));
+
+		service.validaImpedimentosUsuario(usuario);
+	}
+
 	@Test
 	public void naoDeveDevolverLivroEmprestimoNaoExistente() {
 		assertThrows(EmprestimoNaoEncontradoException.class, () -> service.devolver(faker.random().nextLong()));
@@ -357,6 +416,27 @@ public class EmprestimoServiceTests {
 		assertThrows(EmprestimoJaDevolvidoException.class, () -> service.devolver(emprestimo.getId()));
 	}
 
+	@Test
+	public void deveValidarSomenteCamposDaDevolucao() throws LivrariaException {
+		// @formatter:off
+		final Emprestimo emprestimo = Emprestimo
+				.builder()
+					.status(StatusEmprestimo.DEVOLVIDO)
+				.build();
+		// @formatter:on
+
+		final ValidationLivrariaException exception = assertThrows(ValidationLivrariaException.class,
+				() -> validatorUtils.validate(emprestimo, Devolucao.class));
+
+		assertThat(exception.getErrors().keySet(), is(equalTo(Collections.singleton("entity"))));
+
+		emprestimo.setDataDevolucao(LocalDate.now());
+
+		validatorUtils.validate(emprestimo, Devolucao.class);
+
+		assertThrows(ValidationLivrariaException.class, () -> validatorUtils.validate(emprestimo));
+	}
+
 	@Test
 	public void deveReservarLivro() throws LivrariaException {
 
@@ -408,6 +488,298 @@ public class EmprestimoServiceTests {
 				() -> service.reservar(usuario2.getId(), livro.getId(), dataReserva1));
 	}
 
+	@Test
+	public void deveIndicarLivroEmprestadoNoIndice() throws LivrariaException {
+
+		final LivroDto livro = livro();
+
+		final UsuarioDto usuario = usuario();
+
+		assertThat(disponibilidade.isSincronizado(), is(true));
+		assertThat(disponibilidade.isEmprestado(livro.getId()), is(false));
+
+		final EmprestimoDto emprestimo = service.emprestar(usuario.getId(), livro.getId());
+
+		assertThat(disponibilidade.isEmprestado(livro.getId()), is(true));
+
+		service.devolver(emprestimo.getId());
+
+		assertThat(disponibilidade.isEmprestado(livro.getId()), is(false));
+	}
+
+	@Test
+	public void deveIndicarLivroReservadoNoIndice() throws LivrariaException {
+
+		final LivroDto livro = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		final LocalDate dataReserva = LocalDate.now().plusDays(faker.random().nextInt(5, 10));
+
+		service.reservar(usuario1.getId(), livro.getId(), dataReserva);
+
+		assertThat(disponibilidade.isReservado(livro.getId(), usuario1.getId(), LocalDate.now()), is(false));
+		assertThat(disponibilidade.isReservado(livro.getId(), usuario2.getId(), LocalDate.now()), is(true));
+		assertThat(disponibilidade.isReservado(livro.getId(), usuario2.getId(), dataReserva.plusDays(1)), is(false));
+	}
+
+	@Test
+	public void naoDeveEmprestarLivroJaEmprestadoComIndiceDessincronizado() throws LivrariaException {
+
+		final LivroDto livro = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		disponibilidade.invalida();
+
+		service.emprestar(usuario1.getId(), livro.getId());
+
+		assertThrows(LivroJaEmprestadoException.class, () -> service.emprestar(usuario2.getId(), livro.getId()));
+	}
+
+	@Test
+	public void naoDeveReservarLivroJaReservadoComIndiceDessincronizado() throws LivrariaException {
+
+		final LivroDto livro = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		final LocalDate dataReserva = LocalDate.now().plusDays(faker.random().nextInt(5, 10));
+
+		disponibilidade.invalida();
+
+		service.reservar(usuario1.getId(), livro.getId(), dataReserva);
+
+		assertThrows(LivroJaReservadoException.class,
+				() -> service.reservar(usuario2.getId(), livro.getId(), dataReserva));
+	}
+
+	@Test
+	public void naoDevePermitirDoisEmprestimosAbertosDoMesmoLivroNoBanco() throws LivrariaException {
+
+		final LivroDto livro = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		service.emprestar(usuario1.getId(), livro.getId());
+
+		// @formatter:off
+		final Emprestimo duplicado = Emprestimo
+				.builder()
+					.livro(livroRepository.findById(livro.getId()).orElse(null))
+					.usuario(usuarioRepository.findById(usuario2.getId()).orElse(null))
+					.dataEmprestimo(LocalDate.now())
+					.status(StatusEmprestimo.ABERTO)
+				.build();
+		// @formatter:on
+
+		assertThrows(DataIntegrityViolationException.class, () -> emprestimoRepository.saveAndFlush(duplicado));
+	}
+
+	@Test
+	public void deveEmprestarLivroJaDevolvido() throws LivrariaException {
+
+		final LivroDto livro = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		final EmprestimoDto emprestimo = service.emprestar(usuario1.getId(), livro.getId());
+
+		service.devolver(emprestimo.getId());
+
+		final EmprestimoDto novo = service.emprestar(usuario2.getId(), livro.getId());
+
+		assertThat(novo.getId(), is(greaterThan(emprestimo.getId())));
+		assertThat(novo.getUsuario().getId(), is(equalTo(usuario2.getId())));
+		assertThat(novo.getDataPrevistaDevolucao(), is(equalTo(service.calculaDataDevolucao(LocalDate.now()))));
+	}
+
+	@Test
+	public void naoDeveEmprestarLivroReservadoParaOutroUsuario() throws LivrariaException {
+
+		final LivroDto livro = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		service.reservar(usuario1.getId(), livro.getId(), LocalDate.now().plusDays(faker.random().nextInt(5, 10)));
+
+		disponibilidade.invalida();
+
+		assertThrows(LivroJaReservadoException.class, () -> service.emprestar(usuario2.getId(), livro.getId()));
+	}
+
+	@Test
+	public void deveEmprestarLoteComItensRecusados() throws LivrariaException {
+
+		final LivroDto livro1 = livro();
+		final LivroDto livro2 = livro();
+		final LivroDto livro3 = livro();
+		final LivroDto livro4 = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+		final UsuarioDto usuario3 = usuario();
+
+		service.reservar(usuario3.getId(), livro4.getId(), LocalDate.now().plusDays(5));
+
+		// @formatter:off
+		final List<EmprestimoLoteResultadoDto> resultados = service.emprestarLote(Arrays.asList(
+				EmprestimoLoteItemDto.builder().livro(livro1.getId()).usuario(usuario1.getId()).build(),
+				EmprestimoLoteItemDto.builder().livro(livro1.getId()).usuario(usuario2.getId()).build(),
+				EmprestimoLoteItemDto.builder().livro(livro2.getId()).usuario(usuario1.getId()).build(),
+				EmprestimoLoteItemDto.builder().livro(livro3.getId()).usuario(usuario1.getId()).build(),
+				EmprestimoLoteItemDto.builder().livro(livro4.getId()).usuario(usuario2.getId()).build(),
+				EmprestimoLoteItemDto.builder().livro(Long.MAX_VALUE).usuario(usuario2.getId()).build(),
+				EmprestimoLoteItemDto.builder().livro(livro3.getId()).build()));
+		// @formatter:on
+
+		assertThat(resultados.size(), is(equalTo(7)));
+
+		assertThat(resultados.get(0).isSucesso(), is(true));
+		assertThat(resultados.get(0).getEmprestimo(), is(greaterThan(0L)));
+		assertThat(resultados.get(1).getMotivo(), is(equalTo(LivroJaEmprestadoException.class.getSimpleName())));
+		assertThat(resultados.get(2).isSucesso(), is(true));
+		assertThat(resultados.get(3).getMotivo(), is(equalTo(MaximoPedidosUsuarioException.class.getSimpleName())));
+		assertThat(resultados.get(4).getMotivo(), is(equalTo(LivroJaReservadoException.class.getSimpleName())));
+		assertThat(resultados.get(5).getMotivo(), is(equalTo(LivroNaoEncontradoException.class.getSimpleName())));
+		assertThat(resultados.get(6).getMotivo(), is(equalTo(UsuarioNaoInformadoException.class.getSimpleName())));
+		assertThat(resultados.get(6).getMensagem(), is(notNullValue()));
+
+		final EmprestimoDto emprestimo = service.get(resultados.get(0).getEmprestimo());
+
+		assertThat(emprestimo.getLivro().getId(), is(equalTo(livro1.getId())));
+		assertThat(emprestimo.getUsuario().getId(), is(equalTo(usuario1.getId())));
+		assertThat(emprestimo.getStatus(), is(equalTo(StatusEmprestimo.ABERTO)));
+
+		assertThrows(LivroJaEmprestadoException.class, () -> service.emprestar(usuario2.getId(), livro2.getId()));
+	}
+
+	@Test
+	public void naoDeveEmprestarLoteVazio() {
+		assertThrows(LoteInvalidoException.class, () -> service.emprestarLote(Collections.emptyList()));
+		assertThrows(LoteInvalidoException.class, () -> service.emprestarLote(null));
+	}
+
+	@Test
+	public void deveDevolverLoteComItensRecusados() throws LivrariaException {
+
+		final LivroDto livro1 = livro();
+		final LivroDto livro2 = livro();
+		final LivroDto livro3 = livro();
+
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		final EmprestimoDto emprestimo1 = service.emprestar(usuario1.getId(), livro1.getId());
+		final EmprestimoDto emprestimo2 = service.emprestar(usuario2.getId(), livro2.getId());
+		final EmprestimoDto emprestimo3 = service.emprestar(usuario2.getId(), livro3.getId());
+
+		service.devolver(emprestimo3.getId());
+
+		final LocalDate dataDevolucao = LocalDate.now().plusDays(31);
+
+		prepareClockMockFor(dataDevolucao);
+
+		final List<DevolucaoLoteResultadoDto> resultados = service.devolverLote(Arrays.asList(emprestimo1.getId(),
+				emprestimo2.getId(), emprestimo1.getId(), emprestimo3.getId(), Long.MAX_VALUE, null));
+
+		assertThat(resultados.size(), is(equalTo(6)));
+
+		assertThat(resultados.get(0).isSucesso(), is(true));
+		assertThat(resultados.get(0).getRestritoAte(), is(equalTo(service.calculaDataRestricao(dataDevolucao))));
+		assertThat(resultados.get(1).isSucesso(), is(true));
+		assertThat(resultados.get(2).getMotivo(), is(equalTo(EmprestimoJaDevolvidoException.class.getSimpleName())));
+		assertThat(resultados.get(3).getMotivo(), is(equalTo(EmprestimoJaDevolvidoException.class.getSimpleName())));
+		assertThat(resultados.get(4).getMotivo(), is(equalTo(EmprestimoNaoEncontradoException.class.getSimpleName())));
+		assertThat(resultados.get(5).getMotivo(), is(equalTo(EmprestimoNaoInformadoException.class.getSimpleName())));
+
+		final EmprestimoDto founded = service.get(emprestimo1.getId());
+
+		assertThat(founded.getDataDevolucao(), is(equalTo(dataDevolucao)));
+		assertThat(founded.getStatus(), is(equalTo(StatusEmprestimo.DEVOLVIDO)));
+
+		assertThat(disponibilidade.isEmprestado(livro1.getId()), is(false));
+
+		assertThrows(UsuarioBloqueadoPorAtrasoException.class, () -> service.validaImpedimentosUsuario(usuario1));
+		assertThrows(UsuarioBloqueadoPorAtrasoException.class, () -> service.validaImpedimentosUsuario(usuario2));
+
+		verify(notificacaoService).notificarEntregasComAtraso(any());
+	}
+
+	@Test
+	public void naoDeveDevolverLoteVazio() {
+		assertThrows(LoteInvalidoException.class, () -> service.devolverLote(Collections.emptyList()));
+	}
+
+	@Test
+	public void deveEmprestarDentroDoOrcamentoDeComandosSql() throws LivrariaException {
+		final LivroDto livro = livro();
+		final UsuarioDto usuario = usuario();
+
+		dbPrepareUtils.limpaCaches();
+
+		// Lock do usuário, empréstimo condicional em um único insert e a leitura do
+		// empréstimo completo
+		orcamentoSql.maximo(3, () -> service.emprestar(usuario.getId(), livro.getId()));
+	}
+
+	@Test
+	public void deveDevolverDentroDoOrcamentoDeComandosSql() throws LivrariaException {
+		final EmprestimoDto emprestimo = service.emprestar(usuario().getId(), livro().getId());
+
+		dbPrepareUtils.limpaCaches();
+
+		orcamentoSql.maximo(2, () -> service.devolver(emprestimo.getId()));
+	}
+
+	@Test
+	public void deveReservarDentroDoOrcamentoDeComandosSql() throws LivrariaException {
+		final LivroDto livro = livro();
+		final UsuarioDto usuario = usuario();
+
+		dbPrepareUtils.limpaCaches();
+
+		orcamentoSql.maximo(5, () -> service.reservar(usuario.getId(), livro.getId(), LocalDate.now().plusDays(1)));
+	}
+
+	@Test
+	public void deveEmprestarLoteSemRepetirConsultas() throws LivrariaException {
+		final UsuarioDto usuario1 = usuario();
+		final UsuarioDto usuario2 = usuario();
+
+		final List<EmprestimoLoteItemDto> itens = new ArrayList<>();
+
+		for (final UsuarioDto usuario : Arrays.asList(usuario1, usuario1, usuario2, usuario2)) {
+			itens.add(EmprestimoLoteItemDto.builder().livro(livro().getId()).usuario(usuario.getId()).build());
+		}
+
+		dbPrepareUtils.limpaCaches();
+
+		// Consultas por lote, independentes da quantidade de itens. Os empréstimos
+		// são gravados em lote pelo JDBC, fora da contagem do Hibernate
+		orcamentoSql.maximo(4, () -> service.emprestarLote(itens));
+	}
+
+	@Test
+	public void deveDevolverLoteSemRepetirConsultas() throws LivrariaException {
+		final UsuarioDto usuario = usuario();
+
+		final List<Long> ids = Arrays.asList(service.emprestar(usuario.getId(), livro().getId()).getId(),
+				service.emprestar(usuario.getId(), livro().getId()).getId());
+
+		dbPrepareUtils.limpaCaches();
+
+		// As devoluções e restrições são gravadas em lote pelo JDBC, fora da
+		// contagem do Hibernate
+		orcamentoSql.maximo(1, () -> service.devolverLote(ids));
+	}
+
 	// @formatter:off
 	private LivroDto livro() throws LivroNaoInformadoException, ValidationLivrariaException {
 		final LivroDto livro = LivroDto
@@ -0,0 +1,234 @@
+package br.com.orlandoburli.livraria.emprestimo;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.github.javafaker.Faker;
+
+import br.com.orlandoburli.livraria.LivrariaApplication;
+import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
+import br.com.orlandoburli.livraria.enums.StatusEmprestimo;
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
+import br.com.orlandoburli.livraria.exceptions.instituicaoensino.InstituicaoEnsinoException;
+import br.com.orlandoburli.livraria.exceptions.livro.LivroException;
+import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioException;
+import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
+import br.com.orlandoburli.livraria.model.Restricao;
+import br.com.orlandoburli.livraria.repository.EmprestimoRepository;
+import br.com.orlandoburli.livraria.repository.ReservaRepository;
+import br.com.orlandoburli.livraria.repository.RestricaoRepository;
+import br.com.orlandoburli.livraria.service.EmprestimoService;
+import br.com.orlandoburli.livraria.service.InstituicaoEnsinoService;
+import br.com.orlandoburli.livraria.service.LivroService;
+import br.com.orlandoburli.livraria.service.UsuarioService;
+import br.com.orlandoburli.livraria.utils.ClockUtils;
+import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
+import br.com.orlandoburli.livraria.utils.GeraCpfCnpj;
+import br.com.orlandoburli.livraria.utils.ReflectionUtils;
+
+/**
+ * Verifica a quantidade de comandos SQL de cada caso de uso, com os caches de
+ * leitura e de segundo nível vazios.
+ */
+@SpringBootTest(classes = LivrariaApplication.class)
+@EnableAutoConfiguration
+@TestPropertySource(locations = "classpath:application.yml")
+public class PlanoConsultasTests {
+
+	@Autowired
+	private DbPrepareUtils dbPrepareUtils;
+
+	@Autowired
+	private EmprestimoService service;
+
+	@Autowired
+	private LivroService livroService;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private InstituicaoEnsinoService insituicaoEnsinoService;
+
+	@Autowired
+	private EmprestimoRepository repository;
+
+	@Autowired
+	private ReservaRepository reservaRepository;
+
+	@Autowired
+	private RestricaoRepository restricaoRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private final Faker faker = new Faker(new Locale("pt", "BR"));
+
+	private final GeraCpfCnpj geradorCpfCnpj = new GeraCpfCnpj();
+
+	@Mock
+	private ClockUtils clock;
+
+	private Statistics statistics;
+
+	@Test
+	public void deveBuscarEmprestimoCompletoEmUmaConsulta() throws LivrariaException {
+		final EmprestimoDto emprestimo = service.emprestar(usuario().getId(), livro().getId());
+
+		limpaCaches();
+
+		final EmprestimoDto lido = service.get(emprestimo.getId());
+
+		assertThat(statistics.getPrepareStatementCount(), is(1L));
+		assertThat(lido.getLivro().getTitulo(), is(notNullValue()));
+		assertThat(lido.getUsuario().getNome(), is(notNullValue()));
+		assertThat(lido.getUsuario().getInstituicao().getNome(), is(notNullValue()));
+	}
+
+	@Test
+	public void deveBuscarUsuarioComInstituicaoEmUmaConsulta() throws LivrariaException {
+		final UsuarioDto usuario = usuario();
+
+		limpaCaches();
+
+		final UsuarioDto lido = usuarioService.get(usuario.getId());
+
+		assertThat(statistics.getPrepareStatementCount(), is(1L));
+		assertThat(lido.getInstituicao().getNome(), is(notNullValue()));
+	}
+
+	@Test
+	public void deveVerificarEmprestimoDoLivroSemCarregarEntidades() throws LivrariaException {
+		final LivroDto livro = livro();
+		final UsuarioDto usuario = usuario();
+
+		service.emprestar(usuario.getId(), livro.getId());
+
+		limpaCaches();
+
+		assertThat(repository.existsByLivroIdAndStatus(livro.getId(), StatusEmprestimo.ABERTO), is(true));
+		assertThat(repository.existsByUsuarioIdAndStatus(usuario.getId(), StatusEmprestimo.ABERTO), is(true));
+		assertThat(reservaRepository.existsByLivroIdAndDataReservaGreaterThanEqualAndUsuarioIdNot(livro.getId(),
+				clock.hoje(), usuario.getId()), is(false));
+
+		assertThat(statistics.getPrepareStatementCount(), is(3L));
+		assertThat(statistics.getEntityLoadCount(), is(0L));
+	}
+
+	@Test
+	public void deveCarregarRestricaoSemEmprestimo() throws LivrariaException {
+		final EmprestimoDto emprestimo = service.emprestar(usuario().getId(), livro().getId());
+
+		// @formatter:off
+		final Restricao restricao = restricaoRepository.save(Restricao
+				.builder()
+					.emprestimo(repository.getOne(emprestimo.getId()))
+					.restritoAte(clock.hoje().plusDays(30))
+				.build());
+		// @formatter:on
+
+		limpaCaches();
+
+		final Restricao lida = restricaoRepository.findById(restricao.getId()).orElse(null);
+
+		assertThat(statistics.getPrepareStatementCount(), is(1L));
+		assertThat(lida.getEmprestimo().getId(), is(emprestimo.getId()));
+		assertThat(Hibernate.isInitialized(lida.getEmprestimo()), is(false));
+	}
+
+	@Test
+	public void deveDevolverSemRecarregarEmprestimoCompleto() throws LivrariaException {
+		final EmprestimoDto emprestimo = service.emprestar(usuario().getId(), livro().getId());
+
+		limpaCaches();
+
+		service.devolver(emprestimo.getId());
+
+		// Empréstimo completo, empréstimo para o merge e o update. Livro e usuário
+		// são os já carregados pela primeira consulta
+		assertThat(statistics.getPrepareStatementCount(), is(3L));
+		assertThat(statistics.getEntityUpdateCount(), is(1L));
+	}
+
+	private void limpaCaches() {
+		dbPrepareUtils.limpaCaches();
+
+		statistics.clear();
+	}
+
+	private UsuarioDto usuario() throws UsuarioException, InstituicaoEnsinoException, ValidationLivrariaException {
+		// @formatter:off
+		final UsuarioDto usuario = UsuarioDto
+				.builder()
+					.nome(faker.name().fullName())
+					.endereco(faker.address().fullAddress())
+					.cpf(geradorCpfCnpj.cpf())
+					.email(faker.internet().emailAddress())
+					.telefone(faker.phoneNumber().phoneNumber())
+					.instituicao(instituicao())
+				.build();
+		// @formatter:on
+
+		return usuarioService.create(usuario);
+	}
+
+	private InstituicaoEnsinoDto instituicao() throws InstituicaoEnsinoException, ValidationLivrariaException {
+		// @formatter:off
+		final InstituicaoEnsinoDto instituicaoEnsino = InstituicaoEnsinoDto
+				.builder()
+					.nome(faker.company().name())
+					.cnpj(geradorCpfCnpj.cnpj())
+					.telefone(faker.phoneNumber().cellPhone())
+					.endereco(faker.address().fullAddress())
+				.build();
+		// @formatter:on
+
+		return insituicaoEnsinoService.create(instituicaoEnsino);
+	}
+
+	private LivroDto livro() throws LivroException, ValidationLivrariaException {
+		// @formatter:off
+		final LivroDto livro = LivroDto
+			.builder()
+				.titulo(faker.book().title())
+				.genero(faker.book().genre())
+				.autor(faker.book().author())
+				.sinopse(faker.lorem().characters(100, 200))
+			.build();
+		// @formatter:on
+
+		return livroService.create(livro);
+	}
+
+	@BeforeEach
+	public void prepare() {
+		dbPrepareUtils.clean();
+
+		ReflectionUtils.setValue("clock", service, clock);
+
+		when(clock.hoje()).thenReturn(LocalDate.now());
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+}
@@ -0,0 +1,178 @@
+package br.com.orlandoburli.livraria.livro;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.github.javafaker.Faker;
+
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.PaginaDto;
+import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
+import br.com.orlandoburli.livraria.model.Livro;
+import br.com.orlandoburli.livraria.repository.IndiceBuscaLivroRepository;
+import br.com.orlandoburli.livraria.service.LivroService;
+import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
+
+/**
+ * Testes da busca de livros pelo índice invertido em memória. Não são
+ * transacionais, já que o índice é atualizado somente após o commit.
+ */
+@SpringBootTest
+@EnableAutoConfiguration
+@TestPropertySource(locations = "classpath:application.yml", properties = "livraria.busca.implementacao=indice")
+public class IndiceBuscaLivroTests {
+
+	@Autowired
+	private LivroService service;
+
+	@Autowired
+	private IndiceBuscaLivroRepository indice;
+
+	@Autowired
+	private DbPrepareUtils dbPrepareUtils;
+
+	private final Faker faker = new Faker(new Locale("pt", "BR"));
+
+	@Test
+	public void deveBuscarLivrosPorRelevancia() throws LivrariaException {
+		final LivroDto livro1 = buildLivroRandom();
+		livro1.setSinopse("A busca pelo zorblax perdido");
+
+		final LivroDto livro2 = buildLivroRandom();
+		livro2.setTitulo("O Zorblax Perdido");
+
+		final LivroDto livro3 = buildLivroRandom();
+		livro3.setTitulo("Zorblax Reencontrado");
+
+		final Long id1 = service.create(livro1).getId();
+		final Long id2 = service.create(livro2).getId();
+		final Long id3 = service.create(livro3).getId();
+
+		assertThat(ids(service.search("zorb", null, null)), contains(id2, id3, id1));
+		assertThat(ids(service.search("Zorblax, perdi", null, null)), contains(id2, id1));
+		assertThat(ids(service.search("zorblaxes", null, null)), hasSize(0));
+	}
+
+	@Test
+	public void deveBuscarLivrosSemAcentos() throws LivrariaException {
+		final LivroDto livro = buildLivroRandom();
+		livro.setTitulo("Zorblax do Coração Ávido");
+
+		final Long id = service.create(livro).getId();
+
+		assertThat(ids(service.search("zorblax coracao", null, null)), contains(id));
+		assertThat(ids(service.search("ZORBLAX ÁVIDO", null, null)), contains(id));
+		assertThat(ids(service.search("zorblax avi", null, null)), contains(id));
+	}
+
+	@Test
+	public void deveBuscarLivrosPaginados() throws LivrariaException {
+		final LivroDto livro1 = buildLivroRandom();
+		livro1.setTitulo("Zorblax Um");
+
+		final LivroDto livro2 = buildLivroRandom();
+		livro2.setTitulo("Zorblax Dois");
+
+		final Long id1 = service.create(livro1).getId();
+		final Long id2 = service.create(livro2).getId();
+
+		final PaginaDto<LivroDto> pagina1 = service.search("zorblax", null, 1);
+
+		assertThat(ids(pagina1), contains(id1));
+		assertThat(ids(service.search("zorblax", pagina1.getProximaPagina(), 1)), contains(id2));
+	}
+
+	@Test
+	public void deveAtualizarIndiceAoAlterarLivro() throws LivrariaException {
+		final LivroDto livro = buildLivroRandom();
+		livro.setTitulo("Zorblax Antigo");
+
+		final LivroDto created = service.create(livro);
+
+		created.setTitulo("Zorblax Renovado");
+		service.update(created);
+
+		assertThat(ids(service.search("zorblax antigo", null, null)), hasSize(0));
+		assertThat(ids(service.search("zorblax renovado", null, null)), contains(created.getId()));
+	}
+
+	@Test
+	public void deveRemoverDoIndiceAoExcluirLivro() throws LivrariaException {
+		final LivroDto livro = buildLivroRandom();
+		livro.setTitulo("Zorblax Excluído");
+
+		final Long id = service.create(livro).getId();
+
+		service.destroy(id);
+
+		assertThat(ids(service.search("zorblax", null, null)), hasSize(0));
+	}
+
+	@Test
+	public void deveBuscarLivrosInativosForaDoIndice() throws LivrariaException {
+		final LivroDto livro = buildLivroRandom();
+		livro.setTitulo("Zorblax Inativo");
+
+		final Long id = service.create(livro).getId();
+
+		service.destroy(id);
+
+		assertThat(indice.buscar(List.of("zorblax", "inativo"), Status.INATIVO, 0, 10).stream().map(Livro::getId)
+				.collect(Collectors.toList()), contains(id));
+	}
+
+	@Test
+	public void deveReconstruirIndice() throws LivrariaException {
+		final LivroDto livro = buildLivroRandom();
+		livro.setTitulo("Zorblax Reconstruído");
+
+		final LivroDto outro = buildLivroRandom();
+		outro.setSinopse("Outro zorblax reconstruído");
+
+		final Long id = service.create(livro).getId();
+		final Long outroId = service.create(outro).getId();
+
+		indice.reconstruir();
+
+		assertThat(ids(service.search("zorblax reconstruido", null, null)), contains(id, outroId));
+		assertThat(ids(service.search("outro zorblax", null, null)), contains(outroId));
+	}
+
+	private List<Long> ids(final PaginaDto<LivroDto> pagina) {
+		final List<Long> ids = new ArrayList<>();
+		pagina.getItens().forEach(l -> ids.add(l.getId()));
+		return ids;
+	}
+
+	private LivroDto buildLivroRandom() {
+		// @formatter:off
+		final LivroDto livro = LivroDto
+			.builder()
+				.titulo(faker.book().title())
+				.genero(faker.book().genre())
+				.autor(faker.book().author())
+				.sinopse(faker.lorem().characters(100, 200))
+			.build();
+		// @formatter:on
+		return livro;
+	}
+
+	@BeforeEach
+	public void prepare() {
+		dbPrepareUtils.clean();
+	}
+}
@@ -2,15 +2,19 @@ package br.com.orlandoburli.livraria.livro;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
 import java.util.Locale;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +24,7 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
@@ -30,8 +35,10 @@ import com.github.javafaker.Faker;
 import br.com.orlandoburli.livraria.LivrariaApplication;
 import br.com.orlandoburli.livraria.dto.LivroDto;
 import br.com.orlandoburli.livraria.service.LivroService;
+import br.com.orlandoburli.livraria.service.VariantesCapaService;
 import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
 import br.com.orlandoburli.livraria.utils.ImageUtils;
+import br.com.orlandoburli.livraria.utils.Utils;
 
 @SpringBootTest(webEnvironment = WebEnvironment.MOCK, classes = LivrariaApplication.class)
 @AutoConfigureMockMvc
@@ -48,6 +55,9 @@ public class LivroResourceTests {
 	@Autowired
 	private LivroService service;
 
+	@Autowired
+	private VariantesCapaService variantesCapaService;
+
 	private final Faker faker = new Faker(new Locale("pt", "BR"));
 
 	@Autowired
@@ -134,6 +144,55 @@ public class LivroResourceTests {
 					.andExpect(jsonPath("$.sinopse", is(livro.getSinopse())));
 	}
 
+	@Test
+	public void deveListarLivros() throws Exception {
+		final LivroDto livro1 = service.create(livro());
+		final LivroDto livro2 = service.create(livro());
+
+		final String proximaPagina = mapper.readTree(mvc.perform(
+				get("/livros")
+				.param("tamanho", "1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.itens", hasSize(1)))
+				.andExpect(jsonPath("$.itens[0].id", is(livro1.getId().intValue())))
+				.andReturn().getResponse().getContentAsString()).get("proximaPagina").asText();
+
+		mvc.perform(
+				get("/livros")
+				.param("tamanho", "1")
+				.param("cursor", proximaPagina))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.itens", hasSize(1)))
+				.andExpect(jsonPath("$.itens[0].id", is(livro2.getId().intValue())))
+				.andExpect(jsonPath("$.proximaPagina", is(nullValue())));
+	}
+
+	@Test
+	public void naoDeveListarLivrosComCursorInvalido() throws Exception {
+		mvc.perform(
+				get("/livros")
+				.param("cursor", "***"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void deveBuscarLivros() throws Exception {
+		final LivroDto livro = livro();
+		livro.setTitulo("O Zorblax Perdido");
+
+		final LivroDto criado = service.create(livro);
+
+		service.create(livro());
+
+		mvc.perform(
+				get("/livros/busca")
+				.param("texto", "zorb"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.itens", hasSize(1)))
+				.andExpect(jsonPath("$.itens[0].id", is(criado.getId().intValue())))
+				.andExpect(jsonPath("$.proximaPagina", is(nullValue())));
+	}
+
 	@Test
 	public void deveSalvarCapa() throws Exception {
 		final LivroDto livro = service.create(livro());
@@ -153,11 +212,63 @@ public class LivroResourceTests {
 
 		final byte[] book01 = imageUtils.book01();
 
-		service.saveCapa(livro.getId(), book01);
+		service.saveCapa(livro.getId(), new ByteArrayInputStream(book01));
 
 		mvc.perform(
 				get("/livros/" + livro.getId() + "/capa"))
-				.andExpect(status().isOk());
+				.andExpect(status().isOk())
+				.andExpect(content().bytes(book01))
+				.andExpect(content().contentType(MediaType.IMAGE_JPEG))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + Utils.sha1(book01) + "\""))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"));
+	}
+
+	@Test
+	public void naoDeveRetornarCapaNaoModificada() throws Exception {
+		final LivroDto livro = service.create(livro());
+
+		final byte[] book01 = imageUtils.book01();
+
+		service.saveCapa(livro.getId(), new ByteArrayInputStream(book01));
+
+		mvc.perform(
+				get("/livros/" + livro.getId() + "/capa")
+				.header(HttpHeaders.IF_NONE_MATCH, "\"" + Utils.sha1(book01) + "\""))
+				.andExpect(status().isNotModified())
+				.andExpect(content().bytes(new byte[0]))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"));
+	}
+
+	@Test
+	public void deveRetornarCapaReduzida() throws Exception {
+		final LivroDto livro = service.create(livro());
+
+		final byte[] book01 = imageUtils.book01();
+
+		service.saveCapa(livro.getId(), new ByteArrayInputStream(book01));
+
+		variantesCapaService.gerarVariantes(Utils.sha1(book01)).get();
+
+		mvc.perform(
+				get("/livros/" + livro.getId() + "/capa")
+				.param("size", "thumb"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.IMAGE_JPEG))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + Utils.sha1(book01) + "-thumb\""))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"));
+	}
+
+	@Test
+	public void naoDeveRetornarCapaComTamanhoInvalido() throws Exception {
+		final LivroDto livro = service.create(livro());
+
+		service.saveCapa(livro.getId(), new ByteArrayInputStream(imageUtils.book01()));
+
+		mvc.perform(
+				get("/livros/" + livro.getId() + "/capa")
+				.param("size", "gigante"))
+				.andExpect(status().isBadRequest());
 	}
 
 	private LivroDto livro() {
@@ -4,15 +4,29 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
 
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,21 +36,35 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 
 import com.github.javafaker.Faker;
 
+import br.com.orlandoburli.livraria.cache.CacheLeitura;
+import br.com.orlandoburli.livraria.dto.CapaDto;
 import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.PaginaDto;
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
 import br.com.orlandoburli.livraria.enums.Status;
+import br.com.orlandoburli.livraria.enums.TamanhoCapa;
+import br.com.orlandoburli.livraria.exceptions.livro.CapaInvalidaException;
+import br.com.orlandoburli.livraria.exceptions.livro.CapaMuitoGrandeException;
 import br.com.orlandoburli.livraria.exceptions.livro.CapaNaoEncontradaException;
 import br.com.orlandoburli.livraria.exceptions.livro.CapaNaoInformadaException;
+import br.com.orlandoburli.livraria.exceptions.livro.FiltroLivroInvalidoException;
 import br.com.orlandoburli.livraria.exceptions.livro.LivroNaoEncontradoException;
 import br.com.orlandoburli.livraria.exceptions.livro.LivroNaoInformadoException;
+import br.com.orlandoburli.livraria.exceptions.livro.TamanhoCapaInvalidoException;
 import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
 import br.com.orlandoburli.livraria.model.Livro;
 import br.com.orlandoburli.livraria.repository.LivroRepository;
+import br.com.orlandoburli.livraria.service.LimpezaCapasService;
 import br.com.orlandoburli.livraria.service.LivroService;
+import br.com.orlandoburli.livraria.service.VariantesCapaService;
+import br.com.orlandoburli.livraria.storage.CapaStorage;
 import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
 import br.com.orlandoburli.livraria.utils.ImageUtils;
+import br.com.orlandoburli.livraria.utils.ReflectionUtils;
 import br.com.orlandoburli.livraria.utils.Utils;
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
@@ -52,12 +80,24 @@ public class LivroServiceTests {
 	@Autowired
 	private LivroRepository repository;
 
+	@Autowired
+	private CacheLeitura<LivroDto> livroCache;
+
 	@Autowired
 	private DbPrepareUtils dbPrepareUtils;
 
 	@Autowired
 	private ImageUtils imageUtils;
 
+	@Autowired
+	private VariantesCapaService variantesCapaService;
+
+	@Autowired
+	private LimpezaCapasService limpezaCapasService;
+
+	@Autowired
+	private CapaStorage capaStorage;
+
 	private final Faker faker = new Faker(new Locale("pt", "BR"));
 
 	@Test
@@ -355,27 +395,213 @@ public class LivroServiceTests {
 		assertThrows(LivroNaoEncontradoException.class, () -> service.get(created.getId()));
 	}
 
+	@Test
+	public void deveEncontrarLivroEmCache() throws LivrariaException {
+		final LivroDto created = service.create(buildLivroRandom());
+
+		service.get(created.getId());
+
+		final long falhas = livroCache.getFalhas();
+
+		service.get(created.getId()).setTitulo("Alterado");
+
+		assertThat(service.get(created.getId()).getTitulo(), is(equalTo(created.getTitulo())));
+		assertThat(livroCache.getFalhas(), is(equalTo(falhas)));
+
+		created.setTitulo("Titulo Alterado");
+		service.update(created);
+
+		assertThat(service.get(created.getId()).getTitulo(), is(equalTo("Titulo Alterado")));
+	}
+
+	@Test
+	public void deveEncontrarLivroCriadoAposBuscaSemResultado() throws LivrariaException {
+		final LivroDto created = service.create(buildLivroRandom());
+
+		final Long proximoId = created.getId() + 1;
+
+		assertThrows(LivroNaoEncontradoException.class, () -> service.get(proximoId));
+
+		final long falhas = livroCache.getFalhas();
+
+		assertThrows(LivroNaoEncontradoException.class, () -> service.get(proximoId));
+
+		assertThat(livroCache.getFalhas(), is(equalTo(falhas)));
+
+		final LivroDto proximo = service.create(buildLivroRandom());
+
+		assertThat(proximo.getId(), is(equalTo(proximoId)));
+		assertThat(service.get(proximoId).getTitulo(), is(equalTo(proximo.getTitulo())));
+	}
+
+	@Test
+	public void deveListarLivrosPaginados() throws LivrariaException {
+		final List<Long> criados = new ArrayList<>();
+
+		for (int i = 0; i < 5; i++) {
+			criados.add(service.create(buildLivroRandom()).getId());
+		}
+
+		final List<Long> listados = new ArrayList<>();
+
+		PaginaDto<LivroDto> pagina = service.list(null, null, null, null, 2);
+
+		assertThat(pagina.getItens(), hasSize(2));
+
+		listados.addAll(ids(pagina));
+
+		pagina = service.list(null, null, null, pagina.getProximaPagina(), 2);
+
+		assertThat(pagina.getItens(), hasSize(2));
+
+		listados.addAll(ids(pagina));
+
+		pagina = service.list(null, null, null, pagina.getProximaPagina(), 2);
+
+		assertThat(pagina.getItens(), hasSize(1));
+		assertThat(pagina.getProximaPagina(), is(nullValue()));
+
+		listados.addAll(ids(pagina));
+
+		assertThat(listados, is(equalTo(criados)));
+	}
+
+	@Test
+	public void deveListarLivrosPorGeneroEAutor() throws LivrariaException {
+		final LivroDto livro1 = buildLivroRandom();
+		livro1.setGenero("Fantasia");
+		livro1.setAutor("Autor Um");
+
+		final LivroDto livro2 = buildLivroRandom();
+		livro2.setGenero("Fantasia");
+		livro2.setAutor("Autor Dois");
+
+		final LivroDto livro3 = buildLivroRandom();
+		livro3.setGenero("Terror");
+		livro3.setAutor("Autor Um");
+
+		final Long id1 = service.create(livro1).getId();
+		final Long id2 = service.create(livro2).getId();
+		final Long id3 = service.create(livro3).getId();
+
+		assertThat(ids(service.list(null, "Fantasia", null, null, null)), contains(id1, id2));
+		assertThat(ids(service.list(null, null, "Autor Um", null, null)), contains(id1, id3));
+		assertThat(ids(service.list(null, "Fantasia", "Autor Um", null, null)), contains(id1));
+	}
+
+	@Test
+	public void deveListarLivrosPorStatus() throws LivrariaException {
+		final Long ativo = service.create(buildLivroRandom()).getId();
+		final Long inativo = service.create(buildLivroRandom()).getId();
+
+		service.destroy(inativo);
+
+		assertThat(ids(service.list(null, null, null, null, null)), contains(ativo));
+		assertThat(ids(service.list("I", null, null, null, null)), contains(inativo));
+	}
+
+	@Test
+	public void naoDeveListarLivrosComFiltroInvalido() {
+		assertThrows(FiltroLivroInvalidoException.class, () -> service.list("X", null, null, null, null));
+		assertThrows(FiltroLivroInvalidoException.class, () -> service.list(null, null, null, "não é cursor", null));
+	}
+
+	@Test
+	public void deveBuscarLivrosPorRelevancia() throws LivrariaException {
+		final LivroDto livro1 = buildLivroRandom();
+		livro1.setSinopse("A busca pelo zorblax perdido");
+
+		final LivroDto livro2 = buildLivroRandom();
+		livro2.setTitulo("O Zorblax Perdido");
+
+		final LivroDto livro3 = buildLivroRandom();
+		livro3.setTitulo("Zorblax Reencontrado");
+
+		final Long id1 = service.create(livro1).getId();
+		final Long id2 = service.create(livro2).getId();
+		final Long id3 = service.create(livro3).getId();
+
+		assertThat(ids(service.search("zorb", null, null)), contains(id2, id3, id1));
+		assertThat(ids(service.search("Zorblax, perdi", null, null)), contains(id2, id1));
+		assertThat(ids(service.search("zorblaxes", null, null)), hasSize(0));
+	}
+
+	@Test
+	public void deveBuscarLivrosPaginados() throws LivrariaException {
+		final LivroDto livro1 = buildLivroRandom();
+		livro1.setTitulo("Zorblax Um");
+
+		final LivroDto livro2 = buildLivroRandom();
+		livro2.setTitulo("Zorblax Dois");
+
+		final Long id1 = service.create(livro1).getId();
+		final Long id2 = service.create(livro2).getId();
+
+		final PaginaDto<LivroDto> pagina1 = service.search("zorblax", null, 1);
+
+		assertThat(ids(pagina1), contains(id1));
+
+		final PaginaDto<LivroDto> pagina2 = service.search("zorblax", pagina1.getProximaPagina(), 1);
+
+		assertThat(ids(pagina2), contains(id2));
+		assertThat(pagina2.getProximaPagina(), is(nullValue()));
+	}
+
+	@Test
+	public void naoDeveBuscarLivrosSemPalavras() {
+		assertThrows(FiltroLivroInvalidoException.class, () -> service.search(" !? ", null, null));
+		assertThrows(FiltroLivroInvalidoException.class, () -> service.search(null, null, null));
+	}
+
 	@Test
 	public void deveCriarCapaLivro()
 			throws LivroNaoInformadoException, ValidationLivrariaException, LivroNaoEncontradoException, IOException,
-			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException {
+			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException, CapaInvalidaException, CapaMuitoGrandeException {
 		final LivroDto livro = buildLivroRandom();
 
 		final LivroDto created = service.create(livro);
 
 		final byte[] book01 = imageUtils.book01();
 
-		service.saveCapa(created.getId(), book01);
+		service.saveCapa(created.getId(), new ByteArrayInputStream(book01));
 
-		final byte[] capaEncontrada = service.getCapa(created.getId());
+		final byte[] capaEncontrada = IOUtils.toByteArray(service.getCapa(created.getId()).getInputStream());
 
 		assertThat(Utils.sha1(book01), is(equalTo(Utils.sha1(capaEncontrada))));
+
+		final CapaDto info = service.getInfoCapa(created.getId());
+
+		assertThat(info.getHash(), is(equalTo(Utils.sha1(book01))));
+		assertThat(info.getTipo(), is(equalTo("image/jpeg")));
+		assertThat(info.getDataAtualizacao(), is(notNullValue()));
+	}
+
+	@Test
+	public void deveCompartilharImagemEntreCapasIguais() throws LivrariaException, IOException, NoSuchAlgorithmException {
+		final LivroDto livro1 = service.create(buildLivroRandom());
+		final LivroDto livro2 = service.create(buildLivroRandom());
+
+		final byte[] book01 = imageUtils.book01();
+		final byte[] book02 = imageUtils.book02();
+
+		service.saveCapa(livro1.getId(), new ByteArrayInputStream(book01));
+		service.saveCapa(livro2.getId(), new ByteArrayInputStream(book01));
+
+		assertThat(service.getCapa(livro1.getId()).getURI(), is(equalTo(service.getCapa(livro2.getId()).getURI())));
+
+		service.saveCapa(livro1.getId(), new ByteArrayInputStream(book02));
+
+		final byte[] capa1 = IOUtils.toByteArray(service.getCapa(livro1.getId()).getInputStream());
+		final byte[] capa2 = IOUtils.toByteArray(service.getCapa(livro2.getId()).getInputStream());
+
+		assertThat(Utils.sha1(capa1), is(equalTo(Utils.sha1(book02))));
+		assertThat(Utils.sha1(capa2), is(equalTo(Utils.sha1(book01))));
 	}
 
 	@Test
 	public void naoDeveCriarCapaLivroComBytesNulos()
 			throws LivroNaoInformadoException, ValidationLivrariaException, LivroNaoEncontradoException, IOException,
-			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException {
+			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException, CapaInvalidaException, CapaMuitoGrandeException {
 		final LivroDto livro = buildLivroRandom();
 
 		final LivroDto created = service.create(livro);
@@ -386,36 +612,163 @@ public class LivroServiceTests {
 	@Test
 	public void naoDeveCriarCapaLivroComMenosDe10Bytes()
 			throws LivroNaoInformadoException, ValidationLivrariaException, LivroNaoEncontradoException, IOException,
-			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException {
+			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException, CapaInvalidaException, CapaMuitoGrandeException {
 		final LivroDto livro = buildLivroRandom();
 
 		final LivroDto created = service.create(livro);
 
 		assertThrows(CapaNaoInformadaException.class,
-				() -> service.saveCapa(created.getId(), faker.lorem().characters(1, 9).getBytes()));
+				() -> service.saveCapa(created.getId(), new ByteArrayInputStream(faker.lorem().characters(1, 9).getBytes())));
+	}
+
+	@Test
+	public void deveGerarVariantesCapa()
+			throws LivrariaException, IOException, NoSuchAlgorithmException, InterruptedException, ExecutionException {
+		final LivroDto created = service.create(buildLivroRandom());
+
+		final byte[] book01 = imageUtils.book01();
+
+		service.saveCapa(created.getId(), new ByteArrayInputStream(book01));
+
+		variantesCapaService.gerarVariantes(Utils.sha1(book01)).get();
+
+		for (final TamanhoCapa tamanho : new TamanhoCapa[] { TamanhoCapa.THUMB, TamanhoCapa.MEDIUM }) {
+			final CapaDto info = service.getInfoCapa(created.getId(), tamanho.getValor());
+
+			assertThat(info.getTamanho(), is(equalTo(tamanho)));
+			assertThat(info.isProvisoria(), is(false));
+			assertThat(info.getTipo(), is(equalTo("image/jpeg")));
+			assertThat(info.getHash(), is(equalTo(Utils.sha1(book01))));
+
+			try (InputStream is = service.abrirCapa(info).getInputStream()) {
+				final BufferedImage imagem = ImageIO.read(is);
+
+				assertThat(imagem, is(notNullValue()));
+				assertThat(imagem.getWidth(), is(lessThanOrEqualTo(tamanho.getLargura())));
+			}
+		}
+
+		final CapaDto original = service.getInfoCapa(created.getId(), "original");
+
+		assertThat(original.getTamanho(), is(equalTo(TamanhoCapa.ORIGINAL)));
+		assertThat(Utils.sha1(IOUtils.toByteArray(service.abrirCapa(original).getInputStream())),
+				is(equalTo(Utils.sha1(book01))));
+	}
+
+	@Test
+	public void naoDeveRetornarCapaComTamanhoInvalido() throws LivrariaException, IOException {
+		final LivroDto created = service.create(buildLivroRandom());
+
+		service.saveCapa(created.getId(), new ByteArrayInputStream(imageUtils.book01()));
+
+		assertThrows(TamanhoCapaInvalidoException.class, () -> service.getInfoCapa(created.getId(), "gigante"));
+	}
+
+	@Test
+	public void naoDeveCriarCapaLivroComImagemInvalida() throws LivrariaException {
+		final LivroDto created = service.create(buildLivroRandom());
+
+		assertThrows(CapaInvalidaException.class,
+				() -> service.saveCapa(created.getId(), new ByteArrayInputStream(faker.lorem().characters(20, 50).getBytes())));
+	}
+
+	@Test
+	public void naoDeveCriarCapaComMaisPixelsQueOMaximo() throws LivrariaException, IOException {
+		final LivroDto created = service.create(buildLivroRandom());
+
+		final byte[] imagem = imageUtils.book01();
+
+		ReflectionUtils.setValue("pixelsMaximo", variantesCapaService, 100L);
+
+		try {
+			assertThrows(CapaInvalidaException.class,
+					() -> service.saveCapa(created.getId(), new ByteArrayInputStream(imagem)));
+		} finally {
+			ReflectionUtils.setValue("pixelsMaximo", variantesCapaService, 16_000_000L);
+		}
+
+		assertThrows(CapaNaoEncontradaException.class, () -> service.getCapa(created.getId()));
+	}
+
+	@Test
+	public void naoDeveCriarCapaMaiorQueTamanhoMaximo() throws LivrariaException, IOException {
+		final LivroDto created = service.create(buildLivroRandom());
+
+		// Imagem válida seguida de um stream sem fim, que só termina se o limite
+		// for verificado durante a leitura
+		final InputStream semFim = new InputStream() {
+			@Override
+			public int read() {
+				return 0;
+			}
+		};
+
+		final InputStream imagem = new SequenceInputStream(new ByteArrayInputStream(imageUtils.book01()), semFim);
+
+		ReflectionUtils.setValue("tamanhoMaximoCapa", service, DataSize.ofKilobytes(64));
+
+		try {
+			assertThrows(CapaMuitoGrandeException.class, () -> service.saveCapa(created.getId(), imagem));
+		} finally {
+			ReflectionUtils.setValue("tamanhoMaximoCapa", service, DataSize.ofMegabytes(10));
+		}
+
+		assertThrows(CapaNaoEncontradaException.class, () -> service.getCapa(created.getId()));
 	}
 
 	@Test
 	public void deveExcluirCapaLivro()
 			throws LivroNaoInformadoException, ValidationLivrariaException, LivroNaoEncontradoException, IOException,
-			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException {
+			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException, CapaInvalidaException, CapaMuitoGrandeException {
 		final LivroDto livro = buildLivroRandom();
 
 		final LivroDto created = service.create(livro);
 
 		final byte[] book01 = imageUtils.book01();
 
-		service.saveCapa(created.getId(), book01);
+		service.saveCapa(created.getId(), new ByteArrayInputStream(book01));
 
 		service.destroyCapa(created.getId());
 
 		assertThrows(CapaNaoEncontradaException.class, () -> service.getCapa(created.getId()));
 	}
 
+	/**
+	 * A capa gravada pelo teste não está confirmada, como a de um upload
+	 * concorrente: a limpeza não a enxerga, e só a carência protege a imagem.
+	 */
+	@Test
+	public void naoDeveRemoverImagemGravadaDentroDaCarencia() throws LivrariaException, IOException,
+			NoSuchAlgorithmException, InterruptedException {
+		final LivroDto created = service.create(buildLivroRandom());
+
+		final byte[] book02 = imageUtils.book02();
+		final String hash = Utils.sha1(book02);
+
+		service.saveCapa(created.getId(), new ByteArrayInputStream(book02));
+
+		limpezaCapasService.removeSeSemUso(hash);
+		limpezaCapasService.varre();
+
+		assertTrue(capaStorage.abrir(hash).isPresent());
+
+		Thread.sleep(10);
+
+		ReflectionUtils.setValue("carenciaMs", limpezaCapasService, 0L);
+
+		try {
+			limpezaCapasService.varre();
+		} finally {
+			ReflectionUtils.setValue("carenciaMs", limpezaCapasService, 3600000L);
+		}
+
+		assertThat(capaStorage.abrir(hash).isPresent(), is(false));
+	}
+
 	@Test
 	public void naoDeveExcluirCapaNaoExistente()
 			throws LivroNaoInformadoException, ValidationLivrariaException, LivroNaoEncontradoException, IOException,
-			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException {
+			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException, CapaInvalidaException, CapaMuitoGrandeException {
 		final LivroDto created = service.create(buildLivroRandom());
 
 		assertThrows(CapaNaoEncontradaException.class, () -> service.destroyCapa(created.getId()));
@@ -424,10 +777,16 @@ public class LivroServiceTests {
 	@Test
 	public void naoDeveExcluirCapaCujoLivroNaoExiste()
 			throws LivroNaoInformadoException, ValidationLivrariaException, LivroNaoEncontradoException, IOException,
-			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException {
+			CapaNaoEncontradaException, NoSuchAlgorithmException, CapaNaoInformadaException, CapaInvalidaException, CapaMuitoGrandeException {
 		assertThrows(LivroNaoEncontradoException.class, () -> service.destroyCapa(faker.random().nextLong()));
 	}
 
+	private List<Long> ids(final PaginaDto<LivroDto> pagina) {
+		final List<Long> ids = new ArrayList<>();
+		pagina.getItens().forEach(l -> ids.add(l.getId()));
+		return ids;
+	}
+
 	private LivroDto buildLivroRandom() {
 		// @formatter:off
 		final LivroDto livro = LivroDto
@@ -0,0 +1,102 @@
+package br.com.orlandoburli.livraria.mensagens;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import br.com.orlandoburli.livraria.LivrariaApplication;
+import br.com.orlandoburli.livraria.utils.CatalogoMensagens;
+import br.com.orlandoburli.livraria.utils.MessagesService;
+
+@SpringBootTest(webEnvironment = WebEnvironment.MOCK, classes = LivrariaApplication.class)
+@AutoConfigureMockMvc
+@EnableAutoConfiguration
+@TestPropertySource(locations = "classpath:application.yml")
+public class MensagensTests {
+
+	private static final String LIVRO_NAO_ENCONTRADO = "exceptions.LivroNaoEncontradoException";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private MessagesService messages;
+
+	@Autowired
+	private CatalogoMensagens catalogo;
+
+	@Test
+	public void deveFormatarMensagemComArgumentos() {
+		assertThat(messages.get(LIVRO_NAO_ENCONTRADO, 10L), is("Livro não encontrado com o id 10"));
+	}
+
+	@Test
+	public void deveFormatarNumerosComoMessageFormat() {
+		final MessageFormat formato = new MessageFormat("Livro não encontrado com o id {0}", Locale.getDefault());
+
+		assertThat(messages.get(LIVRO_NAO_ENCONTRADO, 1234567L), is(formato.format(new Object[] { 1234567L })));
+	}
+
+	@Test
+	public void deveRetornarMensagemSemArgumentos() {
+		assertThat(messages.get("exceptions.CapaNaoInformadaException"), is("Capa não informada"));
+	}
+
+	@Test
+	public void deveRetornarTextoDeValidacaoSemFormatar() {
+		assertThat(catalogo.getMessage("javax.validations.livro.titulo.size", null, Locale.getDefault()),
+				is("Título deve ter entre {min} e {max} caracteres"));
+	}
+
+	@Test
+	public void deveUsarMensagensSemLocaleParaLocaleSemArquivo() {
+		assertThat(catalogo.getMessage(LIVRO_NAO_ENCONTRADO, new Object[] { 10L }, Locale.JAPAN),
+				is("Livro não encontrado com o id 10"));
+	}
+
+	// @formatter:off
+
+	@Test
+	public void deveRecarregarMensagens() throws Exception {
+		final Locale esperanto = new Locale("eo");
+
+		final File arquivo = new File(new ClassPathResource("application.yml").getFile().getParentFile(), "messages_eo.properties");
+
+		try {
+			Files.write(arquivo.toPath(), (LIVRO_NAO_ENCONTRADO + "=Libro {0} ne trovita").getBytes(StandardCharsets.UTF_8));
+
+			assertThat(catalogo.getMessage(LIVRO_NAO_ENCONTRADO, new Object[] { 10L }, esperanto),
+					is("Livro não encontrado com o id 10"));
+
+			mvc.perform(
+					post("/mensagens/recarregar"))
+						.andExpect(status().isNoContent());
+
+			assertThat(catalogo.getMessage(LIVRO_NAO_ENCONTRADO, new Object[] { 10L }, esperanto),
+					is("Libro 10 ne trovita"));
+			assertThat(catalogo.getMessage("exceptions.CapaNaoInformadaException", null, esperanto),
+					is("Capa não informada"));
+		} finally {
+			Files.deleteIfExists(arquivo.toPath());
+
+			messages.recarregar();
+		}
+	}
+}
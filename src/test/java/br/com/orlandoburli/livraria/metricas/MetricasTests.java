@@ -0,0 +1,236 @@
+package br.com.orlandoburli.livraria.metricas;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitOperations.OperationsCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import br.com.orlandoburli.livraria.LivrariaApplication;
+import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.MensagemDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
+import br.com.orlandoburli.livraria.repository.LivroRepository;
+import br.com.orlandoburli.livraria.service.MailSenderService;
+import br.com.orlandoburli.livraria.service.NotificacaoService;
+import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
+import br.com.orlandoburli.livraria.utils.ReflectionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(webEnvironment = WebEnvironment.MOCK, classes = LivrariaApplication.class)
+@AutoConfigureMockMvc
+@EnableAutoConfiguration
+@TestPropertySource(locations = "classpath:application.yml")
+public class MetricasTests {
+
+	@Autowired
+	private DbPrepareUtils dbPrepareUtils;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Autowired
+	private LivroRepository livroRepository;
+
+	@Autowired
+	private NotificacaoService notificacaoService;
+
+	@Autowired
+	private MailSenderService mailSenderService;
+
+	@Autowired
+	private ConsultasLentas consultasLentas;
+
+	@Mock
+	private RabbitTemplate rabbitTemplate;
+
+	@Mock
+	private JavaMailSender javaMailSender;
+
+	private final ListAppender<ILoggingEvent> logConsultasLentas = new ListAppender<>();
+
+	// @formatter:off
+
+	@Test
+	public void deveExporMetricasParaPrometheus() throws Exception {
+		mvc.perform(get("/livros"))
+			.andExpect(status().isOk());
+
+		mvc.perform(
+				get("/actuator/prometheus"))
+					.andExpect(status().isOk())
+					.andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+					.andExpect(content().string(containsString("uri=\"/livros\"")))
+					.andExpect(content().string(containsString("quantile=\"0.99\"")))
+					.andExpect(content().string(containsString("hikaricp_connections_active")))
+					.andExpect(content().string(containsString("livraria_repositorio_seconds_count{")));
+	}
+
+	@Test
+	public void deveContarExcecoesRespondidasPelaApi() throws Exception {
+		final double antes = excecoes("LivroNaoEncontradoException");
+
+		mvc.perform(get("/livros/" + Long.MAX_VALUE))
+			.andExpect(status().isNotFound());
+
+		assertThat(excecoes("LivroNaoEncontradoException"), is(antes + 1));
+	}
+
+	// @formatter:on
+
+	@Test
+	public void deveMedirChamadasAosRepositorios() {
+		final long antes = chamadas("count", "none");
+
+		livroRepository.count();
+		livroRepository.count();
+
+		assertThat(chamadas("count", "none"), is(antes + 2));
+	}
+
+	@Test
+	public void deveMedirChamadasComExcecaoNosRepositorios() {
+		final long antes = chamadas("deleteById", "EmptyResultDataAccessException");
+
+		try {
+			livroRepository.deleteById(Long.MAX_VALUE);
+		} catch (final RuntimeException e) {
+			// Esperada, o livro não existe
+		}
+
+		assertThat(chamadas("deleteById", "EmptyResultDataAccessException"), is(antes + 1));
+	}
+
+	@Test
+	public void deveMedirPublicacaoEConsumoDeNotificacoes() {
+		ReflectionUtils.setValue("rabbitTemplate", notificacaoService, rabbitTemplate);
+		ReflectionUtils.setValue("javaMailSender", mailSenderService, javaMailSender);
+
+		when(rabbitTemplate.invoke(any())).thenAnswer(
+				invocation -> invocation.<OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+
+		final long publicacoes = registry.get("livraria.notificacoes.publicacao").timer().count();
+		final long consumos = registry.get("livraria.notificacoes.consumo").timer().count();
+
+		notificacaoService.notificarEntregaComAtraso(emprestimoDevolvidoComAtraso());
+		notificacaoService.publicarPendentes();
+		mailSenderService.receive(Collections.singletonList(
+				MensagemDto.builder().destinatario("a@b.com").titulo("Título").mensagem("Texto").build()));
+
+		assertThat(registry.get("livraria.notificacoes.publicacao").timer().count(), is(publicacoes + 1));
+		assertThat(registry.get("livraria.notificacoes.consumo").timer().count(), is(consumos + 1));
+	}
+
+	@Test
+	public void deveRegistrarComandosSqlLentos() {
+		ReflectionUtils.setValue("limiteMs", consultasLentas, 0L);
+
+		final double antes = registry.counter(ConsultasLentas.CONTADOR).count();
+
+		livroRepository.count();
+
+		assertThat(registry.counter(ConsultasLentas.CONTADOR).count(), is(greaterThan(antes)));
+		assertThat(logConsultasLentas.list.isEmpty(), is(false));
+	}
+
+	@Test
+	public void deveContarSemLogarComandosSqlForaDaAmostra() {
+		ReflectionUtils.setValue("limiteMs", consultasLentas, 0L);
+		ReflectionUtils.setValue("amostragem", consultasLentas, 0.0);
+
+		final double antes = registry.counter(ConsultasLentas.CONTADOR).count();
+
+		livroRepository.count();
+
+		assertThat(registry.counter(ConsultasLentas.CONTADOR).count(), is(greaterThan(antes)));
+		assertThat(logConsultasLentas.list.isEmpty(), is(true));
+	}
+
+	@Test
+	public void deveRetirarLiteraisDosComandosSqlLentos() {
+		assertThat(ConsultasLentas.redige("select * from usuario where cpf = '123' and nome = 'D''Avila' and id = ?"),
+				is("select * from usuario where cpf = '?' and nome = '?' and id = ?"));
+	}
+
+	private double excecoes(final String tipo) {
+		return registry.counter(MetricasExcecoes.CONTADOR, "tipo", tipo).count();
+	}
+
+	private long chamadas(final String metodo, final String excecao) {
+		// @formatter:off
+		return registry
+				.timer(MetricasRepositorios.TIMER,
+						"repositorio", "LivroRepository",
+						"metodo", metodo,
+						"excecao", excecao)
+				.count();
+		// @formatter:on
+	}
+
+	private EmprestimoDto emprestimoDevolvidoComAtraso() {
+		// @formatter:off
+		return EmprestimoDto
+				.builder()
+					.livro(LivroDto.builder().titulo("Dom Casmurro").build())
+					.usuario(UsuarioDto.builder().nome("Maria").build())
+					.dataEmprestimo(LocalDate.now().minusDays(40))
+					.dataPrevistaDevolucao(LocalDate.now().minusDays(10))
+					.dataDevolucao(LocalDate.now())
+				.build();
+		// @formatter:on
+	}
+
+	@BeforeEach
+	public void prepare() {
+		dbPrepareUtils.clean();
+
+		logConsultasLentas.start();
+		((Logger) LoggerFactory.getLogger(ConsultasLentas.class)).addAppender(logConsultasLentas);
+	}
+
+	/**
+	 * Nos testes não há RabbitMQ nem servidor de email configurados, e os
+	 * comandos SQL lentos usam o limite padrão.
+	 */
+	@AfterEach
+	public void restaura() {
+		ReflectionUtils.setValue("rabbitTemplate", notificacaoService, null);
+		ReflectionUtils.setValue("javaMailSender", mailSenderService, null);
+
+		ReflectionUtils.setValue("limiteMs", consultasLentas, 200L);
+		ReflectionUtils.setValue("amostragem", consultasLentas, 1.0);
+
+		((Logger) LoggerFactory.getLogger(ConsultasLentas.class)).detachAppender(logConsultasLentas);
+	}
+}
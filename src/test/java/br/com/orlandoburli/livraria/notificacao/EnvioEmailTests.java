@@ -0,0 +1,181 @@
+package br.com.orlandoburli.livraria.notificacao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.amqp.rabbit.core.RabbitOperations.OperationsCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.TestPropertySource;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import br.com.orlandoburli.livraria.LivrariaApplication;
+import br.com.orlandoburli.livraria.dto.MensagemDto;
+import br.com.orlandoburli.livraria.service.MailSenderService;
+import br.com.orlandoburli.livraria.utils.ReflectionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Envio dos emails das notificações em lotes, com um servidor SMTP local
+ * (GreenMail) ou um {@link JavaMailSender} simulado para as falhas.
+ */
+@SpringBootTest(classes = LivrariaApplication.class)
+@EnableAutoConfiguration
+@TestPropertySource(locations = "classpath:application.yml")
+public class EnvioEmailTests {
+
+	@Autowired
+	private MailSenderService mailSenderService;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Mock
+	private JavaMailSender javaMailSender;
+
+	@Mock
+	private RabbitTemplate rabbitTemplate;
+
+	private final GreenMail smtp = new GreenMail(ServerSetupTest.SMTP);
+
+	@Test
+	public void deveEnviarLoteDeEmailsPeloSmtp() throws Exception {
+		final JavaMailSenderImpl sender = new JavaMailSenderImpl();
+		sender.setHost(ServerSetupTest.SMTP.getBindAddress());
+		sender.setPort(ServerSetupTest.SMTP.getPort());
+
+		ReflectionUtils.setValue("javaMailSender", mailSenderService, sender);
+
+		mailSenderService.receive(mensagens(10));
+
+		final MimeMessage[] recebidos = smtp.getReceivedMessages();
+
+		assertThat(recebidos.length, is(10));
+
+		// Os emails são enviados em paralelo, fora de ordem
+		final Set<String> destinatarios = new HashSet<>();
+
+		for (final MimeMessage recebido : recebidos) {
+			destinatarios.add(recebido.getAllRecipients()[0].toString());
+		}
+
+		assertThat(destinatarios.size(), is(10));
+		assertThat(destinatarios.contains("usuario9@email.com"), is(true));
+	}
+
+	@Test
+	public void deveReenviarSomenteEmailsRecusados() {
+		final List<MensagemDto> mensagens = mensagens(4);
+		final SimpleMailMessage recusado = email(mensagens.get(2));
+		final AtomicBoolean primeiraTentativa = new AtomicBoolean(true);
+
+		doAnswer(invocation -> {
+			for (final Object email : invocation.getArguments()) {
+				if (email.equals(recusado) && primeiraTentativa.getAndSet(false)) {
+					throw new MailSendException(Collections.singletonMap(recusado, new RuntimeException("Recusado")));
+				}
+			}
+			return null;
+		}).when(javaMailSender).send((SimpleMailMessage[]) any());
+
+		mailSenderService.sendEmails(mensagens);
+
+		verify(javaMailSender, times(2)).send(new SimpleMailMessage[] { recusado });
+		verify(javaMailSender).send(new SimpleMailMessage[] { email(mensagens.get(0)) });
+		verify(rabbitTemplate, never()).convertAndSend(eq(MailSenderService.FILA_NAO_ENTREGUES), any(MensagemDto.class));
+	}
+
+	@Test
+	public void devePublicarNaoEntreguesAposTodasAsTentativas() {
+		final double naoEntregues = registry.counter("livraria.notificacoes.nao-entregues").count();
+
+		doThrow(new MailSendException("Servidor indisponível")).when(javaMailSender).send((SimpleMailMessage[]) any());
+
+		final List<MensagemDto> mensagens = mensagens(2);
+
+		mailSenderService.sendEmails(mensagens);
+
+		// Cada uma das duas partes do lote é tentada três vezes
+		verify(javaMailSender, times(6)).send((SimpleMailMessage[]) any());
+
+		verify(rabbitTemplate).convertAndSend(MailSenderService.FILA_NAO_ENTREGUES, mensagens.get(0));
+		verify(rabbitTemplate).convertAndSend(MailSenderService.FILA_NAO_ENTREGUES, mensagens.get(1));
+
+		assertThat(registry.counter("livraria.notificacoes.nao-entregues").count(), is(naoEntregues + 2));
+	}
+
+	private List<MensagemDto> mensagens(final int total) {
+		// @formatter:off
+		return IntStream.range(0, total)
+				.mapToObj(i -> MensagemDto
+					.builder()
+						.destinatario("usuario" + i + "@email.com")
+						.titulo("Entrega com atraso " + i)
+						.mensagem("Livro devolvido com atraso")
+					.build())
+				.collect(Collectors.toList());
+		// @formatter:on
+	}
+
+	private SimpleMailMessage email(final MensagemDto mensagem) {
+		final SimpleMailMessage email = new SimpleMailMessage();
+
+		email.setTo(mensagem.getDestinatario());
+		email.setSubject(mensagem.getTitulo());
+		email.setText(mensagem.getMensagem());
+
+		return email;
+	}
+
+	@BeforeEach
+	public void prepare() {
+		smtp.start();
+
+		when(rabbitTemplate.invoke(any())).thenAnswer(
+				invocation -> invocation.<OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+
+		ReflectionUtils.setValue("javaMailSender", mailSenderService, javaMailSender);
+		ReflectionUtils.setValue("rabbitTemplate", mailSenderService, rabbitTemplate);
+	}
+
+	/**
+	 * Nos testes não há RabbitMQ nem servidor de email configurados.
+	 */
+	@AfterEach
+	public void restaura() {
+		smtp.stop();
+
+		ReflectionUtils.setValue("javaMailSender", mailSenderService, null);
+		ReflectionUtils.setValue("rabbitTemplate", mailSenderService, null);
+	}
+}
@@ -0,0 +1,231 @@
+package br.com.orlandoburli.livraria.notificacao;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.rabbit.core.RabbitOperations.OperationsCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.github.javafaker.Faker;
+
+import br.com.orlandoburli.livraria.LivrariaApplication;
+import br.com.orlandoburli.livraria.dto.EmprestimoDto;
+import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
+import br.com.orlandoburli.livraria.dto.LivroDto;
+import br.com.orlandoburli.livraria.dto.MensagemDto;
+import br.com.orlandoburli.livraria.dto.UsuarioDto;
+import br.com.orlandoburli.livraria.exceptions.LivrariaException;
+import br.com.orlandoburli.livraria.exceptions.instituicaoensino.InstituicaoEnsinoException;
+import br.com.orlandoburli.livraria.exceptions.livro.LivroException;
+import br.com.orlandoburli.livraria.exceptions.usuario.UsuarioException;
+import br.com.orlandoburli.livraria.exceptions.validations.ValidationLivrariaException;
+import br.com.orlandoburli.livraria.repository.NotificacaoPendenteRepository;
+import br.com.orlandoburli.livraria.repository.RestricaoRepository;
+import br.com.orlandoburli.livraria.service.EmprestimoService;
+import br.com.orlandoburli.livraria.service.InstituicaoEnsinoService;
+import br.com.orlandoburli.livraria.service.LivroService;
+import br.com.orlandoburli.livraria.service.NotificacaoService;
+import br.com.orlandoburli.livraria.service.UsuarioService;
+import br.com.orlandoburli.livraria.utils.ClockUtils;
+import br.com.orlandoburli.livraria.utils.DbPrepareUtils;
+import br.com.orlandoburli.livraria.utils.GeraCpfCnpj;
+import br.com.orlandoburli.livraria.utils.ReflectionUtils;
+
+/**
+ * Notificações gravadas na tabela de pendentes (outbox) e publicadas depois, em
+ * lotes, com as confirmações do RabbitMQ.
+ */
+@SpringBootTest(classes = LivrariaApplication.class)
+@EnableAutoConfiguration
+@TestPropertySource(locations = "classpath:application.yml")
+public class NotificacaoTests {
+
+	private static final String FILA_MENSAGENS = "livraria.notificacoes.queue";
+
+	@Autowired
+	private DbPrepareUtils dbPrepareUtils;
+
+	@Autowired
+	private NotificacaoService notificacaoService;
+
+	@Autowired
+	private EmprestimoService emprestimoService;
+
+	@Autowired
+	private LivroService livroService;
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private InstituicaoEnsinoService insituicaoEnsinoService;
+
+	@Autowired
+	private NotificacaoPendenteRepository repository;
+
+	@Autowired
+	private RestricaoRepository restricaoRepository;
+
+	private final Faker faker = new Faker(new Locale("pt", "BR"));
+
+	private final GeraCpfCnpj geradorCpfCnpj = new GeraCpfCnpj();
+
+	@Mock
+	private RabbitTemplate rabbitTemplate;
+
+	@Mock
+	private ClockUtils clock;
+
+	@Test
+	public void deveGravarNotificacaoNaDevolucaoComAtrasoSemPublicar() throws LivrariaException {
+		final EmprestimoDto emprestimo = emprestimoService.emprestar(usuario().getId(), livro().getId());
+
+		when(clock.hoje()).thenReturn(LocalDate.now().plusDays(40));
+
+		emprestimoService.devolver(emprestimo.getId());
+
+		assertThat(restricaoRepository.count(), is(1L));
+		assertThat(repository.count(), is(1L));
+
+		verifyNoInteractions(rabbitTemplate);
+	}
+
+	@Test
+	public void devePublicarPendentesEmLotesAguardandoConfirmacoes() {
+		ReflectionUtils.setValue("tamanhoLote", notificacaoService, 2);
+
+		notificacaoService.notificarEntregasComAtraso(
+				Arrays.asList(emprestimoDevolvidoComAtraso(), emprestimoDevolvidoComAtraso(), emprestimoDevolvidoComAtraso()));
+
+		assertThat(repository.count(), is(3L));
+
+		assertThat(notificacaoService.publicarPendentes(), is(3));
+
+		verify(rabbitTemplate, times(3)).convertAndSend(eq(FILA_MENSAGENS), any(MensagemDto.class));
+		verify(rabbitTemplate, times(2)).waitForConfirmsOrDie(anyLong());
+
+		assertThat(repository.count(), is(0L));
+	}
+
+	@Test
+	public void deveManterPendentesQuandoPublicacaoNaoForConfirmada() {
+		doThrow(new AmqpTimeoutException("Sem confirmação")).when(rabbitTemplate).waitForConfirmsOrDie(anyLong());
+
+		notificacaoService.notificarEntregaComAtraso(emprestimoDevolvidoComAtraso());
+
+		assertThat(notificacaoService.publicarPendentes(), is(0));
+		assertThat(repository.count(), is(1L));
+	}
+
+	@Test
+	public void naoDevePublicarSemRabbitMq() {
+		ReflectionUtils.setValue("rabbitTemplate", notificacaoService, null);
+
+		notificacaoService.notificarEntregaComAtraso(emprestimoDevolvidoComAtraso());
+
+		assertThat(notificacaoService.publicarPendentes(), is(0));
+		assertThat(repository.count(), is(1L));
+	}
+
+	private EmprestimoDto emprestimoDevolvidoComAtraso() {
+		// @formatter:off
+		return EmprestimoDto
+				.builder()
+					.livro(LivroDto.builder().titulo(faker.book().title()).build())
+					.usuario(UsuarioDto.builder().nome(faker.name().fullName()).build())
+					.dataEmprestimo(LocalDate.now().minusDays(40))
+					.dataPrevistaDevolucao(LocalDate.now().minusDays(10))
+					.dataDevolucao(LocalDate.now())
+				.build();
+		// @formatter:on
+	}
+
+	private UsuarioDto usuario() throws UsuarioException, InstituicaoEnsinoException, ValidationLivrariaException {
+		// @formatter:off
+		final UsuarioDto usuario = UsuarioDto
+				.builder()
+					.nome(faker.name().fullName())
+					.endereco(faker.address().fullAddress())
+					.cpf(geradorCpfCnpj.cpf())
+					.email(faker.internet().emailAddress())
+					.telefone(faker.phoneNumber().phoneNumber())
+					.instituicao(instituicao())
+				.build();
+		// @formatter:on
+
+		return usuarioService.create(usuario);
+	}
+
+	private InstituicaoEnsinoDto instituicao() throws InstituicaoEnsinoException, ValidationLivrariaException {
+		// @formatter:off
+		final InstituicaoEnsinoDto instituicaoEnsino = InstituicaoEnsinoDto
+				.builder()
+					.nome(faker.company().name())
+					.cnpj(geradorCpfCnpj.cnpj())
+					.telefone(faker.phoneNumber().cellPhone())
+					.endereco(faker.address().fullAddress())
+				.build();
+		// @formatter:on
+
+		return insituicaoEnsinoService.create(instituicaoEnsino);
+	}
+
+	private LivroDto livro() throws LivroException, ValidationLivrariaException {
+		// @formatter:off
+		final LivroDto livro = LivroDto
+			.builder()
+				.titulo(faker.book().title())
+				.genero(faker.book().genre())
+				.autor(faker.book().author())
+				.sinopse(faker.lorem().characters(100, 200))
+			.build();
+		// @formatter:on
+
+		return livroService.create(livro);
+	}
+
+	@BeforeEach
+	public void prepare() {
+		dbPrepareUtils.clean();
+
+		when(rabbitTemplate.invoke(any())).thenAnswer(
+				invocation -> invocation.<OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+
+		when(clock.hoje()).thenReturn(LocalDate.now());
+
+		ReflectionUtils.setValue("rabbitTemplate", notificacaoService, rabbitTemplate);
+		ReflectionUtils.setValue("clock", emprestimoService, clock);
+	}
+
+	/**
+	 * Nos testes não há RabbitMQ configurado, e os serviços voltam a usar o
+	 * relógio e o tamanho de lote reais.
+	 */
+	@AfterEach
+	public void restaura() {
+		ReflectionUtils.setValue("rabbitTemplate", notificacaoService, null);
+		ReflectionUtils.setValue("tamanhoLote", notificacaoService, 100);
+		ReflectionUtils.setValue("clock", emprestimoService, new ClockUtils());
+	}
+}
@@ -23,6 +23,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.github.javafaker.Faker;
 
+import br.com.orlandoburli.livraria.cache.CacheLeitura;
 import br.com.orlandoburli.livraria.dto.EmprestimoDto;
 import br.com.orlandoburli.livraria.dto.InstituicaoEnsinoDto;
 import br.com.orlandoburli.livraria.dto.LivroDto;
@@ -71,6 +72,9 @@ public class UsuarioServiceTest {
 	@Autowired
 	private EmprestimoService emprestimoService;
 
+	@Autowired
+	private CacheLeitura<UsuarioDto> usuarioCache;
+
 	@Autowired
 	private DbPrepareUtils dbPrepareUtils;
 
@@ -619,6 +623,59 @@ public class UsuarioServiceTest {
 		assertThrows(UsuarioNaoEncontradoException.class, () -> service.get(faker.random().nextLong()));
 	}
 
+	@Test
+	public void deveEncontrarUsuarioEmCache() throws LivrariaException {
+		final UsuarioDto created = service.create(usuario());
+
+		service.get(created.getId());
+
+		final long falhas = usuarioCache.getFalhas();
+		final long acertos = usuarioCache.getAcertos();
+
+		final UsuarioDto founded = service.get(created.getId());
+
+		founded.setNome("Alterado");
+
+		assertThat(service.get(created.getId()).getNome(), is(equalTo(created.getNome())));
+		assertThat(usuarioCache.getFalhas(), is(equalTo(falhas)));
+		assertThat(usuarioCache.getAcertos(), is(equalTo(acertos + 2)));
+	}
+
+	@Test
+	public void naoDeveEncontrarUsuarioEmCacheAposAlteracoes() throws LivrariaException {
+		final UsuarioDto created = service.create(usuario());
+
+		service.get(created.getId());
+
+		created.setNome("Nome Alterado");
+		service.update(created);
+
+		assertThat(service.get(created.getId()).getNome(), is(equalTo("Nome Alterado")));
+
+		final InstituicaoEnsinoDto instituicao = created.getInstituicao();
+		instituicao.setNome("Instituição Alterada");
+		instituicaoEnsinoService.update(instituicao);
+
+		assertThat(service.get(created.getId()).getInstituicao().getNome(), is(equalTo("Instituição Alterada")));
+
+		service.destroy(created.getId());
+
+		assertThrows(UsuarioNaoEncontradoException.class, () -> service.get(created.getId()));
+	}
+
+	@Test
+	public void deveGuardarUsuarioNaoEncontradoEmCache() {
+		final long id = faker.random().nextLong();
+
+		assertThrows(UsuarioNaoEncontradoException.class, () -> service.get(id));
+
+		final long falhas = usuarioCache.getFalhas();
+
+		assertThrows(UsuarioNaoEncontradoException.class, () -> service.get(id));
+
+		assertThat(usuarioCache.getFalhas(), is(equalTo(falhas)));
+	}
+
 	// @formatter:off
 	private LivroDto livro() throws LivroNaoInformadoException, ValidationLivrariaException {
 		final LivroDto livro = LivroDto
@@ -8,6 +8,8 @@ import java.util.List;
 import javax.persistence.EntityManager;
 
 import org.apache.commons.io.IOUtils;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamSource;
@@ -15,6 +17,9 @@ import org.springframework.core.io.Resource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import br.com.orlandoburli.livraria.cache.CacheLeitura;
+import br.com.orlandoburli.livraria.cache.DisponibilidadeLivroCache;
+import br.com.orlandoburli.livraria.repository.IndiceBuscaLivroRepository;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -30,9 +35,40 @@ public class DbPrepareUtils {
 	@Value("classpath:scripts/002_tables.sql")
 	private Resource resource002;
 
+	/**
+	 * O H2 não suporta índices parciais, então o índice único de empréstimos em
+	 * aberto é simulado com uma coluna calculada.
+	 */
+	@Value("classpath:scripts/003_emprestimo_livro_aberto_unico.sql")
+	private Resource resource003;
+
+	@Value("classpath:scripts/004_capa_hash.sql")
+	private Resource resource004;
+
+	@Value("classpath:scripts/005_capa_metadados.sql")
+	private Resource resource005;
+
+	@Value("classpath:scripts/006_livro_indices_catalogo.sql")
+	private Resource resource006;
+
+	@Value("classpath:scripts/007_notificacao_pendente.sql")
+	private Resource resource007;
+
 	@Autowired
 	private EntityManager manager;
 
+	@Autowired
+	private DisponibilidadeLivroCache disponibilidadeLivroCache;
+
+	@Autowired
+	private List<CacheLeitura<?>> caches;
+
+	/**
+	 * Presente somente nos testes que usam a busca pelo índice em memória.
+	 */
+	@Autowired
+	private ObjectProvider<IndiceBuscaLivroRepository> indiceBuscaLivro;
+
 	/**
 	 * Apaga o schema SECORP e todos os objetos juntos, se existirem.
 	 */
@@ -46,6 +82,11 @@ public class DbPrepareUtils {
 	public void createAll() {
 		this.executeResource(this.resource001);
 		this.executeResource(this.resource002);
+		this.executeResource(this.resource003);
+		this.executeResource(this.resource004);
+		this.executeResource(this.resource005);
+		this.executeResource(this.resource006);
+		this.executeResource(this.resource007);
 	}
 
 	/**
@@ -67,12 +108,24 @@ public class DbPrepareUtils {
 	}
 
 	/**
-	 * Cria uma instância limpa do banco de dados.
+	 * Cria uma instância limpa do banco de dados, e reconstrói os índices em
+	 * memória a partir dela.
 	 */
 	public void clean() {
 		this.dropSchema();
 		this.createAll();
 		this.showTablesCount();
+		this.disponibilidadeLivroCache.reconstruir();
+		this.limpaCaches();
+		this.indiceBuscaLivro.ifAvailable(IndiceBuscaLivroRepository::reconstruir);
+	}
+
+	/**
+	 * Esvazia os caches de leitura e o cache de segundo nível do Hibernate.
+	 */
+	public void limpaCaches() {
+		this.caches.forEach(CacheLeitura::limpa);
+		this.manager.getEntityManagerFactory().getCache().unwrap(Cache.class).evictAllRegions();
 	}
 
 	public void showTablesCount() {
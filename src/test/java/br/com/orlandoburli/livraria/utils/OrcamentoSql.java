@@ -0,0 +1,101 @@
+package br.com.orlandoburli.livraria.utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import br.com.orlandoburli.livraria.metricas.ConsultasSql;
+import br.com.orlandoburli.livraria.metricas.ContadorSql;
+
+/**
+ * Verifica a quantidade de comandos SQL executados por uma ação, falhando o
+ * teste caso ela passe do orçamento informado ou repita algum select (N+1).
+ *
+ * As chamadas às sequences não entram no orçamento. Nos testes os blocos de ids
+ * têm tamanho 1, e cada inserção chama a sequence, enquanto em produção é uma
+ * chamada a cada bloco.
+ *
+ * Em testes transacionais, as alterações pendentes são enviadas ao banco antes
+ * da ação, para que as do preparo do teste não entrem na contagem, e ao final
+ * dela, para que as da própria ação entrem.
+ */
+@Component
+public class OrcamentoSql {
+
+	@Autowired
+	private ContadorSql contador;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@FunctionalInterface
+	public interface Acao<T, E extends Exception> {
+		T executa() throws E;
+	}
+
+	@FunctionalInterface
+	public interface AcaoSemRetorno<E extends Exception> {
+		void executa() throws E;
+	}
+
+	/**
+	 * Executa a ação, verificando que ela usa no máximo a quantidade de comandos
+	 * informada e nenhum select repetido.
+	 *
+	 * @param comandos Quantidade máxima de comandos SQL
+	 * @param acao     Ação a ser executada
+	 * @return Retorno da ação
+	 * @throws E Exceção disparada pela ação
+	 */
+	public <T, E extends Exception> T maximo(final int comandos, final Acao<T, E> acao) throws E {
+		flush();
+
+		contador.inicia();
+
+		final T retorno;
+
+		try {
+			retorno = acao.executa();
+
+			flush();
+		} finally {
+			verifica(comandos, contador.encerra());
+		}
+
+		return retorno;
+	}
+
+	/**
+	 * Executa a ação, verificando que ela usa no máximo a quantidade de comandos
+	 * informada e nenhum select repetido.
+	 *
+	 * @param comandos Quantidade máxima de comandos SQL
+	 * @param acao     Ação a ser executada
+	 * @throws E Exceção disparada pela ação
+	 */
+	public <E extends Exception> void maximo(final int comandos, final AcaoSemRetorno<E> acao) throws E {
+		maximo(comandos, () -> {
+			acao.executa();
+			return null;
+		});
+	}
+
+	private void flush() {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			entityManager.flush();
+		}
+	}
+
+	private static void verifica(final int comandos, final ConsultasSql consultas) {
+		assertThat(consultas.toString(), consultas.getTotal() - consultas.getChamadasSequence(),
+				lessThanOrEqualTo(comandos));
+		assertThat(consultas.toString(), consultas.getSelectsRepetidos(), anEmptyMap());
+	}
+}
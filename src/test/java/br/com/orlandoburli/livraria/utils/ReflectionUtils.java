@@ -27,4 +27,23 @@ public class ReflectionUtils {
 					+ value.getClass(), e);
 		}
 	}
+
+	/**
+	 * Lê o valor de um atributo
+	 *
+	 * @param field Nome do atributo
+	 * @param vo    Objeto a ser lido
+	 * @return Valor do atributo
+	 */
+	public static Object getValue(final String field, final Object vo) {
+		try {
+			final Field f = vo.getClass().getDeclaredField(field);
+
+			f.setAccessible(true);
+			return f.get(vo);
+
+		} catch (final IllegalArgumentException | IllegalAccessException | NoSuchFieldException | SecurityException e) {
+			throw new IllegalStateException("Class: " + vo.getClass() + " Field: " + field, e);
+		}
+	}
 }
@@ -0,0 +1,3 @@
+ALTER TABLE livraria.emprestimo ADD COLUMN livro_aberto_id numeric(8) AS (CASE WHEN status = 'A' THEN livro_id END);
+
+CREATE UNIQUE INDEX uk_emprestimo_livro_aberto ON livraria.emprestimo (livro_aberto_id)
@@ -0,0 +1,3 @@
+ALTER TABLE livraria.capa DROP COLUMN imagem;
+ALTER TABLE livraria.capa ADD COLUMN hash varchar(40) NOT NULL;
+CREATE INDEX ix_capa_hash ON livraria.capa (hash)
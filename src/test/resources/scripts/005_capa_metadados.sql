@@ -0,0 +1,2 @@
+ALTER TABLE livraria.capa ADD COLUMN tipo varchar(100);
+ALTER TABLE livraria.capa ADD COLUMN data_atualizacao timestamp NOT NULL